@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchExecutorAdaptee;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * The request to execute multiple insert, update or delete operations at once.
+ * Operations of the resource type whose adaptee implements
+ * {@link BatchExecutorAdaptee} are expected to be executed
+ * as a single remote call (per batch size), the rest as concurrent single calls with bounded parallelism.
+ * <p>
+ * A failure of the single operation doesn't fail the whole batch, it's reported by its {@link BatchResult}.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface BatchRequest
+{
+    /**
+     * The default maximum number of the remote calls being executed concurrently.
+     */
+    int DEFAULT_PARALLELISM = 10;
+
+    /**
+     * Adds the insert operation of the given resource to the batch.
+     *
+     * @param resource the resource instance of concrete type to insert
+     * @return this request to chain calls
+     */
+    <T> BatchRequest insert( @Nonnull T resource );
+
+    /**
+     * Adds the insert operation of the given resource to the batch.
+     *
+     * @param resource the resource instance of concrete type to insert
+     * @param parent   the resource parent identifier
+     * @return this request to chain calls
+     */
+    <T> BatchRequest insert( @Nonnull T resource, @Nullable Identifier parent );
+
+    /**
+     * Adds the update operation of the given resource to the batch.
+     *
+     * @param resource   the resource instance of concrete type to update
+     * @param identifier the unique identifier of the resource
+     * @return this request to chain calls
+     */
+    <T> BatchRequest update( @Nonnull T resource, @Nonnull Identifier identifier );
+
+    /**
+     * Adds the delete operation of the given resource type and identifier to the batch.
+     *
+     * @param resource   the type of resource to remove
+     * @param identifier the unique identifier of the resource
+     * @return this request to chain calls
+     */
+    <T> BatchRequest delete( @Nonnull Class<T> resource, @Nonnull Identifier identifier );
+
+    /**
+     * Set the maximum number of the remote calls being executed concurrently.
+     *
+     * @param parallelism the maximum number of concurrent remote calls, must be positive
+     * @return this request to chain calls
+     * @throws IllegalArgumentException thrown for zero or negative number
+     */
+    BatchRequest parallelism( int parallelism );
+
+    /**
+     * Set the executor to run the concurrent remote calls on.
+     *
+     * @param executor the executor to run the remote calls on
+     * @return this request to chain calls
+     */
+    BatchRequest executeOn( @Nonnull Executor executor );
+
+    /**
+     * Execute all operations.
+     *
+     * @return the list of results in the same order as the operations have been added
+     */
+    List<BatchResult<Object>> finish();
+
+    /**
+     * Execute all operations with additional resource (query) parameters or locale.
+     *
+     * @param parameters the optional resource (query) parameters applied to each operation
+     * @param locale     the language the client has configured to be associated with the resources
+     * @return the list of results in the same order as the operations have been added
+     */
+    List<BatchResult<Object>> finish( @Nullable Map<String, Object> parameters, @Nullable Locale locale );
+
+    /**
+     * Execute all operations asynchronously with additional resource (query) parameters or locale.
+     *
+     * @param parameters the optional resource (query) parameters applied to each operation
+     * @param locale     the language the client has configured to be associated with the resources
+     * @return the future completed by the list of results in the same order as the operations have been added
+     */
+    CompletableFuture<List<BatchResult<Object>>> finishAsync( @Nullable Map<String, Object> parameters,
+                                                              @Nullable Locale locale );
+
+    /**
+     * Creates the batch request that executes the operations of the resource type with a batch adaptee
+     * as a single remote call for each {@link BatchExecutorAdaptee#getMaxBatchSize()} operations,
+     * the rest by its own remote call via the given facade.
+     * To be returned by {@link RestFacade#batch()} implementation once any batch adaptee has been bound.
+     * <p>
+     * The adaptee receives the operations with the resource instances as added to the batch.
+     *
+     * @param facade   the facade to execute the operations without a batch adaptee
+     * @param adaptees the function to resolve the batch adaptee for the resource type,
+     *                 returns <code>null</code> if there is none
+     * @return the new batch request
+     */
+    static BatchRequest batched( @Nonnull RestFacade facade,
+                                 @Nonnull Function<Class<?>, BatchExecutorAdaptee<Object>> adaptees )
+    {
+        if ( facade == null )
+        {
+            throw new NullPointerException( "Facade cannot be null!" );
+        }
+        if ( adaptees == null )
+        {
+            throw new NullPointerException( "Adaptees cannot be null!" );
+        }
+        return new FanOutBatchRequest( facade, adaptees );
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The result of a single operation executed as a part of the batch, see {@link BatchRequest}.
+ * Either carries the response of the operation or its failure.
+ *
+ * @param <T> the response type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class BatchResult<T>
+{
+    private final T response;
+
+    private final HttpFailureException failure;
+
+    private BatchResult( T response, HttpFailureException failure )
+    {
+        this.response = response;
+        this.failure = failure;
+    }
+
+    /**
+     * Creates a successful result.
+     *
+     * @param response the response of the operation, {@code null} for void response
+     * @return the newly created result
+     */
+    public static <T> BatchResult<T> success( @Nullable T response )
+    {
+        return new BatchResult<>( response, null );
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param failure the failure of the operation
+     * @return the newly created result
+     */
+    public static <T> BatchResult<T> failure( @Nonnull HttpFailureException failure )
+    {
+        if ( failure == null )
+        {
+            throw new NullPointerException( "Failure cannot be null!" );
+        }
+        return new BatchResult<>( null, failure );
+    }
+
+    /**
+     * Returns a boolean identification whether the operation has succeeded.
+     *
+     * @return true if the operation has succeeded
+     */
+    public boolean isSuccess()
+    {
+        return failure == null;
+    }
+
+    /**
+     * Returns the response of the operation.
+     *
+     * @return the response or {@code null} for void response
+     * @throws HttpFailureException the failure of the operation if it has failed
+     */
+    public T get()
+    {
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        return response;
+    }
+
+    /**
+     * Returns the failure of the operation.
+     *
+     * @return the failure or {@code null} if the operation has succeeded
+     */
+    public HttpFailureException getFailure()
+    {
+        return failure;
+    }
+
+    @Override
+    public String toString()
+    {
+        return isSuccess() ? "BatchResult{response=" + response + '}' : "BatchResult{failure=" + failure + '}';
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import java.util.Iterator;
+
+/**
+ * The iterator holding resources to be released once abandoned before reaching the end,
+ * for example the pages being retrieved ahead on the background executor.
+ * <pre>
+ * {@code
+ * try ( CloseableIterator<File> iterator = facade.list( File.class ).iterator( 100, 2, executor ) )
+ * {
+ *     ...
+ * }
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the elements
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface CloseableIterator<T>
+        extends Iterator<T>, AutoCloseable
+{
+    /**
+     * Releases the resources held by the iterator, no more elements will be returned.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The compact immutable form of the {@link Identifier} chain, the flat arrays of the values and controllers
+ * from the root to the leaf along with the position of the identifier within the chain.
+ * Unlike the mutable {@link Identifier} the hash code is precomputed and the {@link #key()} is memoized,
+ * thus it's well suited (and safe to share among threads) as a map key.
+ * The hash code, equality and {@link #key()} are consistent with the {@link Identifier} it has been created from.
+ * <pre>
+ * {@code
+ * CompactIdentifier identifier = new Identifier( "accounts", "42" ).compact();
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class CompactIdentifier
+{
+    private final Object[] values;
+
+    private final String[] controllers;
+
+    private final int position;
+
+    private final int hash;
+
+    private String key;
+
+    private CompactIdentifier( Object[] values, String[] controllers, int position )
+    {
+        this.values = values;
+        this.controllers = controllers;
+        this.position = position;
+
+        int result = position;
+        for ( int index = 0; index < values.length; index++ )
+        {
+            result = 31 * result + Objects.hash( values[index], controllers[index] );
+        }
+        this.hash = result;
+    }
+
+    /**
+     * Creates the compact form of the given identifier.
+     *
+     * @param identifier the identifier to be converted
+     * @return the newly created compact identifier
+     */
+    public static CompactIdentifier of( @Nonnull Identifier identifier )
+    {
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier cannot be null!" );
+        }
+
+        int position = 0;
+        Identifier next = identifier;
+        while ( next.hasParent() )
+        {
+            next = next.getParent();
+            position++;
+        }
+
+        List<Object> values = new ArrayList<>();
+        List<String> controllers = new ArrayList<>();
+        while ( true )
+        {
+            values.add( next.value() );
+            controllers.add( next.getController() );
+            if ( !next.hasChild() )
+            {
+                break;
+            }
+            next = next.child();
+        }
+        return new CompactIdentifier( values.toArray(), controllers.toArray( new String[0] ), position );
+    }
+
+    /**
+     * Converts this identifier back to the (mutable) {@link Identifier} chain.
+     *
+     * @return the newly created identifier at the same position within the chain
+     */
+    public Identifier toIdentifier()
+    {
+        Identifier root = create( values[0] ).controller( controllers[0] );
+        for ( int index = 1; index < values.length; index++ )
+        {
+            Object value = values[index];
+            if ( value instanceof Long )
+            {
+                root.add( ( Long ) value );
+            }
+            else if ( value instanceof Integer )
+            {
+                root.add( ( Integer ) value );
+            }
+            else
+            {
+                root.add( value.toString() );
+            }
+            root.controller( controllers[index] );
+        }
+
+        Identifier identifier = root;
+        for ( int index = 0; index < position; index++ )
+        {
+            identifier = identifier.child();
+        }
+        return identifier;
+    }
+
+    private static Identifier create( Object value )
+    {
+        if ( value instanceof Long )
+        {
+            return new Identifier( ( Long ) value );
+        }
+        if ( value instanceof Integer )
+        {
+            return new Identifier( ( Integer ) value );
+        }
+        return new Identifier( value.toString() );
+    }
+
+    /**
+     * Returns the number of identifiers within the chain.
+     *
+     * @return the chain length
+     */
+    public int length()
+    {
+        return values.length;
+    }
+
+    /**
+     * Returns the position of this identifier within the chain, 0 for the root identifier.
+     *
+     * @return the position
+     */
+    public int position()
+    {
+        return position;
+    }
+
+    /**
+     * Returns the raw value of the identifier at given position within the chain.
+     *
+     * @param index the position within the chain
+     * @return the raw value
+     */
+    public Object value( int index )
+    {
+        return values[index];
+    }
+
+    /**
+     * Returns the controller of the identifier at given position within the chain.
+     *
+     * @param index the position within the chain
+     * @return the controller or {@code null} if none
+     */
+    public String controller( int index )
+    {
+        return controllers[index];
+    }
+
+    /**
+     * Returns the segments of the identifier chain, see {@link Identifier#segments()}.
+     *
+     * @return the unmodifiable list of segments
+     */
+    public List<String> segments()
+    {
+        String[] segments = new String[values.length];
+        for ( int index = 0; index < values.length; index++ )
+        {
+            String value = values[index].toString();
+            segments[index] = controllers[index] == null ? value : "/" + controllers[index] + ":" + value;
+        }
+        return Collections.unmodifiableList( Arrays.asList( segments ) );
+    }
+
+    /**
+     * Returns the identifier as a string key, the same as {@link Identifier#key()}. Computed once.
+     *
+     * @return the string key of the identifier
+     */
+    public String key()
+    {
+        String result = key;
+        if ( result == null )
+        {
+            StringBuilder builder = new StringBuilder( 16 * values.length );
+            if ( controllers[0] != null )
+            {
+                builder.append( '/' ).append( controllers[0] );
+                if ( values.length > 1 )
+                {
+                    // first child
+                    builder.append( ':' );
+                }
+            }
+            builder.append( values[0] );
+
+            for ( int index = 1; index < values.length; index++ )
+            {
+                if ( controllers[index] != null )
+                {
+                    builder.append( ":/" ).append( controllers[index] );
+                }
+                builder.append( ':' ).append( values[index] );
+            }
+            result = builder.toString();
+            key = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( !( o instanceof CompactIdentifier ) ) return false;
+        CompactIdentifier that = ( CompactIdentifier ) o;
+        return hash == that.hash &&
+                position == that.position &&
+                Arrays.equals( values, that.values ) &&
+                Arrays.equals( controllers, that.controllers );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompactIdentifier{" + key() + ", position=" + position + '}';
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The helper to apply an action to each item concurrently, with bounded parallelism.
+ * At most {@code parallelism} workers are being submitted to the executor, each one processing
+ * the items one by one until there is none left. The {@link RequestContext} of the caller
+ * is propagated to the workers.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class FanOut
+{
+    private FanOut()
+    {
+    }
+
+    /**
+     * Applies the action to each item. Once any action fails, the remaining items are skipped
+     * and the returned future completes exceptionally.
+     *
+     * @param items       the items to be processed
+     * @param parallelism the maximum number of items processed concurrently
+     * @param executor    the executor to run the workers on
+     * @param action      the action to be applied to each item
+     * @return the future completed once all items have been processed
+     */
+    static <I> CompletableFuture<Void> forEach( @Nonnull List<I> items,
+                                                int parallelism,
+                                                @Nonnull Executor executor,
+                                                @Nonnull Consumer<I> action )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "Parallelism must be positive: " + parallelism );
+        }
+        if ( items.isEmpty() )
+        {
+            return CompletableFuture.completedFuture( null );
+        }
+
+        Executor propagating = RequestContext.propagating( executor );
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        int workers = Math.min( parallelism, items.size() );
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for ( int worker = 0; worker < workers; worker++ )
+        {
+            futures[worker] = CompletableFuture.runAsync( () -> {
+                int index;
+                while ( !failed.get() && ( index = cursor.getAndIncrement() ) < items.size() )
+                {
+                    try
+                    {
+                        action.accept( items.get( index ) );
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        failed.set( true );
+                        throw e;
+                    }
+                }
+            }, propagating );
+        }
+        return CompletableFuture.allOf( futures );
+    }
+
+    /**
+     * Waits for the future to complete and returns its result.
+     * The cause of the failure is rethrown as is if it's a runtime exception.
+     *
+     * @param future the future to wait for
+     * @return the result of the future
+     */
+    static <V> V join( @Nonnull CompletableFuture<V> future )
+    {
+        try
+        {
+            return future.join();
+        }
+        catch ( CompletionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchExecutorAdaptee;
+import org.ctoolkit.restapi.client.adaptee.BatchOperation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * The default {@link BatchRequest} implementation. The operations of the resource type with
+ * {@link BatchExecutorAdaptee} are executed as a single remote call for each batch of operations,
+ * the rest by its own remote call via {@link RestFacade}. The calls are executed concurrently
+ * with bounded parallelism.
+ * <p>
+ * A failed remote call of the batch, or a call returning other than one result per operation,
+ * is reported as the {@link RemoteServerErrorException} for each of its operations, the other calls are completed.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class FanOutBatchRequest
+        implements BatchRequest
+{
+    private final RestFacade facade;
+
+    private final Function<Class<?>, BatchExecutorAdaptee<Object>> adaptees;
+
+    private final List<Item> items = new ArrayList<>();
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private Executor executor = RequestExecutors.defaultExecutor();
+
+    FanOutBatchRequest( @Nonnull RestFacade facade )
+    {
+        this( facade, type -> null );
+    }
+
+    FanOutBatchRequest( @Nonnull RestFacade facade,
+                        @Nonnull Function<Class<?>, BatchExecutorAdaptee<Object>> adaptees )
+    {
+        this.facade = facade;
+        this.adaptees = adaptees;
+    }
+
+    @Override
+    public <T> BatchRequest insert( @Nonnull T resource )
+    {
+        return insert( resource, null );
+    }
+
+    @Override
+    public <T> BatchRequest insert( @Nonnull T resource, @Nullable Identifier parent )
+    {
+        items.add( new Item( resource.getClass(), BatchOperation.insert( resource, parent ) ) );
+        return this;
+    }
+
+    @Override
+    public <T> BatchRequest update( @Nonnull T resource, @Nonnull Identifier identifier )
+    {
+        items.add( new Item( resource.getClass(), BatchOperation.update( resource, identifier ) ) );
+        return this;
+    }
+
+    @Override
+    public <T> BatchRequest delete( @Nonnull Class<T> resource, @Nonnull Identifier identifier )
+    {
+        items.add( new Item( resource, BatchOperation.delete( identifier ) ) );
+        return this;
+    }
+
+    @Override
+    public BatchRequest parallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "Parallelism must be positive: " + parallelism );
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    @Override
+    public BatchRequest executeOn( @Nonnull Executor executor )
+    {
+        if ( executor == null )
+        {
+            throw new NullPointerException( "Executor cannot be null!" );
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public List<BatchResult<Object>> finish()
+    {
+        return finish( null, null );
+    }
+
+    @Override
+    public List<BatchResult<Object>> finish( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        return FanOut.join( finishAsync( parameters, locale ) );
+    }
+
+    @Override
+    public CompletableFuture<List<BatchResult<Object>>> finishAsync( @Nullable Map<String, Object> parameters,
+                                                                     @Nullable Locale locale )
+    {
+        // the remote calls to be executed, each one as a list of indexes of the items it covers
+        List<List<Integer>> calls = new ArrayList<>();
+        Map<Class<?>, BatchExecutorAdaptee<Object>> resolved = new HashMap<>();
+        Map<Class<?>, List<Integer>> batched = new LinkedHashMap<>();
+        for ( int index = 0; index < items.size(); index++ )
+        {
+            Class<?> type = items.get( index ).type;
+            if ( !resolved.containsKey( type ) )
+            {
+                resolved.put( type, adaptees.apply( type ) );
+            }
+            if ( resolved.get( type ) == null )
+            {
+                calls.add( Collections.singletonList( index ) );
+            }
+            else
+            {
+                batched.computeIfAbsent( type, key -> new ArrayList<>() ).add( index );
+            }
+        }
+        batched.forEach( ( type, indexes ) -> {
+            int batchSize = Math.max( 1, resolved.get( type ).getMaxBatchSize() );
+            for ( int from = 0; from < indexes.size(); from += batchSize )
+            {
+                calls.add( indexes.subList( from, Math.min( from + batchSize, indexes.size() ) ) );
+            }
+        } );
+
+        List<BatchResult<Object>> results = new ArrayList<>( Collections.nCopies( items.size(), null ) );
+        return FanOut.forEach( calls, parallelism, executor, call -> {
+            // each call gets its own copy, the implementation might remove the credential properties
+            Map<String, Object> copy = parameters == null ? null : new HashMap<>( parameters );
+            Item first = items.get( call.get( 0 ) );
+            BatchExecutorAdaptee<Object> adaptee = resolved.get( first.type );
+            if ( adaptee == null )
+            {
+                results.set( call.get( 0 ), executeSingle( first, copy, locale ) );
+                return;
+            }
+
+            List<BatchResult<Object>> batch = executeBatch( adaptee, call, copy, locale );
+            for ( int index = 0; index < call.size(); index++ )
+            {
+                results.set( call.get( index ), batch.get( index ) );
+            }
+        } ).thenApply( ignored -> results );
+    }
+
+    private BatchResult<Object> executeSingle( Item item, Map<String, Object> parameters, Locale locale )
+    {
+        try
+        {
+            return BatchResult.success( execute( item, parameters, locale ) );
+        }
+        catch ( HttpFailureException e )
+        {
+            return BatchResult.failure( e );
+        }
+    }
+
+    private List<BatchResult<Object>> executeBatch( BatchExecutorAdaptee<Object> adaptee,
+                                                    List<Integer> call,
+                                                    Map<String, Object> parameters,
+                                                    Locale locale )
+    {
+        List<BatchOperation<Object>> operations = new ArrayList<>( call.size() );
+        for ( Integer index : call )
+        {
+            operations.add( items.get( index ).operation );
+        }
+
+        List<BatchResult<Object>> batch;
+        try
+        {
+            batch = adaptee.executeBatch( adaptee.prepareBatch( operations ), parameters, locale );
+        }
+        catch ( HttpFailureException e )
+        {
+            return failed( operations.size(), e );
+        }
+        catch ( IOException e )
+        {
+            HttpFailureException failure = new RemoteServerErrorException( "Batch of " + operations.size()
+                    + " operations has failed: " + e.getMessage() );
+            failure.initCause( e );
+            return failed( operations.size(), failure );
+        }
+        if ( batch == null || batch.size() != operations.size() )
+        {
+            return failed( operations.size(), new RemoteServerErrorException( "Expected " + operations.size()
+                    + " batch results, but got " + ( batch == null ? null : batch.size() ) ) );
+        }
+        return batch;
+    }
+
+    /**
+     * Reports the failure of the remote call for each of its operations, the other calls are not affected.
+     */
+    private static List<BatchResult<Object>> failed( int size, HttpFailureException failure )
+    {
+        return Collections.nCopies( size, BatchResult.failure( failure ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private Object execute( Item item, Map<String, Object> parameters, Locale locale )
+    {
+        BatchOperation<Object> operation = item.operation;
+        switch ( operation.getType() )
+        {
+            case INSERT:
+            {
+                return facade.insert( operation.getResource(), operation.getIdentifier() )
+                        .finish( parameters, locale );
+            }
+            case UPDATE:
+            {
+                return facade.update( operation.getResource() )
+                        .identifiedBy( operation.getIdentifier() )
+                        .finish( parameters, locale );
+            }
+            case DELETE:
+            {
+                return facade.delete( ( Class<Object> ) item.type )
+                        .identifiedBy( operation.getIdentifier() )
+                        .finish( parameters, locale );
+            }
+            default:
+            {
+                throw new IllegalArgumentException( "Unsupported operation: " + operation.getType() );
+            }
+        }
+    }
+
+    private static class Item
+    {
+        private final Class<?> type;
+
+        private final BatchOperation<Object> operation;
+
+        @SuppressWarnings( "unchecked" )
+        Item( Class<?> type, BatchOperation<?> operation )
+        {
+            this.type = type;
+            this.operation = ( BatchOperation<Object> ) operation;
+        }
+    }
+}
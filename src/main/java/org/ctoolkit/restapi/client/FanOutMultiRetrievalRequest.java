@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchGetExecutorAdaptee;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * The default {@link MultiRetrievalRequest} implementation, retrieves the resources either
+ * by its own {@link RestFacade#get(Class)} call for each identifier or, once configured
+ * with {@link BatchGetExecutorAdaptee}, by a single remote call for each batch of identifiers.
+ * The calls are executed concurrently with bounded parallelism.
+ *
+ * @param <T> the single item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class FanOutMultiRetrievalRequest<T>
+        implements MultiRetrievalRequest<T>
+{
+    private final Retrieval<T> retrieval;
+
+    private final List<Identifier> identifiers;
+
+    private final int batchSize;
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private Executor executor = RequestExecutors.defaultExecutor();
+
+    private boolean requireAll;
+
+    FanOutMultiRetrievalRequest( @Nonnull RestFacade facade,
+                                 @Nonnull Class<T> resource,
+                                 @Nonnull Collection<Identifier> identifiers )
+    {
+        this.identifiers = new ArrayList<>( new LinkedHashSet<>( identifiers ) );
+        this.batchSize = 1;
+        this.retrieval = ( batch, parameters, locale ) -> {
+            Identifier identifier = batch.get( 0 );
+            try
+            {
+                T instance = facade.get( resource ).identifiedBy( identifier ).finish( parameters, locale );
+                return instance == null
+                        ? Collections.emptyMap()
+                        : Collections.singletonMap( identifier, instance );
+            }
+            catch ( NotFoundException ignored )
+            {
+                // not found resource is simply missing in the result
+                return Collections.emptyMap();
+            }
+        };
+    }
+
+    <M> FanOutMultiRetrievalRequest( @Nonnull BatchGetExecutorAdaptee<M> adaptee,
+                                     @Nonnull Function<? super M, ? extends T> mapper,
+                                     @Nonnull Collection<Identifier> identifiers )
+    {
+        this.identifiers = new ArrayList<>( new LinkedHashSet<>( identifiers ) );
+        this.batchSize = adaptee.getMaxBatchSize();
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Max batch size must be positive: " + batchSize );
+        }
+        this.retrieval = ( batch, parameters, locale ) -> {
+            Map<Identifier, M> models;
+            try
+            {
+                models = adaptee.executeBatchGet( adaptee.prepareBatchGet( batch ), parameters, locale );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( "Batch retrieval of " + batch.size() + " resources has failed", e );
+            }
+
+            Map<Identifier, T> found = new HashMap<>();
+            if ( models != null )
+            {
+                models.forEach( ( identifier, model ) -> {
+                    if ( model != null )
+                    {
+                        found.put( identifier, mapper.apply( model ) );
+                    }
+                } );
+            }
+            return found;
+        };
+    }
+
+    @Override
+    public MultiRetrievalRequest<T> parallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "Parallelism must be positive: " + parallelism );
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    @Override
+    public MultiRetrievalRequest<T> executeOn( @Nonnull Executor executor )
+    {
+        if ( executor == null )
+        {
+            throw new NullPointerException( "Executor cannot be null!" );
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public MultiRetrievalRequest<T> requireAll()
+    {
+        this.requireAll = true;
+        return this;
+    }
+
+    @Override
+    public Map<Identifier, T> finish()
+    {
+        return finish( null, null );
+    }
+
+    @Override
+    public Map<Identifier, T> finish( @Nullable Map<String, Object> parameters )
+    {
+        return finish( parameters, null );
+    }
+
+    @Override
+    public Map<Identifier, T> finish( @Nullable Locale locale )
+    {
+        return finish( null, locale );
+    }
+
+    @Override
+    public Map<Identifier, T> finish( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        return FanOut.join( finishAsync( parameters, locale ) );
+    }
+
+    @Override
+    public CompletableFuture<Map<Identifier, T>> finishAsync( @Nullable Map<String, Object> parameters,
+                                                              @Nullable Locale locale )
+    {
+        List<List<Identifier>> batches = new ArrayList<>();
+        for ( int from = 0; from < identifiers.size(); from += batchSize )
+        {
+            batches.add( identifiers.subList( from, Math.min( from + batchSize, identifiers.size() ) ) );
+        }
+
+        Map<Identifier, T> found = new ConcurrentHashMap<>();
+        return FanOut.forEach( batches, parallelism, executor, batch -> {
+            // each call gets its own copy, the implementation might remove the credential properties
+            Map<String, Object> copy = parameters == null ? null : new HashMap<>( parameters );
+            found.putAll( retrieval.retrieve( batch, copy, locale ) );
+        } ).thenApply( ignored -> {
+            Map<Identifier, T> result = new LinkedHashMap<>();
+            List<Identifier> missing = new ArrayList<>();
+            for ( Identifier identifier : identifiers )
+            {
+                T instance = found.get( identifier );
+                if ( instance != null )
+                {
+                    result.put( identifier, instance );
+                }
+                else
+                {
+                    missing.add( identifier );
+                }
+            }
+            if ( requireAll && !missing.isEmpty() )
+            {
+                throw new NotFoundException( "Resources not found: " + missing );
+            }
+            return result;
+        } );
+    }
+
+    /**
+     * The retrieval of a single batch of the resources.
+     */
+    private interface Retrieval<T>
+    {
+        /**
+         * Retrieves the resources of the given identifiers.
+         *
+         * @param batch      the identifiers of the resources to be retrieved
+         * @param parameters the optional resource (query) parameters
+         * @param locale     the language the client has configured to prefer in results if applicable
+         * @return the map of found resources keyed by its identifier
+         */
+        Map<Identifier, T> retrieve( @Nonnull List<Identifier> batch,
+                                     @Nullable Map<String, Object> parameters,
+                                     @Nullable Locale locale );
+    }
+}
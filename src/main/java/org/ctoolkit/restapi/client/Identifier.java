@@ -20,7 +20,9 @@ package org.ctoolkit.restapi.client;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -475,6 +477,35 @@ public class Identifier
         return builder.toString();
     }
 
+    /**
+     * Returns the compact immutable form of this identifier, suited as a map key.
+     *
+     * @return the newly created compact identifier
+     */
+    public CompactIdentifier compact()
+    {
+        return CompactIdentifier.of( this );
+    }
+
+    /**
+     * Returns the segments of the identifier chain from the root to the leaf,
+     * each composed of the optional controller and the value, such as {@code /accounts:42}.
+     *
+     * @return the list of segments
+     */
+    public List<String> segments()
+    {
+        List<String> segments = new ArrayList<>();
+        Identifier next = root();
+        while ( next != null )
+        {
+            String value = next.value().toString();
+            segments.add( next.hasController() ? "/" + next.getController() + ":" + value : value );
+            next = next.child;
+        }
+        return segments;
+    }
+
     private void append( StringBuilder builder, Identifier identifier )
     {
         if ( identifier == this )
@@ -506,16 +537,56 @@ public class Identifier
         if ( this == o ) return true;
         if ( !( o instanceof Identifier ) ) return false;
         Identifier that = ( Identifier ) o;
-        return Objects.equals( child, that.child ) &&
-                Objects.equals( parent, that.parent ) &&
-                Objects.equals( value, that.value ) &&
-                Objects.equals( controller, that.controller );
+        if ( !sameSegment( this, that ) )
+        {
+            return false;
+        }
+
+        // walks both directions of the chain iteratively, a recursive comparison would never end
+        Identifier left = this;
+        Identifier right = that;
+        while ( left.parent != null && right.parent != null )
+        {
+            left = left.parent;
+            right = right.parent;
+            if ( !sameSegment( left, right ) ) return false;
+        }
+        if ( left.parent != null || right.parent != null ) return false;
+
+        left = this;
+        right = that;
+        while ( left.child != null && right.child != null )
+        {
+            left = left.child;
+            right = right.child;
+            if ( !sameSegment( left, right ) ) return false;
+        }
+        return left.child == null && right.child == null;
+    }
+
+    private static boolean sameSegment( Identifier left, Identifier right )
+    {
+        return Objects.equals( left.value, right.value ) && Objects.equals( left.controller, right.controller );
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash( child, parent, value, controller );
+        int depth = 0;
+        Identifier next = this;
+        while ( next.parent != null )
+        {
+            next = next.parent;
+            depth++;
+        }
+
+        int result = depth;
+        while ( next != null )
+        {
+            result = 31 * result + Objects.hash( next.value, next.controller );
+            next = next.child;
+        }
+        return result;
     }
 
     @Override
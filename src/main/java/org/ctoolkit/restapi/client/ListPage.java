@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The single page of the list of resources along with the opaque token to retrieve the next page.
+ * See {@link ListRetrievalRequest#finishPage(String, int)}.
+ *
+ * @param <T> the list item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class ListPage<T>
+{
+    private final List<T> items;
+
+    private final String nextPageToken;
+
+    private ListPage( List<T> items, String nextPageToken )
+    {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Creates the page of the list.
+     *
+     * @param items         the resources of the page, {@code null} for none
+     * @param nextPageToken the token of the next page or {@code null} if this is the last page
+     * @return the newly created page
+     */
+    public static <T> ListPage<T> of( @Nullable List<T> items, @Nullable String nextPageToken )
+    {
+        List<T> unmodifiable = items == null ? Collections.emptyList() : Collections.unmodifiableList( items );
+        String token = nextPageToken == null || nextPageToken.isEmpty() ? null : nextPageToken;
+        return new ListPage<>( unmodifiable, token );
+    }
+
+    /**
+     * Returns the unmodifiable list of resources of this page.
+     *
+     * @return the resources, empty list if none
+     */
+    @Nonnull
+    public List<T> getItems()
+    {
+        return items;
+    }
+
+    /**
+     * Returns the opaque token to retrieve the next page.
+     *
+     * @return the next page token or {@code null} if this is the last page
+     */
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    /**
+     * Returns a boolean identification whether there is a next page to be retrieved.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNextPage()
+    {
+        return nextPageToken != null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ListPage{" +
+                "size=" + items.size() +
+                ", nextPageToken='" + nextPageToken + '\'' +
+                '}';
+    }
+}
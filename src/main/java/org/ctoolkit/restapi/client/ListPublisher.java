@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The publisher of all resources of the list, the pages are retrieved
+ * by {@link ListRetrievalRequest#finishPage(String, int)} on the executor, driven by the subscriber's demand.
+ * Each subscriber walks the list on its own, with at most one page buffered.
+ *
+ * @param <T> the list item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class ListPublisher<T>
+        implements Publisher<T>
+{
+    private final ListRetrievalRequest<T> request;
+
+    private final int pageSize;
+
+    private final Executor executor;
+
+    ListPublisher( @Nonnull ListRetrievalRequest<T> request, int pageSize, @Nonnull Executor executor )
+    {
+        if ( pageSize < 1 )
+        {
+            throw new IllegalArgumentException( "Page size must be positive: " + pageSize );
+        }
+        this.request = request;
+        this.pageSize = pageSize;
+        this.executor = RequestContext.propagating( executor );
+    }
+
+    @Override
+    public void subscribe( Subscriber<? super T> subscriber )
+    {
+        if ( subscriber == null )
+        {
+            throw new NullPointerException( "Subscriber cannot be null!" );
+        }
+        subscriber.onSubscribe( new PageSubscription( subscriber ) );
+    }
+
+    private class PageSubscription
+            implements Subscription
+    {
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final Deque<T> page = new ArrayDeque<>();
+
+        private final Subscriber<? super T> subscriber;
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable invalidRequest;
+
+        private String pageToken;
+
+        private boolean last;
+
+        PageSubscription( Subscriber<? super T> subscriber )
+        {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request( long n )
+        {
+            if ( n <= 0 )
+            {
+                invalidRequest = new IllegalArgumentException( "Non-positive request signals are illegal: " + n );
+            }
+            else
+            {
+                long current;
+                long next;
+                do
+                {
+                    current = requested.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                }
+                while ( !requested.compareAndSet( current, next ) );
+            }
+            executor.execute( this::drain );
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        private void drain()
+        {
+            if ( wip.getAndIncrement() != 0 )
+            {
+                return;
+            }
+
+            int missed = 1;
+            do
+            {
+                if ( emit() )
+                {
+                    cancelled = true;
+                    return;
+                }
+                missed = wip.addAndGet( -missed );
+            }
+            while ( missed != 0 );
+        }
+
+        /**
+         * Emits resources as long as there is a demand.
+         *
+         * @return true if terminated (either completed or failed)
+         */
+        private boolean emit()
+        {
+            while ( !cancelled )
+            {
+                if ( invalidRequest != null )
+                {
+                    subscriber.onError( invalidRequest );
+                    return true;
+                }
+
+                if ( page.isEmpty() )
+                {
+                    if ( last )
+                    {
+                        subscriber.onComplete();
+                        return true;
+                    }
+                    if ( requested.get() == 0 )
+                    {
+                        return false;
+                    }
+                    try
+                    {
+                        fetch();
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        subscriber.onError( e );
+                        return true;
+                    }
+                    continue;
+                }
+
+                if ( requested.get() == 0 )
+                {
+                    return false;
+                }
+
+                subscriber.onNext( page.pollFirst() );
+                if ( requested.get() != Long.MAX_VALUE )
+                {
+                    requested.decrementAndGet();
+                }
+            }
+            return false;
+        }
+
+        private void fetch()
+        {
+            ListPage<T> next = request.finishPage( pageToken, pageSize );
+
+            pageToken = next.getNextPageToken();
+            last = !next.hasNextPage();
+            page.addAll( next.getItems() );
+        }
+    }
+}
@@ -18,12 +18,21 @@
 
 package org.ctoolkit.restapi.client;
 
+import org.reactivestreams.Publisher;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The extended {@link Request} to provide retrieval specific API to work with list of resources.
@@ -34,6 +43,11 @@ import java.util.Properties;
 public interface ListRetrievalRequest<T>
         extends RetrievalRequest<List<T>>
 {
+    /**
+     * The default number of resources retrieved by a single remote call while walking all pages.
+     */
+    int DEFAULT_PAGE_SIZE = 100;
+
     /**
      * Execute a remote call to find the list of resources of given type.
      *
@@ -65,6 +79,198 @@ public interface ListRetrievalRequest<T>
      */
     List<T> finish( int start, int length );
 
+    /**
+     * Execute a remote call to retrieve a single page of the list.
+     * The page token is opaque and must be taken from the previous page only.
+     * <p>
+     * The underlying API supporting cursor pagination is expected
+     * to implement {@link org.ctoolkit.restapi.client.adaptee.CursorListExecutorAdaptee},
+     * then the cost of the page retrieval doesn't depend on its position within the list.
+     * The default implementation falls back to offset pagination by {@link #finish(int, int)},
+     * with offset encoded in the token.
+     *
+     * @param pageToken the token of the page to retrieve, {@code null} for the first page
+     * @param length    the maximum number of results to retrieve
+     * @return the page of resources along with the next page token (if any)
+     * @throws IllegalArgumentException thrown for negative length or a token not issued by this request
+     */
+    default ListPage<T> finishPage( @Nullable String pageToken, int length )
+    {
+        int offset;
+        try
+        {
+            offset = pageToken == null ? 0 : Integer.parseInt( pageToken );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Unknown page token: " + pageToken, e );
+        }
+
+        List<T> items = finish( offset, length );
+        int size = items == null ? 0 : items.size();
+        return ListPage.of( items, size < length || size == 0 ? null : String.valueOf( offset + size ) );
+    }
+
+    /**
+     * Execute a remote call asynchronously to find filtered list of resources.
+     *
+     * @param start  the position of the first result, numbered from 0
+     * @param length the maximum number of results to retrieve
+     * @return the future completed by the list of filtered resources, if none by empty list
+     * @throws IllegalArgumentException thrown for any negative numbers
+     * @see #finish(int, int)
+     */
+    default CompletableFuture<List<T>> finishAsync( int start, int length )
+    {
+        return finishAsync( start, length, asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously on the given executor to find filtered list of resources.
+     *
+     * @param start    the position of the first result, numbered from 0
+     * @param length   the maximum number of results to retrieve
+     * @param executor the executor to run the remote call on
+     * @return the future completed by the list of filtered resources, if none by empty list
+     * @throws IllegalArgumentException thrown for any negative numbers
+     * @see #finish(int, int)
+     */
+    default CompletableFuture<List<T>> finishAsync( int start, int length, @Nonnull Executor executor )
+    {
+        if ( start < 0 || length < 0 )
+        {
+            throw new IllegalArgumentException( "Start and length must not be negative: " + start + ", " + length );
+        }
+        return CompletableFuture.supplyAsync( () -> finish( start, length ), executor );
+    }
+
+    /**
+     * Returns the iterator that walks all pages of the list lazily, see {@link #iterator(int)}.
+     * Pages are retrieved by {@link #DEFAULT_PAGE_SIZE} resources.
+     *
+     * @return the iterator over all resources
+     */
+    default Iterator<T> iterator()
+    {
+        return iterator( DEFAULT_PAGE_SIZE );
+    }
+
+    /**
+     * Returns the iterator that walks all pages of the list lazily, by {@link #finishPage(String, int)}
+     * remote calls as being consumed. Only the current page is held in memory. The iteration stops at the first page
+     * without the next page token.
+     * <p>
+     * Filtering criteria, sorting or locale have to be configured by this request before.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @return the iterator over all resources
+     * @throws IllegalArgumentException thrown for zero or negative page size
+     */
+    default Iterator<T> iterator( int pageSize )
+    {
+        return new PagingIterator<>( this, pageSize );
+    }
+
+    /**
+     * Returns the iterator that walks all pages of the list, see {@link #iterator(int)}, while prefetching
+     * up to {@code prefetch} pages ahead on the given executor as the current page is being consumed.
+     * Pages are retrieved one after another, thus at most {@code prefetch} pages plus the current one
+     * are held in memory.
+     * <p>
+     * Call {@link CloseableIterator#close()} on the returned iterator once abandoned before reaching the end,
+     * to stop prefetching.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @param prefetch the maximum number of pages to be retrieved ahead
+     * @param executor the executor to run the remote calls on
+     * @return the prefetching iterator over all resources
+     * @throws IllegalArgumentException thrown for zero or negative page size or number of pages to prefetch
+     */
+    default CloseableIterator<T> iterator( int pageSize, int prefetch, @Nonnull Executor executor )
+    {
+        return new PrefetchingIterator<>( this, pageSize, prefetch, executor );
+    }
+
+    /**
+     * Returns the spliterator that walks all pages of the list lazily, see {@link #iterator(int)}.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @return the ordered spliterator over all resources
+     */
+    default Spliterator<T> spliterator( int pageSize )
+    {
+        return Spliterators.spliteratorUnknownSize( iterator( pageSize ), Spliterator.ORDERED | Spliterator.NONNULL );
+    }
+
+    /**
+     * Returns the sequential stream that walks all pages of the list lazily, see {@link #iterator(int)}.
+     * Pages are retrieved by {@link #DEFAULT_PAGE_SIZE} resources.
+     *
+     * @return the stream of all resources
+     */
+    default Stream<T> stream()
+    {
+        return stream( DEFAULT_PAGE_SIZE );
+    }
+
+    /**
+     * Returns the sequential stream that walks all pages of the list lazily, see {@link #iterator(int)}.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @return the stream of all resources
+     */
+    default Stream<T> stream( int pageSize )
+    {
+        return StreamSupport.stream( spliterator( pageSize ), false );
+    }
+
+    /**
+     * Returns the sequential stream that walks all pages of the list while prefetching pages ahead,
+     * see {@link #iterator(int, int, Executor)}. Closing the stream stops prefetching.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @param prefetch the maximum number of pages to be retrieved ahead
+     * @param executor the executor to run the remote calls on
+     * @return the stream of all resources
+     */
+    default Stream<T> stream( int pageSize, int prefetch, @Nonnull Executor executor )
+    {
+        PrefetchingIterator<T> iterator = new PrefetchingIterator<>( this, pageSize, prefetch, executor );
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator, characteristics ), false )
+                .onClose( iterator::close );
+    }
+
+    /**
+     * Returns the publisher of all resources of the list, see {@link #publisher(int, Executor)}.
+     * Pages are retrieved by {@link #DEFAULT_PAGE_SIZE} resources on the {@link #asyncExecutor()}.
+     *
+     * @return the publisher of all resources
+     */
+    default Publisher<T> publisher()
+    {
+        return publisher( DEFAULT_PAGE_SIZE, asyncExecutor() );
+    }
+
+    /**
+     * Returns the Reactive Streams publisher of all resources of the list. The pages are retrieved
+     * by {@link #finishPage(String, int)} remote calls on the given executor, driven by the subscriber's demand,
+     * thus at most one page per subscriber is held in memory. Each subscriber walks the list on its own.
+     * <p>
+     * Running on Java 9+ use {@code org.reactivestreams.FlowAdapters#toFlowPublisher(Publisher)}
+     * to get {@code java.util.concurrent.Flow.Publisher}.
+     *
+     * @param pageSize the number of resources retrieved by a single remote call
+     * @param executor the executor to run the remote calls and to signal the subscriber on
+     * @return the publisher of all resources
+     * @throws IllegalArgumentException thrown for zero or negative page size
+     */
+    default Publisher<T> publisher( int pageSize, @Nonnull Executor executor )
+    {
+        return new ListPublisher<>( this, pageSize, executor );
+    }
+
     /**
      * Execute a remote call to find the list of resources of given type and additional filtering criteria.
      *
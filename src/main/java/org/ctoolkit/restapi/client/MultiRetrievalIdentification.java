@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchGetExecutorAdaptee;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * The fluent action where concrete resource type has been already provided
+ * and the collection of the {@link Identifier} is aimed to be configured.
+ *
+ * @param <T> the single item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface MultiRetrievalIdentification<T>
+{
+    /**
+     * Creates request with given identification of the resources.
+     *
+     * @param identifiers the unique identifiers of the resources to be retrieved
+     * @return the fluent action, a request with concrete resource type and identifications already configured
+     */
+    MultiRetrievalRequest<T> identifiedBy( @Nonnull Collection<Identifier> identifiers );
+
+    /**
+     * Returns the identification of the request that retrieves the resources by the given batch adaptee,
+     * a single remote call for each {@link BatchGetExecutorAdaptee#getMaxBatchSize()} identifiers.
+     * To be returned by {@link RestFacade#getAll(Class)} implementation once the adaptee has been bound
+     * for the resource type.
+     *
+     * @param adaptee the batch get adaptee to execute the remote calls
+     * @param mapper  the function to map the retrieved model object to the resource
+     * @return the multi retrieval identification
+     */
+    static <M, T> MultiRetrievalIdentification<T> batched( @Nonnull BatchGetExecutorAdaptee<M> adaptee,
+                                                           @Nonnull Function<? super M, ? extends T> mapper )
+    {
+        if ( adaptee == null )
+        {
+            throw new NullPointerException( "Adaptee cannot be null!" );
+        }
+        if ( mapper == null )
+        {
+            throw new NullPointerException( "Mapper cannot be null!" );
+        }
+        return identifiers -> new FanOutMultiRetrievalRequest<>( adaptee, mapper, identifiers );
+    }
+}
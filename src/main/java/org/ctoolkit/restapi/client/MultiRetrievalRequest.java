@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The request to retrieve multiple resources of the same type by its identifiers.
+ * Either executed as a single remote call (once supported by the underlying API)
+ * or as concurrent single resource retrievals with bounded parallelism.
+ *
+ * @param <T> the single item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface MultiRetrievalRequest<T>
+{
+    /**
+     * The default maximum number of the remote calls being executed concurrently.
+     */
+    int DEFAULT_PARALLELISM = 10;
+
+    /**
+     * Set the maximum number of the remote calls being executed concurrently.
+     *
+     * @param parallelism the maximum number of concurrent remote calls, must be positive
+     * @return this request to chain calls
+     * @throws IllegalArgumentException thrown for zero or negative number
+     */
+    MultiRetrievalRequest<T> parallelism( int parallelism );
+
+    /**
+     * Set the executor to run the concurrent remote calls on.
+     *
+     * @param executor the executor to run the remote calls on
+     * @return this request to chain calls
+     */
+    MultiRetrievalRequest<T> executeOn( @Nonnull Executor executor );
+
+    /**
+     * Requires all of the requested resources to be found. By default an identifier not found
+     * is simply missing in the result; once required, the request fails instead.
+     *
+     * @return this request to chain calls
+     */
+    MultiRetrievalRequest<T> requireAll();
+
+    /**
+     * Execute the remote call(s).
+     *
+     * @return the map of found resources keyed by its identifier, in order of the requested identifiers.
+     * An identifier not found is missing in the map, unless {@link #requireAll()} has been set.
+     * @throws NotFoundException thrown once {@link #requireAll()} has been set and any of the resources
+     *                           has not been found, the message lists the missing identifiers
+     */
+    Map<Identifier, T> finish();
+
+    /**
+     * Execute the remote call(s) with additional resource (query) parameters.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @return the map of found resources keyed by its identifier
+     */
+    Map<Identifier, T> finish( @Nullable Map<String, Object> parameters );
+
+    /**
+     * Execute the remote call(s) with specified locale.
+     *
+     * @param locale the language the client has configured to prefer in results if applicable
+     * @return the map of found resources keyed by its identifier
+     */
+    Map<Identifier, T> finish( @Nullable Locale locale );
+
+    /**
+     * Execute the remote call(s) with additional resource (query) parameters or locale.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @return the map of found resources keyed by its identifier
+     */
+    Map<Identifier, T> finish( @Nullable Map<String, Object> parameters, @Nullable Locale locale );
+
+    /**
+     * Execute the remote call(s) asynchronously with additional resource (query) parameters or locale.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @return the future completed by the map of found resources keyed by its identifier
+     */
+    CompletableFuture<Map<Identifier, T>> finishAsync( @Nullable Map<String, Object> parameters,
+                                                       @Nullable Locale locale );
+}
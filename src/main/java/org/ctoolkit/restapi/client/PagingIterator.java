@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The iterator that walks all pages of the list lazily by {@link ListRetrievalRequest#finishPage(String, int)}.
+ * Only the current page is held in memory. Iteration stops at the first page without the next page token.
+ *
+ * @param <T> the list item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class PagingIterator<T>
+        implements Iterator<T>
+{
+    private final ListRetrievalRequest<T> request;
+
+    private final int pageSize;
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    private String pageToken;
+
+    private boolean last;
+
+    PagingIterator( @Nonnull ListRetrievalRequest<T> request, int pageSize )
+    {
+        if ( pageSize < 1 )
+        {
+            throw new IllegalArgumentException( "Page size must be positive: " + pageSize );
+        }
+        this.request = request;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while ( !page.hasNext() && !last )
+        {
+            ListPage<T> next = request.finishPage( pageToken, pageSize );
+
+            pageToken = next.getNextPageToken();
+            last = !next.hasNextPage();
+            page = next.getItems().iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
@@ -19,6 +19,8 @@
 package org.ctoolkit.restapi.client;
 
 import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * The extended {@link Request} to provide additional flow actions for requests or responses having a payload.
@@ -54,4 +56,29 @@ public interface PayloadRequest<T>
      * @return the resource as a result of the remote call
      */
     <R> R finish( @Nonnull Class<R> type );
+
+    /**
+     * Execute a remote call asynchronously and return non default type of the response.
+     *
+     * @param type the response type different from the default one
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Class)
+     */
+    default <R> CompletableFuture<R> finishAsync( @Nonnull Class<R> type )
+    {
+        return finishAsync( type, asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously on the given executor and return non default type of the response.
+     *
+     * @param type     the response type different from the default one
+     * @param executor the executor to run the remote call on
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Class)
+     */
+    default <R> CompletableFuture<R> finishAsync( @Nonnull Class<R> type, @Nonnull Executor executor )
+    {
+        return CompletableFuture.supplyAsync( () -> finish( type ), executor );
+    }
 }
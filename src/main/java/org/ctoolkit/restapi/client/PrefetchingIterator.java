@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The iterator that walks all pages of the list by {@link ListRetrievalRequest#finishPage(String, int)}
+ * and prefetches up to given number of pages ahead on the background executor while the current page
+ * is being consumed. The pages are retrieved one after another (never concurrently), thus at most
+ * {@code prefetch} pages plus the current one are held in memory.
+ *
+ * @param <T> the list item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class PrefetchingIterator<T>
+        implements CloseableIterator<T>
+{
+    private final Deque<CompletableFuture<ListPage<T>>> ahead = new ArrayDeque<>();
+
+    private final ListRetrievalRequest<T> request;
+
+    private final int pageSize;
+
+    private final Executor executor;
+
+    private CompletableFuture<ListPage<T>> tail = CompletableFuture.completedFuture( null );
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    private boolean last;
+
+    private volatile boolean closed;
+
+    PrefetchingIterator( @Nonnull ListRetrievalRequest<T> request,
+                         int pageSize,
+                         int prefetch,
+                         @Nonnull Executor executor )
+    {
+        if ( pageSize < 1 )
+        {
+            throw new IllegalArgumentException( "Page size must be positive: " + pageSize );
+        }
+        if ( prefetch < 1 )
+        {
+            throw new IllegalArgumentException( "Number of pages to prefetch must be positive: " + prefetch );
+        }
+        this.request = request;
+        this.pageSize = pageSize;
+        this.executor = RequestContext.propagating( executor );
+
+        for ( int index = 0; index < prefetch; index++ )
+        {
+            schedule();
+        }
+    }
+
+    private void schedule()
+    {
+        // each page waits for the previous one, the next page token is known only then
+        tail = tail.thenApplyAsync( previous -> {
+            if ( closed || ( previous != null && !previous.hasNextPage() ) )
+            {
+                // end of the list has been already reached
+                return ListPage.of( null, null );
+            }
+            return request.finishPage( previous == null ? null : previous.getNextPageToken(), pageSize );
+        }, executor );
+
+        ahead.addLast( tail );
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while ( !page.hasNext() && !last )
+        {
+            CompletableFuture<ListPage<T>> future = ahead.pollFirst();
+            if ( future == null || closed )
+            {
+                last = true;
+                break;
+            }
+
+            ListPage<T> next = FanOut.join( future );
+            last = !next.hasNextPage();
+            if ( !last )
+            {
+                schedule();
+            }
+            page = next.getItems().iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Stops prefetching, the pages not yet retrieved won't be requested anymore.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        for ( CompletableFuture<ListPage<T>> next : ahead )
+        {
+            next.cancel( false );
+        }
+        ahead.clear();
+    }
+}
@@ -25,6 +25,8 @@ import javax.annotation.Nullable;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * The top level request wrapper to provide possibility to isolate a remote call to standalone object.
@@ -85,6 +87,124 @@ public interface Request<T>
      */
     T finish( @Nullable Map<String, Object> parameters, @Nullable Locale locale );
 
+    /**
+     * Execute a remote call asynchronously on the {@link #asyncExecutor()}.
+     *
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish()
+     */
+    default CompletableFuture<T> finishAsync()
+    {
+        return finishAsync( asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously on the given executor.
+     *
+     * @param executor the executor to run the remote call on
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish()
+     */
+    default CompletableFuture<T> finishAsync( @Nonnull Executor executor )
+    {
+        return CompletableFuture.supplyAsync( this::finish, executor );
+    }
+
+    /**
+     * Execute a remote call asynchronously with request specific credential and configuration.
+     *
+     * @param credential the credential and configuration to be applied to this request
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(RequestCredential)
+     */
+    default CompletableFuture<T> finishAsync( @Nonnull RequestCredential credential )
+    {
+        return finishAsync( credential, asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously with request specific credential and configuration
+     * on the given executor.
+     *
+     * @param credential the credential and configuration to be applied to this request
+     * @param executor   the executor to run the remote call on
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(RequestCredential)
+     */
+    default CompletableFuture<T> finishAsync( @Nonnull RequestCredential credential, @Nonnull Executor executor )
+    {
+        return CompletableFuture.supplyAsync( () -> finish( credential ), executor );
+    }
+
+    /**
+     * Execute a remote call asynchronously with additional resource (query) parameters.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Map)
+     */
+    default CompletableFuture<T> finishAsync( @Nullable Map<String, Object> parameters )
+    {
+        return CompletableFuture.supplyAsync( () -> finish( parameters ), asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously with specified locale.
+     *
+     * @param locale the language the client has configured to prefer in results if applicable
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Locale)
+     */
+    default CompletableFuture<T> finishAsync( @Nullable Locale locale )
+    {
+        return CompletableFuture.supplyAsync( () -> finish( locale ), asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously with additional resource (query) parameters or locale.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Map, Locale)
+     */
+    default CompletableFuture<T> finishAsync( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        return finishAsync( parameters, locale, asyncExecutor() );
+    }
+
+    /**
+     * Execute a remote call asynchronously with additional resource (query) parameters or locale
+     * on the given executor.
+     * <p>
+     * Any {@link HttpFailureException} thrown by the remote call completes the returned future exceptionally,
+     * wrapped in {@link java.util.concurrent.CompletionException} once joined.
+     *
+     * @param parameters the optional resource (query) parameters
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @param executor   the executor to run the remote call on
+     * @return the future completed by the resource as a result of the remote call
+     * @see #finish(Map, Locale)
+     */
+    default CompletableFuture<T> finishAsync( @Nullable Map<String, Object> parameters,
+                                              @Nullable Locale locale,
+                                              @Nonnull Executor executor )
+    {
+        return CompletableFuture.supplyAsync( () -> finish( parameters, locale ), executor );
+    }
+
+    /**
+     * Returns the executor used by {@code finishAsync} methods not taking an executor as an argument.
+     * Defaults to the facade wide {@link RequestExecutors#defaultExecutor()} dedicated to the blocking remote calls,
+     * the implementation might override it with the executor configured for the facade.
+     *
+     * @return the default executor of the asynchronous remote calls
+     */
+    default Executor asyncExecutor()
+    {
+        return RequestExecutors.defaultExecutor();
+    }
+
     /**
      * Apply specific request configuration properties (query parameters) to this call.
      *
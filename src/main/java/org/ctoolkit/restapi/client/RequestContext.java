@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * The immutable execution context of the remote calls, carrying the impersonation
+ * and {@link RequestCredential} to be applied. Unlike {@link RestFacade#impersonate(String, String)}
+ * the context is bound only for the scope of {@link #run(Runnable)} or {@link #call(Callable)}
+ * and gets inherited by the tasks submitted via {@link #propagating(Executor)}, thus it fits well
+ * to short-lived (virtual) threads. The implementation is expected to apply the {@link #current()} context
+ * (if any) right before a remote call, taking precedence over the per thread impersonation.
+ * <pre>
+ * {@code
+ * Executor executor = RequestContext.propagating( RequestExecutors.newVirtualThreadPerTaskExecutor() );
+ *
+ * RequestContext.impersonating( "john.foo@company.com", "drive" ).run( () ->
+ *     facade.get( File.class ).identifiedBy( id ).finishAsync( executor ) );
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class RequestContext
+{
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    private static final RequestContext EMPTY = new RequestContext( null, null, null, null );
+
+    private final String userEmail;
+
+    private final Collection<String> scopes;
+
+    private final String api;
+
+    private final RequestCredential credential;
+
+    private RequestContext( String userEmail,
+                            Collection<String> scopes,
+                            String api,
+                            RequestCredential credential )
+    {
+        this.userEmail = userEmail;
+        this.scopes = scopes;
+        this.api = api;
+        this.credential = credential;
+    }
+
+    /**
+     * Returns the empty context, with no impersonation and no request credential.
+     *
+     * @return the empty context
+     */
+    public static RequestContext empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a new context to impersonate given user for specified API with default scopes.
+     *
+     * @param userEmail the email address of the user to impersonate
+     * @param api       the short name of an API that has been installed with the facade
+     * @return the newly created context
+     * @see RestFacade#impersonate(String, String)
+     */
+    public static RequestContext impersonating( @Nonnull String userEmail, @Nonnull String api )
+    {
+        return EMPTY.impersonate( userEmail, api );
+    }
+
+    /**
+     * Returns the context bound to the current scope.
+     *
+     * @return the current context or {@code null} if none is bound
+     */
+    public static RequestContext current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps the given executor, each submitted task will run within the context
+     * that has been current at the time of the task submission.
+     *
+     * @param executor the executor to be wrapped
+     * @return the context propagating executor
+     */
+    public static Executor propagating( @Nonnull Executor executor )
+    {
+        checkNotNull( executor, "Executor" );
+        return command -> {
+            RequestContext context = current();
+            executor.execute( context == null ? command : () -> context.run( command ) );
+        };
+    }
+
+    private static void checkNotNull( Object value, String name )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( name + " cannot be null!" );
+        }
+    }
+
+    /**
+     * Returns a copy of this context to impersonate given user for specified API with default scopes.
+     *
+     * @param userEmail the email address of the user to impersonate
+     * @param api       the short name of an API that has been installed with the facade
+     * @return the new context instance
+     */
+    public RequestContext impersonate( @Nonnull String userEmail, @Nonnull String api )
+    {
+        checkNotNull( userEmail, "User email" );
+        checkNotNull( api, "API" );
+        return new RequestContext( userEmail, null, api, credential );
+    }
+
+    /**
+     * Returns a copy of this context to impersonate given user for specified API and scopes.
+     *
+     * @param scopes    the scopes for use with API
+     * @param userEmail the email address of the user to impersonate
+     * @param api       the short name of an API that has been installed with the facade
+     * @return the new context instance
+     * @see RestFacade#impersonate(Collection, String, String)
+     */
+    public RequestContext impersonate( @Nonnull Collection<String> scopes,
+                                       @Nonnull String userEmail,
+                                       @Nonnull String api )
+    {
+        checkNotNull( scopes, "Scopes" );
+        checkNotNull( userEmail, "User email" );
+        checkNotNull( api, "API" );
+        Collection<String> copy = Collections.unmodifiableList( new ArrayList<>( scopes ) );
+        return new RequestContext( userEmail, copy, api, credential );
+    }
+
+    /**
+     * Returns a copy of this context with given credential to be applied to the remote calls.
+     *
+     * @param credential the credential and configuration to be applied, {@code null} to remove
+     * @return the new context instance
+     * @see Request#finish(RequestCredential)
+     */
+    public RequestContext credential( @Nullable RequestCredential credential )
+    {
+        return new RequestContext( userEmail, scopes, api, credential );
+    }
+
+    /**
+     * Runs the given action with this context bound. Previous context (if any) is restored once finished.
+     *
+     * @param action the action to be run
+     */
+    public void run( @Nonnull Runnable action )
+    {
+        RequestContext previous = CURRENT.get();
+        CURRENT.set( this );
+        try
+        {
+            action.run();
+        }
+        finally
+        {
+            restore( previous );
+        }
+    }
+
+    /**
+     * Calls the given action with this context bound. Previous context (if any) is restored once finished.
+     *
+     * @param action the action to be called
+     * @return the result of the action
+     * @throws Exception if the action has failed
+     */
+    public <V> V call( @Nonnull Callable<V> action ) throws Exception
+    {
+        RequestContext previous = CURRENT.get();
+        CURRENT.set( this );
+        try
+        {
+            return action.call();
+        }
+        finally
+        {
+            restore( previous );
+        }
+    }
+
+    private void restore( RequestContext previous )
+    {
+        if ( previous == null )
+        {
+            CURRENT.remove();
+        }
+        else
+        {
+            CURRENT.set( previous );
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether this context carries an impersonation.
+     *
+     * @return true if impersonation has been configured
+     */
+    public boolean isImpersonated()
+    {
+        return userEmail != null;
+    }
+
+    /**
+     * Returns the email address of the user to impersonate.
+     *
+     * @return the user email or {@code null} if none
+     */
+    public String getUserEmail()
+    {
+        return userEmail;
+    }
+
+    /**
+     * Returns the scopes to be used with impersonated API.
+     *
+     * @return the scopes or {@code null} for default configuration
+     */
+    public Collection<String> getScopes()
+    {
+        return scopes;
+    }
+
+    /**
+     * Returns the short name of the API to impersonate the user for.
+     *
+     * @return the API name or {@code null} if none
+     */
+    public String getApi()
+    {
+        return api;
+    }
+
+    /**
+     * Returns the credential and configuration to be applied to the remote calls.
+     *
+     * @return the request credential or {@code null} if none
+     */
+    public RequestCredential getCredential()
+    {
+        return credential;
+    }
+
+    /**
+     * Two contexts are equal once they carry the same impersonation and the same credential instance.
+     */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( !( o instanceof RequestContext ) ) return false;
+        RequestContext that = ( RequestContext ) o;
+        return Objects.equals( userEmail, that.userEmail ) &&
+                Objects.equals( scopes, that.scopes ) &&
+                Objects.equals( api, that.api ) &&
+                credential == that.credential;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( userEmail, scopes, api, System.identityHashCode( credential ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RequestContext{" +
+                "userEmail='" + userEmail + '\'' +
+                ", scopes=" + scopes +
+                ", api='" + api + '\'' +
+                ", credential=" + ( credential != null ) +
+                '}';
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The factory of the executors suited to run blocking remote calls,
+ * see {@link Request#finishAsync(java.util.concurrent.Executor)}.
+ * <p>
+ * The library is compiled against Java 8, thus virtual threads are looked up at runtime.
+ * Once running on a JDK without virtual threads, a cached pool of daemon platform threads is used instead.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class RequestExecutors
+{
+    private static final Method VIRTUAL_THREAD_PER_TASK = virtualThreadPerTaskMethod();
+
+    private static volatile Executor defaultExecutor;
+
+    private RequestExecutors()
+    {
+    }
+
+    private static Method virtualThreadPerTaskMethod()
+    {
+        try
+        {
+            return Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether the current runtime supports virtual threads.
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return VIRTUAL_THREAD_PER_TASK != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * If virtual threads are not supported, returns a cached pool of daemon platform threads.
+     * <p>
+     * To carry the impersonation and request credential to the remote calls,
+     * wrap the executor by {@link RequestContext#propagating(java.util.concurrent.Executor)}.
+     *
+     * @return the newly created executor, the caller is responsible to shut it down
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor()
+    {
+        if ( VIRTUAL_THREAD_PER_TASK != null )
+        {
+            try
+            {
+                return ( ExecutorService ) VIRTUAL_THREAD_PER_TASK.invoke( null );
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                throw new IllegalStateException( "Virtual thread executor initialization has failed", e );
+            }
+        }
+        return Executors.newCachedThreadPool( new DaemonThreadFactory( "ctoolkit-facade-" ) );
+    }
+
+    /**
+     * Returns the facade wide executor of the asynchronous remote calls, used once no executor has been given.
+     * Unless configured by {@link #setDefaultExecutor(Executor)}, it's the lazily created
+     * {@link #newVirtualThreadPerTaskExecutor()} dedicated to the blocking remote calls (never the common pool),
+     * propagating the {@link RequestContext} of the caller.
+     *
+     * @return the default executor
+     */
+    public static Executor defaultExecutor()
+    {
+        Executor executor = defaultExecutor;
+        if ( executor == null )
+        {
+            synchronized ( RequestExecutors.class )
+            {
+                executor = defaultExecutor;
+                if ( executor == null )
+                {
+                    executor = RequestContext.propagating( newVirtualThreadPerTaskExecutor() );
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Configures the facade wide executor of the asynchronous remote calls, see {@link #defaultExecutor()}.
+     *
+     * @param executor the executor to be used once no executor has been given
+     */
+    public static void setDefaultExecutor( @Nonnull Executor executor )
+    {
+        if ( executor == null )
+        {
+            throw new NullPointerException( "Executor cannot be null!" );
+        }
+        defaultExecutor = executor;
+    }
+
+    /**
+     * The thread factory of the daemon threads with given name prefix.
+     */
+    static class DaemonThreadFactory
+            implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private final String prefix;
+
+        DaemonThreadFactory( String prefix )
+        {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, prefix + counter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The canonical composite key of the resource retrieval, composed of the resource type, identifier,
+ * parameters sorted by its name and locale. Two retrievals with equal keys are expected to return the same resource.
+ * The identifier is compared by its {@link #getSegments() segments}, as the {@link Identifier#key()}
+ * does not separate the controller from the value of the last identifier, for example {@code accounts:42}
+ * and {@code accounts4:2} share the key {@code /accounts42}.
+ * Serves as a cache key for both {@link org.ctoolkit.restapi.client.provider.LocalResourceProvider}
+ * and {@link org.ctoolkit.restapi.client.provider.LocalListResourceProvider}.
+ * <p>
+ * The hash code is precomputed and consistent with {@link #equals(Object)}. Use the {@link #asString()} form
+ * as the key shared among the nodes, as the hash code of the parameter values (for example enums)
+ * might differ among the JVM instances.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class ResourceKey
+{
+    private final Class<?> type;
+
+    private final String identifier;
+
+    private final List<String> segments;
+
+    private final SortedMap<String, Object> parameters;
+
+    private final Locale locale;
+
+    private final int hash;
+
+    private String canonical;
+
+    private ResourceKey( Class<?> type,
+                         String identifier,
+                         List<String> segments,
+                         SortedMap<String, Object> parameters,
+                         Locale locale )
+    {
+        this.type = type;
+        this.identifier = identifier;
+        this.segments = segments;
+        this.parameters = parameters;
+        this.locale = locale;
+
+        int result = type.getName().hashCode();
+        result = 31 * result + segments.hashCode();
+        for ( Map.Entry<String, Object> entry : parameters.entrySet() )
+        {
+            result = 31 * result + entry.getKey().hashCode();
+            result = 31 * result + Objects.hashCode( entry.getValue() );
+        }
+        this.hash = 31 * result + ( locale == null ? 0 : locale.toLanguageTag().hashCode() );
+    }
+
+    /**
+     * Creates the key of the single resource retrieval.
+     *
+     * @param type       the type of the resource
+     * @param identifier the unique identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the optional language of the resource
+     * @return the newly created key
+     * @throws IllegalArgumentException if any of the parameter names is {@code null}
+     */
+    public static ResourceKey of( @Nonnull Class<?> type,
+                                  @Nonnull Identifier identifier,
+                                  @Nullable Map<String, Object> parameters,
+                                  @Nullable Locale locale )
+    {
+        checkNotNull( identifier, "Identifier" );
+        return of( type, identifier.compact(), parameters, locale );
+    }
+
+    /**
+     * Creates the key of the single resource retrieval.
+     *
+     * @param type       the type of the resource
+     * @param identifier the unique identifier of the resource in its compact form
+     * @param parameters the optional resource parameters
+     * @param locale     the optional language of the resource
+     * @return the newly created key
+     * @throws IllegalArgumentException if any of the parameter names is {@code null}
+     */
+    public static ResourceKey of( @Nonnull Class<?> type,
+                                  @Nonnull CompactIdentifier identifier,
+                                  @Nullable Map<String, Object> parameters,
+                                  @Nullable Locale locale )
+    {
+        checkNotNull( type, "Resource type" );
+        checkNotNull( identifier, "Identifier" );
+        return new ResourceKey( type, identifier.key(), identifier.segments(), sorted( parameters ), locale );
+    }
+
+    /**
+     * Creates the key of the list retrieval.
+     *
+     * @param type       the type of the resource within list
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the optional language of the resources
+     * @return the newly created key
+     * @throws IllegalArgumentException if any of the parameter names is {@code null}
+     */
+    public static ResourceKey ofList( @Nonnull Class<?> type,
+                                      @Nullable Map<String, Object> parameters,
+                                      @Nullable Locale locale )
+    {
+        checkNotNull( type, "Resource type" );
+        return new ResourceKey( type, null, Collections.emptyList(), sorted( parameters ), locale );
+    }
+
+    private static void checkNotNull( Object value, String name )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( name + " cannot be null!" );
+        }
+    }
+
+    private static SortedMap<String, Object> sorted( Map<String, Object> parameters )
+    {
+        if ( parameters == null || parameters.isEmpty() )
+        {
+            return Collections.emptySortedMap();
+        }
+        for ( String name : parameters.keySet() )
+        {
+            if ( name == null )
+            {
+                throw new IllegalArgumentException( "Parameter name cannot be null: " + parameters );
+            }
+        }
+        return Collections.unmodifiableSortedMap( new TreeMap<>( parameters ) );
+    }
+
+    private static void escape( StringBuilder builder, String value )
+    {
+        for ( int index = 0; index < value.length(); index++ )
+        {
+            char c = value.charAt( index );
+            if ( c == '%' || c == '|' || c == '&' || c == '=' || c == ':' )
+            {
+                builder.append( '%' )
+                        .append( Character.forDigit( c >> 4, 16 ) )
+                        .append( Character.forDigit( c & 15, 16 ) );
+            }
+            else
+            {
+                builder.append( c );
+            }
+        }
+    }
+
+    /**
+     * Returns the type of the resource.
+     *
+     * @return the resource type
+     */
+    public Class<?> getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the identifier key of the resource, see {@link Identifier#key()}.
+     *
+     * @return the identifier key or {@code null} for the list retrieval key
+     */
+    public String getIdentifier()
+    {
+        return identifier;
+    }
+
+    /**
+     * Returns the segments of the identifier chain, see {@link Identifier#segments()}.
+     *
+     * @return the unmodifiable list of segments, empty for the list retrieval key
+     */
+    public List<String> getSegments()
+    {
+        return segments;
+    }
+
+    /**
+     * Returns the unmodifiable resource parameters sorted by its name.
+     *
+     * @return the parameters, empty map if none
+     */
+    public Map<String, Object> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Returns the language of the resource.
+     *
+     * @return the locale or {@code null} if none
+     */
+    public Locale getLocale()
+    {
+        return locale;
+    }
+
+    /**
+     * Returns a boolean identification whether this is the key of the list retrieval.
+     *
+     * @return true if list retrieval key
+     */
+    public boolean isList()
+    {
+        return identifier == null;
+    }
+
+    /**
+     * Returns the canonical string form of the key, the same for equal keys on every node.
+     * Format: {@code type|segment:segment|name=value&name=value|languageTag}, where the identifier segments
+     * are empty for the list retrieval key and reserved characters are percent encoded, including the ':'
+     * separating the controller from the value within the segment. Thus the descendants of an identifier
+     * share its key prefix followed by the ':' separator.
+     *
+     * @return the canonical string
+     */
+    public String asString()
+    {
+        String result = canonical;
+        if ( result == null )
+        {
+            StringBuilder builder = new StringBuilder( 64 );
+            builder.append( type.getName() ).append( '|' );
+            for ( int index = 0; index < segments.size(); index++ )
+            {
+                if ( index > 0 )
+                {
+                    builder.append( ':' );
+                }
+                escape( builder, segments.get( index ) );
+            }
+            builder.append( '|' );
+
+            boolean first = true;
+            for ( Map.Entry<String, Object> entry : parameters.entrySet() )
+            {
+                if ( !first )
+                {
+                    builder.append( '&' );
+                }
+                first = false;
+                escape( builder, entry.getKey() );
+                builder.append( '=' );
+                escape( builder, String.valueOf( entry.getValue() ) );
+            }
+
+            builder.append( '|' );
+            if ( locale != null )
+            {
+                builder.append( locale.toLanguageTag() );
+            }
+            result = builder.toString();
+            canonical = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( !( o instanceof ResourceKey ) ) return false;
+        ResourceKey that = ( ResourceKey ) o;
+        return hash == that.hash &&
+                type.equals( that.type ) &&
+                segments.equals( that.segments ) &&
+                parameters.equals( that.parameters ) &&
+                Objects.equals( locale, that.locale );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ResourceKey{" + asString() + '}';
+    }
+}
@@ -89,6 +89,29 @@ public interface RestFacade
      */
     <T> SingleRetrievalIdentification<T> get( @Nonnull Class<T> resource );
 
+    /**
+     * Retrieve multiple resource instances of requested type and identifiers.
+     * <p>
+     * The default implementation executes a {@link #get(Class)} call for each identifier,
+     * concurrently with bounded parallelism, see {@link MultiRetrievalRequest#parallelism(int)}.
+     * Once the underlying API supports batch retrieval
+     * (see {@link org.ctoolkit.restapi.client.adaptee.BatchGetExecutorAdaptee}) the implementation
+     * overrides this method to return {@link MultiRetrievalIdentification#batched}
+     * for the resource type the adaptee has been bound to.
+     * <p>
+     * A resource not found is missing in the result map,
+     * see {@link MultiRetrievalRequest#requireAll()} to fail the request instead.
+     *
+     * @param resource the type of resources to get
+     * @return the fluent action, consequent call will return the map of found resource instances
+     * keyed by its identifier
+     * @throws HttpFailureException a runtime exception wrapping all REST (status code) related exceptions
+     */
+    default <T> MultiRetrievalIdentification<T> getAll( @Nonnull Class<T> resource )
+    {
+        return identifiers -> new FanOutMultiRetrievalRequest<>( this, resource, identifiers );
+    }
+
     /**
      * Find the list of resource instance of given type and filtering criteria.
      * <p>
@@ -165,6 +188,21 @@ public interface RestFacade
      */
     <T> DeleteIdentification<T> delete( @Nonnull Class<T> resource );
 
+    /**
+     * Creates a batch of insert, update or delete operations to be executed at once.
+     * <p>
+     * The default implementation executes each operation by its own remote call,
+     * concurrently with bounded parallelism, see {@link BatchRequest#parallelism(int)}.
+     * Once the adaptee of any resource type implements {@link org.ctoolkit.restapi.client.adaptee.BatchExecutorAdaptee}
+     * the implementation overrides this method to return {@link BatchRequest#batched}.
+     *
+     * @return the fluent action to add operations to the batch
+     */
+    default BatchRequest batch()
+    {
+        return new FanOutBatchRequest( this );
+    }
+
     /**
      * Get already initialized underlying API specific client instance to work with.
      *
@@ -192,6 +230,10 @@ public interface RestFacade
      * ie. act on behalf of an identity, via domain-wide delegation of authority (for example G-Suite).
      * An administrator of a target domain must configure service account's Client ID
      * to allow access to desired domain.
+     * <p>
+     * Note: the impersonation is a per thread state. For the remote calls executed on short-lived
+     * (virtual) threads prefer {@link RequestContext}, which is bound to the scope of an action only
+     * and takes precedence over this configuration.
      *
      * @param scopes    the scopes for use with API
      * @param userEmail the email address of the user to impersonate
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The list retrieval that fetches disjoint ranges (shards) of the list concurrently,
+ * by {@link ListRetrievalRequest#finish(int, int)} with bounded parallelism.
+ * Each shard is retrieved by its own request instance, taken from the given supplier,
+ * as the request instance is not expected to be used concurrently.
+ * <pre>
+ * {@code
+ * Stream<Order> orders = new ShardedListRetrieval<>( () -> facade.list( Order.class ).add( "status", "closed" ) )
+ *         .total( 2_000_000 )
+ *         .shardSize( 500 )
+ *         .parallelism( 8 )
+ *         .executeOn( executor )
+ *         .stream( false );
+ * }
+ * </pre>
+ * If the total number of resources is unknown or just estimated, the shards are being fetched
+ * until the first shard shorter than the shard size.
+ *
+ * @param <T> the list item resource type
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ShardedListRetrieval<T>
+{
+    private final Supplier<? extends ListRetrievalRequest<T>> requests;
+
+    private long total = -1;
+
+    private int shardSize = ListRetrievalRequest.DEFAULT_PAGE_SIZE;
+
+    private int parallelism = 4;
+
+    private Executor executor = RequestExecutors.defaultExecutor();
+
+    /**
+     * Constructor.
+     *
+     * @param requests the supplier of the configured list requests, a new request for each shard
+     */
+    public ShardedListRetrieval( @Nonnull Supplier<? extends ListRetrievalRequest<T>> requests )
+    {
+        if ( requests == null )
+        {
+            throw new NullPointerException( "Requests supplier cannot be null!" );
+        }
+        this.requests = requests;
+    }
+
+    /**
+     * Set the total (or estimated) number of resources in the list.
+     * Shards beyond the total are fetched one by one only if the list turns out to be longer.
+     *
+     * @param total the total number of resources
+     * @return this instance to chain calls
+     * @throws IllegalArgumentException thrown for negative number
+     */
+    public ShardedListRetrieval<T> total( long total )
+    {
+        if ( total < 0 )
+        {
+            throw new IllegalArgumentException( "Total must not be negative: " + total );
+        }
+        this.total = total;
+        return this;
+    }
+
+    /**
+     * Set the number of resources retrieved by a single remote call.
+     *
+     * @param shardSize the shard size
+     * @return this instance to chain calls
+     * @throws IllegalArgumentException thrown for zero or negative number
+     */
+    public ShardedListRetrieval<T> shardSize( int shardSize )
+    {
+        if ( shardSize < 1 )
+        {
+            throw new IllegalArgumentException( "Shard size must be positive: " + shardSize );
+        }
+        this.shardSize = shardSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of the remote calls being executed concurrently.
+     *
+     * @param parallelism the maximum number of concurrent remote calls
+     * @return this instance to chain calls
+     * @throws IllegalArgumentException thrown for zero or negative number
+     */
+    public ShardedListRetrieval<T> parallelism( int parallelism )
+    {
+        if ( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "Parallelism must be positive: " + parallelism );
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the executor to run the concurrent remote calls on.
+     *
+     * @param executor the executor to run the remote calls on
+     * @return this instance to chain calls
+     */
+    public ShardedListRetrieval<T> executeOn( @Nonnull Executor executor )
+    {
+        if ( executor == null )
+        {
+            throw new NullPointerException( "Executor cannot be null!" );
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Retrieves all resources, in order of the list.
+     *
+     * @return the list of all resources
+     */
+    public List<T> finish()
+    {
+        List<T> result = new ArrayList<>();
+        new OrderedIterator().forEachRemaining( result::add );
+        return result;
+    }
+
+    /**
+     * Returns the sequential stream of all resources, retrieved lazily as being consumed.
+     * At most {@code parallelism} shards are in flight or buffered at a time.
+     * Closing the stream stops the retrieval.
+     *
+     * @param ordered true to emit resources in order of the list,
+     *                false to emit shards as they arrive for maximum throughput
+     * @return the stream of all resources
+     */
+    public Stream<T> stream( boolean ordered )
+    {
+        ShardIterator iterator = ordered ? new OrderedIterator() : new UnorderedIterator();
+        int characteristics = Spliterator.NONNULL | ( ordered ? Spliterator.ORDERED : 0 );
+
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator, characteristics ), false )
+                .onClose( iterator::close );
+    }
+
+    private abstract class ShardIterator
+            implements Iterator<T>, AutoCloseable
+    {
+        final Executor propagating = RequestContext.propagating( executor );
+
+        Iterator<T> shard = Collections.emptyIterator();
+
+        int next;
+
+        boolean ended;
+
+        volatile boolean closed;
+
+        boolean canSchedule( int inFlight )
+        {
+            if ( ended || closed )
+            {
+                return false;
+            }
+            // beyond the total (estimate) probe the rest of the list shard by shard
+            return total < 0 || ( long ) next * shardSize < total || inFlight == 0;
+        }
+
+        CompletableFuture<List<T>> fetch()
+        {
+            int offset = next * shardSize;
+            next++;
+
+            return CompletableFuture.supplyAsync( () -> {
+                if ( closed )
+                {
+                    return Collections.<T>emptyList();
+                }
+                List<T> list = requests.get().finish( offset, shardSize );
+                return list == null ? Collections.<T>emptyList() : list;
+            }, propagating );
+        }
+
+        @Override
+        public T next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            return shard.next();
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private class OrderedIterator
+            extends ShardIterator
+    {
+        private final Deque<CompletableFuture<List<T>>> inFlight = new ArrayDeque<>();
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( !shard.hasNext() )
+            {
+                while ( inFlight.size() < parallelism && canSchedule( inFlight.size() ) )
+                {
+                    inFlight.addLast( fetch() );
+                }
+
+                CompletableFuture<List<T>> future = inFlight.pollFirst();
+                if ( future == null )
+                {
+                    return false;
+                }
+
+                List<T> list = FanOut.join( future );
+                if ( list.size() < shardSize )
+                {
+                    // the rest of the shards are empty
+                    ended = true;
+                    close();
+                    inFlight.clear();
+                }
+                shard = list.iterator();
+            }
+            return true;
+        }
+    }
+
+    private class UnorderedIterator
+            extends ShardIterator
+    {
+        private final BlockingQueue<CompletableFuture<List<T>>> completed = new LinkedBlockingQueue<>();
+
+        private int inFlight;
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( !shard.hasNext() )
+            {
+                while ( inFlight < parallelism && canSchedule( inFlight ) )
+                {
+                    CompletableFuture<List<T>> future = fetch();
+                    future.whenComplete( ( list, e ) -> completed.add( future ) );
+                    inFlight++;
+                }
+
+                if ( inFlight == 0 )
+                {
+                    return false;
+                }
+
+                CompletableFuture<List<T>> future;
+                try
+                {
+                    future = completed.take();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException( "Interrupted while waiting for the shard", e );
+                }
+                inFlight--;
+
+                List<T> list = FanOut.join( future );
+                if ( list.size() < shardSize )
+                {
+                    // all shards preceding this one have been already scheduled, do not schedule next
+                    ended = true;
+                }
+                shard = list.iterator();
+            }
+            return true;
+        }
+    }
+}
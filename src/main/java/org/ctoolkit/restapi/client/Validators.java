@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * The immutable validators of the resource representation, the entity tag and the last modified date,
+ * as returned by the remote server via {@code ETag} and {@code Last-Modified} headers.
+ * Sent back by the conditional request ({@code If-None-Match} and {@code If-Modified-Since})
+ * to revalidate the cached resource without transferring the unchanged payload.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class Validators
+{
+    private final String eTag;
+
+    private final Long lastModified;
+
+    private Validators( String eTag, Long lastModified )
+    {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Creates the validators.
+     *
+     * @param eTag         the entity tag including the quotes and the optional weak prefix
+     * @param lastModified the last modified date
+     * @return the validators, or {@code null} if both are {@code null}
+     */
+    public static Validators of( @Nullable String eTag, @Nullable Date lastModified )
+    {
+        if ( eTag == null && lastModified == null )
+        {
+            return null;
+        }
+        return new Validators( eTag, lastModified == null ? null : lastModified.getTime() );
+    }
+
+    /**
+     * Returns the entity tag to be sent as {@code If-None-Match} header.
+     *
+     * @return the entity tag or {@code null} if none
+     */
+    public String getETag()
+    {
+        return eTag;
+    }
+
+    /**
+     * Returns the last modified date to be sent as {@code If-Modified-Since} header.
+     *
+     * @return the last modified date or {@code null} if none
+     */
+    public Date getLastModified()
+    {
+        return lastModified == null ? null : new Date( lastModified );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o ) return true;
+        if ( !( o instanceof Validators ) ) return false;
+        Validators that = ( Validators ) o;
+        return Objects.equals( eTag, that.eTag ) && Objects.equals( lastModified, that.lastModified );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( eTag, lastModified );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Validators{" +
+                "eTag='" + eTag + '\'' +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.BatchResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The optional adaptee interface to provide execution implementation of the multiple insert, update
+ * or delete operations of the concrete model type within a single remote call (for example multipart batch).
+ * Once missing for the model type, the operations are executed one by one
+ * by {@link InsertExecutorAdaptee}, {@link UpdateExecutorAdaptee} and {@link DeleteExecutorAdaptee}.
+ *
+ * @param <M> the concrete type of the model object to work with
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface BatchExecutorAdaptee<M>
+{
+    /**
+     * Prepare request instance as a proxy object to execute a remote call for the batch of operations.
+     *
+     * @param operations the operations to be executed, never more than {@link #getMaxBatchSize()} items
+     * @return the new request instance
+     * @throws IOException may be thrown during request initialization
+     */
+    Object prepareBatch( @Nonnull List<BatchOperation<M>> operations )
+            throws IOException;
+
+    /**
+     * Provide execute implementation for the batch of operations.
+     * A failure of a single operation must not fail the whole batch,
+     * it's expected to be reported as {@link BatchResult#failure(org.ctoolkit.restapi.client.HttpFailureException)}.
+     *
+     * @param request    the concrete request instance, see {@link #prepareBatch(List)}
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to be associated with the resources
+     * @return the list of results in the same order as the operations
+     * @throws IOException might be thrown if the remote call of the whole batch has failed
+     */
+    List<BatchResult<Object>> executeBatch( @Nonnull Object request,
+                                            @Nullable Map<String, Object> parameters,
+                                            @Nullable Locale locale )
+            throws IOException;
+
+    /**
+     * Returns the maximum number of operations the underlying API accepts within a single remote call.
+     * Larger batches will be split.
+     *
+     * @return the maximum batch size
+     */
+    default int getMaxBatchSize()
+    {
+        return 100;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The optional extension of the {@link GetExecutorAdaptee} to be implemented once the underlying API
+ * supports retrieval of multiple resources by a single remote call.
+ * See {@link org.ctoolkit.restapi.client.RestFacade#getAll(Class)}
+ * and {@link org.ctoolkit.restapi.client.MultiRetrievalIdentification#batched}.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface BatchGetExecutorAdaptee<M>
+        extends GetExecutorAdaptee<M>
+{
+    /**
+     * Prepare request instance as a proxy object to execute a remote call for batch GET operation.
+     *
+     * @param identifiers the unique (root) identifiers of the resources,
+     *                    never more than {@link #getMaxBatchSize()} items
+     * @return the new request instance
+     * @throws IOException may be thrown during request initialization
+     */
+    Object prepareBatchGet( @Nonnull Collection<Identifier> identifiers )
+            throws IOException;
+
+    /**
+     * Provide execute implementation of the batch get operation.
+     *
+     * @param request    the concrete request instance, see {@link #prepareBatchGet(Collection)}
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to prefer in results if applicable
+     * @return the map of found resources keyed by its identifier, an identifier not found is simply missing
+     * @throws IOException might be thrown during remote call execution
+     */
+    Map<Identifier, M> executeBatchGet( @Nonnull Object request,
+                                        @Nullable Map<String, Object> parameters,
+                                        @Nullable Locale locale )
+            throws IOException;
+
+    /**
+     * Returns the maximum number of identifiers the underlying API accepts within a single remote call.
+     * Larger collections will be split into several batches.
+     *
+     * @return the maximum batch size
+     */
+    default int getMaxBatchSize()
+    {
+        return 100;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The loader of multiple resources by a single remote call, used by {@link BatchingGetExecutorAdaptee}.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+@FunctionalInterface
+public interface BatchLoader<M>
+{
+    /**
+     * Creates the loader backed by the batch get adaptee. The identifiers exceeding
+     * {@link BatchGetExecutorAdaptee#getMaxBatchSize()} are loaded by several remote calls.
+     *
+     * @param adaptee the batch get adaptee
+     * @return the newly created loader
+     */
+    static <M> BatchLoader<M> of( @Nonnull BatchGetExecutorAdaptee<M> adaptee )
+    {
+        return ( identifiers, parameters, locale ) -> {
+            int batchSize = Math.max( 1, adaptee.getMaxBatchSize() );
+            if ( identifiers.size() <= batchSize )
+            {
+                return adaptee.executeBatchGet( adaptee.prepareBatchGet( identifiers ), parameters, locale );
+            }
+
+            // larger collection is split into several remote calls, each one within the maximum batch size
+            List<Identifier> all = new ArrayList<>( identifiers );
+            Map<Identifier, M> result = new HashMap<>();
+            for ( int from = 0; from < all.size(); from += batchSize )
+            {
+                List<Identifier> batch = all.subList( from, Math.min( from + batchSize, all.size() ) );
+                Object request = adaptee.prepareBatchGet( batch );
+                Map<Identifier, M> loaded = adaptee.executeBatchGet( request, parameters, locale );
+                if ( loaded != null )
+                {
+                    result.putAll( loaded );
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Creates the loader backed by the list adaptee with identifiers passed as a filtering criteria.
+     * The filter value is the list of the identifier keys, see {@link Identifier#key()},
+     * thus it fits well the root (single value) identifiers.
+     *
+     * @param adaptee  the list adaptee
+     * @param filter   the name of the list parameter to filter resources by its identifiers
+     * @param identity the function to get the identifier of the retrieved resource
+     * @return the newly created loader
+     */
+    static <M> BatchLoader<M> ofList( @Nonnull ListExecutorAdaptee<M> adaptee,
+                                      @Nonnull String filter,
+                                      @Nonnull Function<M, Identifier> identity )
+    {
+        return ( identifiers, parameters, locale ) -> {
+            List<String> keys = new ArrayList<>( identifiers.size() );
+            for ( Identifier next : identifiers )
+            {
+                keys.add( next.key() );
+            }
+
+            Map<String, Object> criteria = parameters == null ? new HashMap<>() : new HashMap<>( parameters );
+            criteria.put( filter, keys );
+
+            Object request = adaptee.prepareList( null );
+            List<M> list = adaptee.executeList( request, criteria, locale, 0, identifiers.size(), null, null );
+
+            Map<Identifier, M> result = new HashMap<>();
+            if ( list != null )
+            {
+                for ( M next : list )
+                {
+                    result.put( identity.apply( next ), next );
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Loads the resources of given identifiers.
+     *
+     * @param identifiers the unique identifiers of the resources
+     * @param parameters  the optional map of parameters, configuration, and credential
+     * @param locale      the optional language the client has configured to prefer in results if applicable
+     * @return the map of found resources keyed by its identifier, an identifier not found is simply missing
+     * @throws IOException might be thrown during remote call execution
+     */
+    Map<Identifier, M> load( @Nonnull Collection<Identifier> identifiers,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale )
+            throws IOException;
+}
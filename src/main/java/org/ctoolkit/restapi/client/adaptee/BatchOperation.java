@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The single operation (insert, update or delete) to be executed as a part of the batch.
+ * See {@link BatchExecutorAdaptee}.
+ *
+ * @param <M> the concrete type of the model object
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class BatchOperation<M>
+{
+    private final Type type;
+
+    private final M resource;
+
+    private final Identifier identifier;
+
+    private BatchOperation( Type type, M resource, Identifier identifier )
+    {
+        this.type = type;
+        this.resource = resource;
+        this.identifier = identifier;
+    }
+
+    /**
+     * Creates an insert operation.
+     *
+     * @param resource the resource instance to be inserted
+     * @param parent   the unique (root) identifier of the parent resource as an owner of the given resource
+     * @return the newly created operation
+     */
+    public static <M> BatchOperation<M> insert( @Nonnull M resource, @Nullable Identifier parent )
+    {
+        checkNotNull( resource, "Resource" );
+        return new BatchOperation<>( Type.INSERT, resource, parent );
+    }
+
+    /**
+     * Creates an update operation.
+     *
+     * @param resource   the resource instance to be updated
+     * @param identifier the unique (root) identifier of the resource
+     * @return the newly created operation
+     */
+    public static <M> BatchOperation<M> update( @Nonnull M resource, @Nonnull Identifier identifier )
+    {
+        checkNotNull( resource, "Resource" );
+        checkNotNull( identifier, "Identifier" );
+        return new BatchOperation<>( Type.UPDATE, resource, identifier );
+    }
+
+    /**
+     * Creates a delete operation.
+     *
+     * @param identifier the unique (root) identifier of the resource to be deleted
+     * @return the newly created operation
+     */
+    public static <M> BatchOperation<M> delete( @Nonnull Identifier identifier )
+    {
+        checkNotNull( identifier, "Identifier" );
+        return new BatchOperation<>( Type.DELETE, null, identifier );
+    }
+
+    private static void checkNotNull( Object value, String name )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( name + " cannot be null!" );
+        }
+    }
+
+    /**
+     * Returns the type of the operation.
+     *
+     * @return the operation type
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the resource to be inserted or updated.
+     *
+     * @return the resource or {@code null} for delete operation
+     */
+    public M getResource()
+    {
+        return resource;
+    }
+
+    /**
+     * Returns the identifier of the resource to be updated or deleted,
+     * or the parent identifier of the resource to be inserted.
+     *
+     * @return the identifier, might be {@code null} for insert operation
+     */
+    public Identifier getIdentifier()
+    {
+        return identifier;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchOperation{" +
+                "type=" + type +
+                ", resource=" + resource +
+                ", identifier=" + identifier +
+                '}';
+    }
+
+    public enum Type
+    {
+        INSERT,
+
+        UPDATE,
+
+        DELETE
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.RequestContext;
+import org.ctoolkit.restapi.client.RequestExecutors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The opt-in {@link GetExecutorAdaptee} decorator that merges separate GET remote calls, executed within
+ * a short time window, into a single batched remote call by {@link BatchLoader}.
+ * Each caller still receives its own resource, or {@link NotFoundException} if the resource
+ * has not been returned by the batch.
+ * <p>
+ * The window starts by the first call and ends after configured number of milliseconds
+ * or once the maximum batch size has been reached. Calls with different parameters, locale
+ * or {@link RequestContext} are never merged together. The scheduler only closes the batches,
+ * the batched remote calls are executed on the given executor within the request context of the batch.
+ * Once the batch can't be scheduled or executed (for example after shutdown), its callers fail
+ * by {@link RejectedExecutionException}.
+ * <p>
+ * To opt in, bind the decorated adaptee in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<GetExecutorAdaptee<MyResource>>(){} )
+ *      .toInstance( new BatchingGetExecutorAdaptee<>( adaptee, BatchLoader.of( adaptee ), 5, 100, scheduler ) );
+ * }</pre>
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class BatchingGetExecutorAdaptee<M>
+        implements GetExecutorAdaptee<M>
+{
+    private final Map<BatchKey, Batch<M>> pending = new HashMap<>();
+
+    private final GetExecutorAdaptee<M> delegate;
+
+    private final BatchLoader<M> loader;
+
+    private final long window;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Executor executor;
+
+    private final RequestIdentifiers identifiers = new RequestIdentifiers();
+
+    /**
+     * Constructor, the batched remote calls are executed on {@link RequestExecutors#defaultExecutor()}.
+     *
+     * @param delegate     the adaptee to prepare single requests and to execute the calls not being batched
+     * @param loader       the loader to execute the batched remote call
+     * @param window       the time window in milliseconds to collect the calls, zero to close the batch
+     *                     as soon as the scheduler gets to it
+     * @param maxBatchSize the maximum number of identifiers within single batch
+     * @param scheduler    the scheduler to close the batches
+     */
+    public BatchingGetExecutorAdaptee( @Nonnull GetExecutorAdaptee<M> delegate,
+                                       @Nonnull BatchLoader<M> loader,
+                                       long window,
+                                       int maxBatchSize,
+                                       @Nonnull ScheduledExecutorService scheduler )
+    {
+        this( delegate, loader, window, maxBatchSize, scheduler, RequestExecutors.defaultExecutor() );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param delegate     the adaptee to prepare single requests and to execute the calls not being batched
+     * @param loader       the loader to execute the batched remote call
+     * @param window       the time window in milliseconds to collect the calls, zero to close the batch
+     *                     as soon as the scheduler gets to it
+     * @param maxBatchSize the maximum number of identifiers within single batch
+     * @param scheduler    the scheduler to close the batches
+     * @param executor     the executor to execute the batched remote calls on
+     */
+    public BatchingGetExecutorAdaptee( @Nonnull GetExecutorAdaptee<M> delegate,
+                                       @Nonnull BatchLoader<M> loader,
+                                       long window,
+                                       int maxBatchSize,
+                                       @Nonnull ScheduledExecutorService scheduler,
+                                       @Nonnull Executor executor )
+    {
+        if ( window < 0 )
+        {
+            throw new IllegalArgumentException( "Window must not be negative: " + window );
+        }
+        if ( maxBatchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Max batch size must be positive: " + maxBatchSize );
+        }
+        this.delegate = delegate;
+        this.loader = loader;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    @Override
+    public Object prepareGet( @Nonnull Identifier identifier )
+            throws IOException
+    {
+        return identifiers.register( delegate.prepareGet( identifier ), identifier );
+    }
+
+    @Override
+    public M executeGet( @Nonnull Object request,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        if ( identifier == null )
+        {
+            return delegate.executeGet( request, parameters, locale );
+        }
+
+        RequestContext context = RequestContext.current();
+        BatchKey key = new BatchKey( parameters, locale, context );
+        CompletableFuture<M> future;
+        Batch<M> full = null;
+
+        synchronized ( pending )
+        {
+            Batch<M> batch = pending.get( key );
+            if ( batch == null )
+            {
+                batch = new Batch<>( parameters, locale, context );
+
+                // once rejected, the batch is not pending yet, thus no caller is left waiting for it
+                Batch<M> scheduled = batch;
+                scheduler.schedule( () -> close( key, scheduled ), window, TimeUnit.MILLISECONDS );
+                pending.put( key, batch );
+            }
+
+            future = batch.add( identifier );
+            if ( batch.size() >= maxBatchSize )
+            {
+                pending.remove( key );
+                full = batch;
+            }
+        }
+
+        if ( full != null )
+        {
+            dispatch( full );
+        }
+        return Futures.await( future );
+    }
+
+    private void close( BatchKey key, Batch<M> batch )
+    {
+        synchronized ( pending )
+        {
+            // might have been already dispatched once full
+            if ( !pending.remove( key, batch ) )
+            {
+                return;
+            }
+        }
+        dispatch( batch );
+    }
+
+    private void dispatch( Batch<M> batch )
+    {
+        Runnable load = batch.context == null ? () -> load( batch ) : () -> batch.context.run( () -> load( batch ) );
+        try
+        {
+            executor.execute( load );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            for ( CompletableFuture<M> next : batch.callers.values() )
+            {
+                next.completeExceptionally( e );
+            }
+        }
+    }
+
+    private void load( Batch<M> batch )
+    {
+        Map<Identifier, CompletableFuture<M>> callers = batch.callers;
+        try
+        {
+            Map<Identifier, M> loaded = loader.load( callers.keySet(), batch.parameters, batch.locale );
+            for ( Map.Entry<Identifier, CompletableFuture<M>> entry : callers.entrySet() )
+            {
+                M instance = loaded == null ? null : loaded.get( entry.getKey() );
+                if ( instance == null )
+                {
+                    entry.getValue().completeExceptionally( new NotFoundException( entry.getKey().toString() ) );
+                }
+                else
+                {
+                    entry.getValue().complete( instance );
+                }
+            }
+        }
+        catch ( IOException | RuntimeException | Error e )
+        {
+            for ( CompletableFuture<M> next : callers.values() )
+            {
+                next.completeExceptionally( e );
+            }
+        }
+    }
+
+    private static class Batch<M>
+    {
+        private final Map<Identifier, CompletableFuture<M>> callers = new LinkedHashMap<>();
+
+        private final Map<String, Object> parameters;
+
+        private final Locale locale;
+
+        private final RequestContext context;
+
+        Batch( Map<String, Object> parameters, Locale locale, RequestContext context )
+        {
+            this.parameters = parameters == null ? null : Collections.unmodifiableMap( new HashMap<>( parameters ) );
+            this.locale = locale;
+            this.context = context;
+        }
+
+        CompletableFuture<M> add( Identifier identifier )
+        {
+            return callers.computeIfAbsent( identifier, key -> new CompletableFuture<>() );
+        }
+
+        int size()
+        {
+            return callers.size();
+        }
+    }
+
+    private static class BatchKey
+    {
+        private final Map<String, Object> parameters;
+
+        private final Locale locale;
+
+        private final RequestContext context;
+
+        BatchKey( Map<String, Object> parameters, Locale locale, RequestContext context )
+        {
+            this.parameters = parameters == null ? Collections.emptyMap() : new HashMap<>( parameters );
+            this.locale = locale;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o ) return true;
+            if ( !( o instanceof BatchKey ) ) return false;
+            BatchKey that = ( BatchKey ) o;
+            return parameters.equals( that.parameters )
+                    && Objects.equals( locale, that.locale )
+                    && Objects.equals( context, that.context );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( parameters, locale, context );
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.RequestContext;
+import org.ctoolkit.restapi.client.ResourceKey;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The opt-in {@link GetExecutorAdaptee} decorator that coalesces concurrent identical GET remote calls.
+ * While a remote call for the same resource type, identifier, parameters, locale
+ * and {@link RequestContext} is in flight, subsequent callers wait for its result instead of executing another one.
+ * The calls within different request contexts (for example impersonating different users) are never coalesced,
+ * the contexts are compared by value. The calls made with no request context bound are not coalesced
+ * unless enabled by {@link #coalesceWithoutContext()}.
+ * <p>
+ * To opt in, bind the decorated adaptee in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<GetExecutorAdaptee<MyResource>>(){} )
+ *      .toInstance( new CoalescingGetExecutorAdaptee<>( MyResource.class, new MyResourceAdaptee() ) );
+ * }</pre>
+ * Note: all coalesced callers receive the very same resource instance. The per thread impersonation
+ * (see {@link org.ctoolkit.restapi.client.RestFacade#impersonate(String, String)}) is not visible to the decorator,
+ * use {@link RequestContext} instead once the calls are being made on behalf of different users.
+ * Enable the coalescing without context only if the per thread impersonation is not being used at all.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class CoalescingGetExecutorAdaptee<M>
+        implements GetExecutorAdaptee<M>
+{
+    private final SingleFlight<FlightKey, M> flight = new SingleFlight<>();
+
+    private final RequestIdentifiers identifiers = new RequestIdentifiers();
+
+    private final Class<M> type;
+
+    private final GetExecutorAdaptee<M> delegate;
+
+    private volatile boolean withoutContext;
+
+    public CoalescingGetExecutorAdaptee( @Nonnull Class<M> type, @Nonnull GetExecutorAdaptee<M> delegate )
+    {
+        this.type = type;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Enables the coalescing of the calls made with no {@link RequestContext} bound.
+     *
+     * @return this adaptee to chain calls
+     */
+    public CoalescingGetExecutorAdaptee<M> coalesceWithoutContext()
+    {
+        this.withoutContext = true;
+        return this;
+    }
+
+    @Override
+    public Object prepareGet( @Nonnull Identifier identifier )
+            throws IOException
+    {
+        return identifiers.register( delegate.prepareGet( identifier ), identifier );
+    }
+
+    @Override
+    public M executeGet( @Nonnull Object request,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        RequestContext context = RequestContext.current();
+        if ( identifier == null || ( context == null && !withoutContext ) )
+        {
+            return delegate.executeGet( request, parameters, locale );
+        }
+
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        return flight.execute( new FlightKey( key, context ),
+                () -> delegate.executeGet( request, parameters, locale ) );
+    }
+
+    /**
+     * The resource key along with the request context.
+     */
+    private static class FlightKey
+    {
+        private final ResourceKey key;
+
+        private final RequestContext context;
+
+        FlightKey( ResourceKey key, RequestContext context )
+        {
+            this.key = key;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o ) return true;
+            if ( !( o instanceof FlightKey ) ) return false;
+            FlightKey that = ( FlightKey ) o;
+            return key.equals( that.key ) && Objects.equals( context, that.context );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( key, context );
+        }
+    }
+}
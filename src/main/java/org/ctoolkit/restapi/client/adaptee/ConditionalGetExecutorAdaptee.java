@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.Validators;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The optional extension of the {@link GetExecutorAdaptee} to be implemented once the underlying API
+ * supports the conditional requests, thus the cached resource can be revalidated
+ * without transferring the unchanged payload.
+ * See {@link org.ctoolkit.restapi.client.cache.ResourceLoader#conditional(ConditionalGetExecutorAdaptee)}.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface ConditionalGetExecutorAdaptee<M>
+        extends GetExecutorAdaptee<M>
+{
+    /**
+     * Provide execute implementation of the conditional get operation. The validators are expected
+     * to be sent as {@code If-None-Match} and {@code If-Modified-Since} headers.
+     *
+     * @param request    the concrete request instance, see {@link #prepareGet(Identifier)}
+     * @param validators the validators of the cached resource, {@code null} for unconditional request
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to prefer in results if applicable
+     * @return the modified resource along with its validators or the not modified signal,
+     * never the not modified signal for unconditional request
+     * @throws IOException might be thrown during remote call execution
+     */
+    ConditionalResult<M> executeConditionalGet( @Nonnull Object request,
+                                                @Nullable Validators validators,
+                                                @Nullable Map<String, Object> parameters,
+                                                @Nullable Locale locale )
+            throws IOException;
+}
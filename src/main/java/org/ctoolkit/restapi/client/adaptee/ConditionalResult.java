@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Validators;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The result of the conditional GET operation, either the modified resource
+ * or the signal the cached resource has not been modified (HTTP 304), along with the current validators.
+ *
+ * @param <M> the concrete type of the model object retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class ConditionalResult<M>
+{
+    private final M value;
+
+    private final Validators validators;
+
+    private ConditionalResult( M value, Validators validators )
+    {
+        this.value = value;
+        this.validators = validators;
+    }
+
+    /**
+     * Creates the result of the full response.
+     *
+     * @param value      the retrieved resource
+     * @param validators the validators of the retrieved resource if any
+     * @return the new result
+     */
+    public static <M> ConditionalResult<M> modified( @Nonnull M value, @Nullable Validators validators )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( "Value cannot be null!" );
+        }
+        return new ConditionalResult<>( value, validators );
+    }
+
+    /**
+     * Creates the result of the not modified response.
+     *
+     * @param validators the validators as returned by the not modified response if any
+     * @return the new result
+     */
+    public static <M> ConditionalResult<M> notModified( @Nullable Validators validators )
+    {
+        return new ConditionalResult<>( null, validators );
+    }
+
+    /**
+     * Returns a boolean identification whether the resource has not been modified.
+     *
+     * @return true if the cached resource is still valid
+     */
+    public boolean isNotModified()
+    {
+        return value == null;
+    }
+
+    /**
+     * Returns the retrieved resource.
+     *
+     * @return the resource or {@code null} if not modified
+     */
+    public M getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the validators of the resource.
+     *
+     * @return the validators or {@code null} if none
+     */
+    public Validators getValidators()
+    {
+        return validators;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConditionalResult{" +
+                "notModified=" + isNotModified() +
+                ", validators=" + validators +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.ListPage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The optional extension of the {@link ListExecutorAdaptee} to be implemented once the underlying API
+ * supports cursor (page token) based pagination. Unlike offset, the cost of the page retrieval
+ * doesn't depend on its position within the list.
+ * See {@link org.ctoolkit.restapi.client.ListRetrievalRequest#finishPage(String, int)}.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface CursorListExecutorAdaptee<M>
+        extends ListExecutorAdaptee<M>
+{
+    /**
+     * Provide execute implementation of the list operation to retrieve a single page.
+     * Named differently from the offset based {@code executeList} to avoid ambiguous calls
+     * once {@code null} is passed as the page token.
+     *
+     * @param request    the concrete request instance, see {@link #prepareList(org.ctoolkit.restapi.client.Identifier)}
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to prefer in results if applicable
+     * @param pageToken  the opaque token of the page to retrieve, {@code null} for the first page
+     * @param limit      the optional maximum number of results (limit) to retrieve. Only positive values.
+     * @param orderBy    the resource property name used to sort the result if any
+     * @param ascending  true to sort the result ascending
+     * @return the page of resources along with the next page token (if any)
+     * @throws IOException might be thrown during remote call execution
+     */
+    ListPage<M> executeListPage( @Nonnull Object request,
+                                 @Nullable Map<String, Object> parameters,
+                                 @Nullable Locale locale,
+                                 @Nullable String pageToken,
+                                 @Nullable Integer limit,
+                                 @Nullable String orderBy,
+                                 @Nullable Boolean ascending )
+            throws IOException;
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.cache.ExistenceIndex;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The opt-in {@link GetExecutorAdaptee} decorator that consults the {@link ExistenceIndex} before the remote call.
+ * Once the resource definitely does not exist, {@link NotFoundException} is thrown without a remote call.
+ * <p>
+ * To opt in, bind the decorated adaptee in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<GetExecutorAdaptee<MyResource>>(){} )
+ *      .toInstance( new ExistenceCheckingGetExecutorAdaptee<>( new MyResourceAdaptee(), index ) );
+ * }</pre>
+ * Note: the index must be kept up to date
+ * with the newly created resources, otherwise those are not found until the next rebuild.
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ExistenceCheckingGetExecutorAdaptee<M>
+        implements GetExecutorAdaptee<M>
+{
+    private final GetExecutorAdaptee<M> delegate;
+
+    private final ExistenceIndex index;
+
+    private final RequestIdentifiers identifiers = new RequestIdentifiers();
+
+    public ExistenceCheckingGetExecutorAdaptee( @Nonnull GetExecutorAdaptee<M> delegate,
+                                                @Nonnull ExistenceIndex index )
+    {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public Object prepareGet( @Nonnull Identifier identifier )
+            throws IOException
+    {
+        return identifiers.register( delegate.prepareGet( identifier ), identifier );
+    }
+
+    @Override
+    public M executeGet( @Nonnull Object request,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        if ( identifier != null && !index.mightExist( identifier ) )
+        {
+            throw new NotFoundException( "Does not exist: " + identifier.key() );
+        }
+        return delegate.executeGet( request, parameters, locale );
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.cache.NegativeCache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The opt-in {@link GetExecutorAdaptee} decorator that remembers the resources recently not found.
+ * Once the remote call has thrown {@link NotFoundException}, the subsequent GET of the same resource type
+ * and identifier throws {@link NotFoundException} without a remote call, until the time to live configured
+ * for the type in {@link NegativeCache} has elapsed.
+ * <p>
+ * To opt in, bind the decorated adaptee in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<GetExecutorAdaptee<MyResource>>(){} )
+ *      .toInstance( new NegativeCachingGetExecutorAdaptee<>( MyResource.class, new MyResourceAdaptee(), cache ) );
+ * }</pre>
+ *
+ * @param <M> the concrete type of the model object to be retrieved
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class NegativeCachingGetExecutorAdaptee<M>
+        implements GetExecutorAdaptee<M>
+{
+    private final Class<M> type;
+
+    private final GetExecutorAdaptee<M> delegate;
+
+    private final NegativeCache cache;
+
+    private final RequestIdentifiers identifiers = new RequestIdentifiers();
+
+    public NegativeCachingGetExecutorAdaptee( @Nonnull Class<M> type,
+                                              @Nonnull GetExecutorAdaptee<M> delegate,
+                                              @Nonnull NegativeCache cache )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( delegate == null )
+        {
+            throw new NullPointerException( "Delegate cannot be null!" );
+        }
+        if ( cache == null )
+        {
+            throw new NullPointerException( "Cache cannot be null!" );
+        }
+        this.type = type;
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Object prepareGet( @Nonnull Identifier identifier )
+            throws IOException
+    {
+        return identifiers.register( delegate.prepareGet( identifier ), identifier );
+    }
+
+    @Override
+    public M executeGet( @Nonnull Object request,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        if ( identifier == null )
+        {
+            return delegate.executeGet( request, parameters, locale );
+        }
+
+        if ( cache.isNotFound( type, identifier ) )
+        {
+            throw new NotFoundException( "Recently not found: " + type.getSimpleName() + " " + identifier.key() );
+        }
+
+        try
+        {
+            return delegate.executeGet( request, parameters, locale );
+        }
+        catch ( NotFoundException e )
+        {
+            cache.notFound( type, identifier );
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The identifiers of the requests prepared by the underlying adaptee, used by the adaptee decorators
+ * that need to know the identifier at the time of the remote call execution, while the request
+ * itself is being handed over to the facade untouched.
+ * <p>
+ * The requests are weakly referenced and compared by its identity. Once the same request instance
+ * has been registered with different identifiers (the underlying adaptee reuses the instance),
+ * its identifier is considered unknown.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class RequestIdentifiers
+{
+    private static final Object AMBIGUOUS = new Object();
+
+    private final Map<RequestReference, Object> identifiers = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * Registers the identifier of the given request.
+     *
+     * @param request    the request instance prepared by the underlying adaptee
+     * @param identifier the identifier the request has been prepared for
+     * @return the given request
+     */
+    Object register( @Nonnull Object request, @Nonnull Identifier identifier )
+    {
+        expunge();
+        identifiers.merge( new RequestReference( request, queue ), identifier,
+                ( previous, next ) -> previous.equals( next ) ? previous : AMBIGUOUS );
+        return request;
+    }
+
+    /**
+     * Returns the identifier the given request has been registered with.
+     *
+     * @param request the request instance
+     * @return the identifier or <code>null</code> if unknown
+     */
+    Identifier get( @Nonnull Object request )
+    {
+        Object identifier = identifiers.get( new RequestReference( request, null ) );
+        return identifier instanceof Identifier ? ( Identifier ) identifier : null;
+    }
+
+    /**
+     * Returns the number of the registered requests not being garbage collected yet.
+     *
+     * @return the number of the registered requests
+     */
+    int size()
+    {
+        expunge();
+        return identifiers.size();
+    }
+
+    private void expunge()
+    {
+        Object reference;
+        while ( ( reference = queue.poll() ) != null )
+        {
+            identifiers.remove( reference );
+        }
+    }
+
+    private static class RequestReference
+            extends WeakReference<Object>
+    {
+        private final int hash;
+
+        RequestReference( Object request, ReferenceQueue<Object> queue )
+        {
+            super( request, queue );
+            this.hash = System.identityHashCode( request );
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o ) return true;
+            if ( !( o instanceof RequestReference ) ) return false;
+            Object request = get();
+            return request != null && request == ( ( RequestReference ) o ).get();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces concurrent loads of the same key. While a load for the key is in flight,
+ * subsequent callers wait for its result instead of starting a new one.
+ * Once completed, the next call for the key starts a new load.
+ * <p>
+ * Note: all waiting callers receive the very same instance (or failure) as the caller executing the load.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the loaded value
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class SingleFlight<K, V>
+{
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the loader for the given key, unless a load for the same key is already in flight.
+     *
+     * @param key    the key of the load
+     * @param loader the loader to be executed
+     * @return the loaded value
+     * @throws IOException might be thrown by the loader
+     */
+    public V execute( @Nonnull K key, @Nonnull Loader<V> loader )
+            throws IOException
+    {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent( key, created );
+        if ( existing != null )
+        {
+            return Futures.await( existing );
+        }
+
+        try
+        {
+            V value = loader.load();
+            created.complete( value );
+            return value;
+        }
+        catch ( IOException | RuntimeException | Error e )
+        {
+            created.completeExceptionally( e );
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove( key, created );
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether a load of the given key is in flight.
+     *
+     * @param key the key of the load
+     * @return true if the load is in flight
+     */
+    public boolean isInFlight( @Nonnull K key )
+    {
+        return inFlight.containsKey( key );
+    }
+
+    /**
+     * Returns the number of loads currently in flight.
+     *
+     * @return the number of loads in flight
+     */
+    public int size()
+    {
+        return inFlight.size();
+    }
+
+    /**
+     * The loader of the value.
+     *
+     * @param <V> the type of the loaded value
+     */
+    @FunctionalInterface
+    public interface Loader<V>
+    {
+        /**
+         * Loads the value.
+         *
+         * @return the loaded value
+         * @throws IOException might be thrown during remote call execution
+         */
+        V load() throws IOException;
+    }
+}
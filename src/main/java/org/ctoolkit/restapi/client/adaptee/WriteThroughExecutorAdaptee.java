@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.cache.ExistenceIndex;
+import org.ctoolkit.restapi.client.cache.NegativeCache;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The opt-in decorator of the insert, update and delete adaptees keeping the locally cached copies consistent
+ * with the remote mutations. Once the mutation succeeds:
+ * <ul>
+ * <li>the returned resource is written through to the {@link LocalResourceProvider},
+ * all of its previously cached variants are evicted</li>
+ * <li>the deleted resource is evicted from the {@link LocalResourceProvider}</li>
+ * <li>the lists scoped by the same parent are evicted from the {@link LocalListResourceProvider},
+ * see {@link LocalListResourceProvider#evictDeleted(Identifier)} for the deleted resource</li>
+ * <li>the {@link NegativeCache} and the {@link ExistenceIndex} are updated</li>
+ * </ul>
+ * To opt in, bind the decorated adaptee in your guice module: <pre>{@code
+ *  WriteThroughExecutorAdaptee<MyResource> adaptee = new WriteThroughExecutorAdaptee<>( MyResource.class,
+ *      new MyResourceAdaptee(), MyResource::getIdentifier ).resources( provider ).lists( provider );
+ *
+ *  bind( new TypeLiteral<InsertExecutorAdaptee<MyResource>>(){} ).toInstance( adaptee );
+ *  bind( new TypeLiteral<UpdateExecutorAdaptee<MyResource>>(){} ).toInstance( adaptee );
+ *  bind( new TypeLiteral<DeleteExecutorAdaptee<MyResource>>(){} ).toInstance( adaptee );
+ * }</pre>
+ *
+ * @param <M> the concrete type of the model object
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class WriteThroughExecutorAdaptee<M>
+        implements InsertExecutorAdaptee<M>, UpdateExecutorAdaptee<M>, DeleteExecutorAdaptee<M>
+{
+    private final Class<M> type;
+
+    private final InsertExecutorAdaptee<M> insert;
+
+    private final UpdateExecutorAdaptee<M> update;
+
+    private final DeleteExecutorAdaptee<M> delete;
+
+    private final Function<? super M, Identifier> identity;
+
+    private final RequestIdentifiers parents = new RequestIdentifiers();
+
+    private final RequestIdentifiers identifiers = new RequestIdentifiers();
+
+    private volatile LocalResourceProvider<M> resources;
+
+    private volatile LocalListResourceProvider<M> lists;
+
+    private volatile NegativeCache negativeCache;
+
+    private volatile ExistenceIndex existenceIndex;
+
+    private volatile Long lastFor;
+
+    /**
+     * Constructor.
+     *
+     * @param type     the type of the resource
+     * @param delegate the adaptee to execute the remote calls
+     * @param identity the function to get the identifier of the returned resource
+     */
+    public WriteThroughExecutorAdaptee( @Nonnull Class<M> type,
+                                        @Nonnull RestExecutorAdaptee<M> delegate,
+                                        @Nonnull Function<? super M, Identifier> identity )
+    {
+        this( type, delegate, delegate, delegate, identity );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param type     the type of the resource
+     * @param insert   the insert adaptee, {@code null} if not supported
+     * @param update   the update adaptee, {@code null} if not supported
+     * @param delete   the delete adaptee, {@code null} if not supported
+     * @param identity the function to get the identifier of the returned resource
+     */
+    public WriteThroughExecutorAdaptee( @Nonnull Class<M> type,
+                                        @Nullable InsertExecutorAdaptee<M> insert,
+                                        @Nullable UpdateExecutorAdaptee<M> update,
+                                        @Nullable DeleteExecutorAdaptee<M> delete,
+                                        @Nonnull Function<? super M, Identifier> identity )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( identity == null )
+        {
+            throw new NullPointerException( "Identity cannot be null!" );
+        }
+
+        this.type = type;
+        this.insert = insert;
+        this.update = update;
+        this.delete = delete;
+        this.identity = identity;
+    }
+
+    /**
+     * Set the provider to write the resources through and evict from.
+     *
+     * @param resources the local resource provider
+     * @return this adaptee to chain calls
+     */
+    public WriteThroughExecutorAdaptee<M> resources( @Nullable LocalResourceProvider<M> resources )
+    {
+        this.resources = resources;
+        return this;
+    }
+
+    /**
+     * Set the provider to evict the lists from.
+     *
+     * @param lists the local list resource provider
+     * @return this adaptee to chain calls
+     */
+    public WriteThroughExecutorAdaptee<M> lists( @Nullable LocalListResourceProvider<M> lists )
+    {
+        this.lists = lists;
+        return this;
+    }
+
+    /**
+     * Set the negative cache to be updated, the inserted resource is no longer the not found one
+     * and the deleted one is.
+     *
+     * @param negativeCache the negative cache
+     * @return this adaptee to chain calls
+     */
+    public WriteThroughExecutorAdaptee<M> negativeCache( @Nullable NegativeCache negativeCache )
+    {
+        this.negativeCache = negativeCache;
+        return this;
+    }
+
+    /**
+     * Set the existence index to add the inserted resources to.
+     *
+     * @param existenceIndex the existence index
+     * @return this adaptee to chain calls
+     */
+    public WriteThroughExecutorAdaptee<M> existenceIndex( @Nullable ExistenceIndex existenceIndex )
+    {
+        this.existenceIndex = existenceIndex;
+        return this;
+    }
+
+    /**
+     * Set the time how long to keep the written through resource cached.
+     *
+     * @param lastFor the time in milliseconds, {@code null} for undefined
+     * @return this adaptee to chain calls
+     */
+    public WriteThroughExecutorAdaptee<M> lastFor( @Nullable Long lastFor )
+    {
+        this.lastFor = lastFor;
+        return this;
+    }
+
+    private static <A> A checkSupported( A adaptee, String operation )
+    {
+        if ( adaptee == null )
+        {
+            throw new UnsupportedOperationException( operation + " is not supported" );
+        }
+        return adaptee;
+    }
+
+    private static Identifier parentOf( Identifier identifier )
+    {
+        Identifier leaf = identifier.leaf();
+        return leaf.hasParent() ? leaf.getParent() : null;
+    }
+
+    @Override
+    public Object prepareInsert( @Nonnull M resource,
+                                 @Nullable Identifier parentKey,
+                                 @Nullable MediaProvider provider )
+            throws IOException
+    {
+        Object request = checkSupported( insert, "Insert" ).prepareInsert( resource, parentKey, provider );
+        return parentKey == null ? request : parents.register( request, parentKey );
+    }
+
+    @Override
+    public Object executeInsert( @Nonnull Object request,
+                                 @Nullable Map<String, Object> parameters,
+                                 @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier parent = parents.get( request );
+        Object response = checkSupported( insert, "Insert" ).executeInsert( request, parameters, locale );
+
+        Identifier identifier = type.isInstance( response ) ? identity.apply( type.cast( response ) ) : null;
+        if ( identifier != null )
+        {
+            writeThrough( type.cast( response ), identifier, locale );
+
+            ExistenceIndex index = existenceIndex;
+            if ( index != null )
+            {
+                index.put( identifier );
+            }
+        }
+        evictLists( parent );
+        return response;
+    }
+
+    @Override
+    public Object prepareUpdate( @Nonnull M resource,
+                                 @Nonnull Identifier identifier,
+                                 @Nullable MediaProvider provider )
+            throws IOException
+    {
+        Object request = checkSupported( update, "Update" ).prepareUpdate( resource, identifier, provider );
+        return identifiers.register( request, identifier );
+    }
+
+    @Override
+    public Object executeUpdate( @Nonnull Object request,
+                                 @Nullable Map<String, Object> parameters,
+                                 @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        Object response = checkSupported( update, "Update" ).executeUpdate( request, parameters, locale );
+
+        if ( identifier != null )
+        {
+            if ( type.isInstance( response ) )
+            {
+                writeThrough( type.cast( response ), identifier, locale );
+            }
+            else
+            {
+                evict( identifier );
+            }
+            evictLists( parentOf( identifier ) );
+        }
+        return response;
+    }
+
+    @Override
+    public Object prepareDelete( @Nonnull Identifier identifier )
+            throws IOException
+    {
+        Object request = checkSupported( delete, "Delete" ).prepareDelete( identifier );
+        return identifiers.register( request, identifier );
+    }
+
+    @Override
+    public Object executeDelete( @Nonnull Object request,
+                                 @Nullable Map<String, Object> parameters,
+                                 @Nullable Locale locale )
+            throws IOException
+    {
+        Identifier identifier = identifiers.get( request );
+        Object response = checkSupported( delete, "Delete" ).executeDelete( request, parameters, locale );
+
+        if ( identifier != null )
+        {
+            evict( identifier );
+
+            NegativeCache cache = negativeCache;
+            if ( cache != null )
+            {
+                cache.notFound( type, identifier );
+            }
+
+            LocalListResourceProvider<M> provider = lists;
+            if ( provider != null )
+            {
+                provider.evictDeleted( identifier );
+            }
+        }
+        return response;
+    }
+
+    private void writeThrough( M resource, Identifier identifier, Locale locale )
+    {
+        evict( identifier );
+
+        LocalResourceProvider<M> provider = resources;
+        if ( provider != null )
+        {
+            provider.persist( resource, identifier, null, locale, lastFor );
+        }
+
+        NegativeCache cache = negativeCache;
+        if ( cache != null )
+        {
+            cache.invalidate( type, identifier );
+        }
+    }
+
+    private void evict( Identifier identifier )
+    {
+        LocalResourceProvider<M> provider = resources;
+        if ( provider != null )
+        {
+            provider.evict( identifier );
+        }
+    }
+
+    private void evictLists( Identifier parent )
+    {
+        LocalListResourceProvider<M> provider = lists;
+        if ( provider != null )
+        {
+            provider.evictLists( parent );
+        }
+    }
+}
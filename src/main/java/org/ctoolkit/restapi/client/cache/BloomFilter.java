@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The thread safe Bloom filter of the strings, sized for the expected number of insertions
+ * and the false positive probability. The bits are set atomically, thus the filter might be updated
+ * concurrently with lookups.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class BloomFilter
+{
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedInsertions the expected number of insertions
+     * @param falsePositiveRate  the desired false positive probability, between 0 and 1 exclusive
+     */
+    BloomFilter( long expectedInsertions, double falsePositiveRate )
+    {
+        if ( falsePositiveRate <= 0 || falsePositiveRate >= 1 )
+        {
+            throw new IllegalArgumentException( "False positive rate must be in range (0, 1): " + falsePositiveRate );
+        }
+
+        long insertions = Math.max( 1, expectedInsertions );
+        double ln2 = Math.log( 2 );
+        long size = ( long ) Math.ceil( -insertions * Math.log( falsePositiveRate ) / ( ln2 * ln2 ) );
+        int words = ( int ) Math.min( Integer.MAX_VALUE - 8, Math.max( 1, ( size + 63 ) >>> 6 ) );
+
+        this.bits = new AtomicLongArray( words );
+        this.bitSize = ( long ) words << 6;
+        this.hashFunctions = Math.max( 1, ( int ) Math.round( ( double ) bitSize / insertions * ln2 ) );
+    }
+
+    private static long hash( String value )
+    {
+        // FNV-1a followed by the MurmurHash3 finalizer
+        long hash = 0xcbf29ce484222325L;
+        for ( int index = 0; index < value.length(); index++ )
+        {
+            hash ^= value.charAt( index );
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Adds the value to the filter.
+     *
+     * @param value the value to be added
+     */
+    void put( String value )
+    {
+        long hash = hash( value );
+        int first = ( int ) hash;
+        int second = ( int ) ( hash >>> 32 );
+
+        for ( int index = 1; index <= hashFunctions; index++ )
+        {
+            long bit = ( ( first + ( long ) index * second ) & Long.MAX_VALUE ) % bitSize;
+            int word = ( int ) ( bit >>> 6 );
+            long mask = 1L << bit;
+
+            long current;
+            while ( ( ( current = bits.get( word ) ) & mask ) == 0 )
+            {
+                if ( bits.compareAndSet( word, current, current | mask ) )
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether the value might have been added.
+     *
+     * @param value the value to check
+     * @return false if the value has definitely not been added
+     */
+    boolean mightContain( String value )
+    {
+        long hash = hash( value );
+        int first = ( int ) hash;
+        int second = ( int ) ( hash >>> 32 );
+
+        for ( int index = 1; index <= hashFunctions; index++ )
+        {
+            long bit = ( ( first + ( long ) index * second ) & Long.MAX_VALUE ) % bitSize;
+            if ( ( bits.get( ( int ) ( bit >>> 6 ) ) & ( 1L << bit ) ) == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return the number of bits
+     */
+    long bitSize()
+    {
+        return bitSize;
+    }
+}
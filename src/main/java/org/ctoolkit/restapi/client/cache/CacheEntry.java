@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Validators;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The cached value along with the time it has been cached at and the time it expires at,
+ * both in milliseconds since epoch. Passed among the {@link CacheTier}s to keep the remaining time to live.
+ * Optionally carries the {@link Validators} to revalidate the value once expired.
+ *
+ * @param <V> the type of the cached value
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class CacheEntry<V>
+{
+    /**
+     * The expiration time of the entry that never expires.
+     */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    private final V value;
+
+    private final long writtenAt;
+
+    private final long expiresAt;
+
+    private final Validators validators;
+
+    private CacheEntry( V value, long writtenAt, long expiresAt, Validators validators )
+    {
+        this.value = value;
+        this.writtenAt = writtenAt;
+        this.expiresAt = expiresAt;
+        this.validators = validators;
+    }
+
+    /**
+     * Creates the cache entry.
+     *
+     * @param value     the value to be cached
+     * @param writtenAt the time the value has been cached at
+     * @param expiresAt the time the value expires at, {@link #NEVER} if never
+     * @return the new cache entry
+     */
+    public static <V> CacheEntry<V> of( @Nonnull V value, long writtenAt, long expiresAt )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( "Value cannot be null!" );
+        }
+        return new CacheEntry<>( value, writtenAt, expiresAt, null );
+    }
+
+    /**
+     * Creates the cache entry written now, to be kept for given time.
+     *
+     * @param value   the value to be cached
+     * @param now     the current time in milliseconds since epoch
+     * @param lastFor the time in milliseconds how long to keep the value cached, {@code null} for undefined
+     * @return the new cache entry
+     */
+    public static <V> CacheEntry<V> lastFor( @Nonnull V value, long now, Long lastFor )
+    {
+        return of( value, now, expiresAt( now, lastFor ) );
+    }
+
+    /**
+     * Returns the expiration time for given time to live.
+     *
+     * @param now     the current time in milliseconds since epoch
+     * @param lastFor the time in milliseconds how long to keep the value cached, {@code null} for undefined
+     * @return the expiration time, {@link #NEVER} if never
+     */
+    public static long expiresAt( long now, Long lastFor )
+    {
+        if ( lastFor == null )
+        {
+            return NEVER;
+        }
+        long expiresAt = now + lastFor;
+        return lastFor > 0 && expiresAt < now ? NEVER : expiresAt;
+    }
+
+    /**
+     * Returns the time to live shortened randomly by up to the given fraction, to spread the expiration
+     * of the entries cached at the same time.
+     *
+     * @param lastFor  the time in milliseconds how long to keep the value cached, {@code null} for undefined
+     * @param fraction the maximum fraction to shorten the time to live by, in range [0, 1), 0 for no jitter
+     * @return the jittered time to live of at least 1 millisecond, {@code null} for undefined
+     */
+    public static Long jitter( Long lastFor, double fraction )
+    {
+        if ( fraction < 0 || fraction >= 1 )
+        {
+            throw new IllegalArgumentException( "Jitter fraction must be in range [0, 1): " + fraction );
+        }
+        if ( lastFor == null || lastFor <= 0 || fraction == 0 )
+        {
+            return lastFor;
+        }
+        long spread = ( long ) ( lastFor * fraction );
+        // the rounding of the spread must not shorten the time to live to 0, the value would expire at once
+        return spread <= 0 ? lastFor : Math.max( 1, lastFor - ThreadLocalRandom.current().nextLong( spread + 1 ) );
+    }
+
+    /**
+     * Returns a copy of this entry with given validators.
+     *
+     * @param validators the validators of the cached value, {@code null} to remove
+     * @return the new cache entry
+     */
+    public CacheEntry<V> withValidators( @Nullable Validators validators )
+    {
+        return new CacheEntry<>( value, writtenAt, expiresAt, validators );
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @return the value
+     */
+    public V getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the time the value has been cached at.
+     *
+     * @return the time in milliseconds since epoch
+     */
+    public long getWrittenAt()
+    {
+        return writtenAt;
+    }
+
+    /**
+     * Returns the time the value expires at.
+     *
+     * @return the time in milliseconds since epoch, {@link #NEVER} if never
+     */
+    public long getExpiresAt()
+    {
+        return expiresAt;
+    }
+
+    /**
+     * Returns the validators of the cached value. Kept by the {@link InMemoryResourceProvider},
+     * the serializing tiers keep the value only.
+     *
+     * @return the validators or {@code null} if none
+     */
+    public Validators getValidators()
+    {
+        return validators;
+    }
+
+    /**
+     * Returns a boolean identification whether the entry has expired at given time.
+     *
+     * @param now the current time in milliseconds since epoch
+     * @return true if expired
+     */
+    public boolean isExpired( long now )
+    {
+        return expiresAt <= now;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CacheEntry{" +
+                "value=" + value +
+                ", writtenAt=" + writtenAt +
+                ", expiresAt=" + expiresAt +
+                ", validators=" + validators +
+                '}';
+    }
+}
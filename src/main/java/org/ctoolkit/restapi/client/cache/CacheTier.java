@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The single level of the {@link TieredResourceProvider}, the cache of the resources and the lists of resources
+ * keyed by {@link ResourceKey}. The value of the entry is the resource for the single resource key
+ * and an unmodifiable list of resources for the list key, see {@link ResourceKey#isList()}.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface CacheTier<T>
+{
+    /**
+     * Returns the cached entry.
+     *
+     * @param key the key of the entry
+     * @return the entry or {@code null} if none or expired
+     */
+    CacheEntry<?> getEntry( @Nonnull ResourceKey key );
+
+    /**
+     * Caches the entry, keeping its time to live.
+     *
+     * @param key   the key of the entry
+     * @param entry the entry to be cached, the value must match the kind of the key
+     */
+    void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry );
+
+    /**
+     * Removes the cached entry if any.
+     *
+     * @param key the key of the entry
+     */
+    void invalidate( @Nonnull ResourceKey key );
+
+    /**
+     * Removes all of the cached resources identified by the given identifier or its descendants,
+     * such as everything under {@code accounts/42}.
+     *
+     * @param identifier the identifier of the subtree root
+     */
+    void invalidateSubtree( @Nonnull Identifier identifier );
+
+    /**
+     * Removes all of the cached entries.
+     */
+    void invalidateAll();
+
+    /**
+     * Sets the listener to be notified once a not expired entry has been evicted
+     * to keep the tier within its capacity. A tier that never evicts simply ignores the listener.
+     *
+     * @param listener the listener, {@code null} to remove
+     */
+    void setEvictionListener( @Nullable EvictionListener listener );
+
+    /**
+     * The listener notified once an entry has been evicted.
+     */
+    @FunctionalInterface
+    interface EvictionListener
+    {
+        /**
+         * Notifies the listener that an entry has been evicted.
+         *
+         * @param key   the key of the evicted entry
+         * @param entry the evicted entry
+         */
+        void onEviction( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry );
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The index of the keys cached by the {@link TinyLfuCache}, the resource keys indexed by its identifier
+ * and the list keys kept aside. Kept in sync with the cache by its removal notifications,
+ * thus the invalidation by the identifier or of the lists is proportional to the number of the removed entries,
+ * regardless of the total number of the cached entries.
+ * <p>
+ * The index is striped, the resource keys by the root segment of the identifier, thus the whole subtree
+ * is found within a single stripe, and the list keys by its hash code. The writers of the different stripes
+ * do not contend, as well as the cache segments.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class CachedKeyIndex
+{
+    private static final int STRIPES = 64;
+
+    private final TinyLfuCache<ResourceKey, ?> cache;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    CachedKeyIndex( @Nonnull TinyLfuCache<ResourceKey, ?> cache )
+    {
+        this.cache = cache;
+        for ( int stripe = 0; stripe < STRIPES; stripe++ )
+        {
+            stripes[stripe] = new Stripe();
+        }
+    }
+
+    private static int spread( int hash )
+    {
+        return ( hash ^ ( hash >>> 16 ) ) & ( STRIPES - 1 );
+    }
+
+    private Stripe stripe( ResourceKey key )
+    {
+        return stripes[spread( key.isList() ? key.hashCode() : key.getSegments().get( 0 ).hashCode() )];
+    }
+
+    private Stripe stripe( Identifier identifier )
+    {
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier cannot be null!" );
+        }
+        return stripes[spread( identifier.segments().get( 0 ).hashCode() )];
+    }
+
+    /**
+     * Registers the key once its entry has been put to the cache.
+     *
+     * @param key the key of the entry
+     */
+    void added( @Nonnull ResourceKey key )
+    {
+        Stripe stripe = stripe( key );
+
+        // the stripe monitor orders the registration against the removal of the same key notified meanwhile
+        synchronized ( stripe )
+        {
+            if ( cache.containsKey( key ) )
+            {
+                if ( key.isList() )
+                {
+                    stripe.lists.add( key );
+                }
+                else
+                {
+                    stripe.resources.add( key.getSegments(), key );
+                }
+            }
+        }
+    }
+
+    /**
+     * Unregisters the key once its entry has been removed from the cache.
+     *
+     * @param key   the key of the entry
+     * @param cause the cause of the removal
+     */
+    void removed( @Nonnull ResourceKey key, @Nonnull RemovalListener.Cause cause )
+    {
+        if ( cause == RemovalListener.Cause.REPLACED )
+        {
+            return;
+        }
+
+        Stripe stripe = stripe( key );
+        synchronized ( stripe )
+        {
+            if ( !cache.containsKey( key ) )
+            {
+                if ( key.isList() )
+                {
+                    stripe.lists.remove( key );
+                }
+                else
+                {
+                    stripe.resources.remove( key.getSegments(), key );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of the cached resources identified exactly by the given identifier.
+     *
+     * @param identifier the identifier of the resources
+     * @return the keys, empty list if none
+     */
+    List<ResourceKey> get( @Nonnull Identifier identifier )
+    {
+        return stripe( identifier ).resources.get( identifier );
+    }
+
+    /**
+     * Returns the keys of the cached resources identified by the given identifier or its descendants.
+     *
+     * @param identifier the identifier of the subtree root
+     * @return the keys, empty list if none
+     */
+    List<ResourceKey> subtree( @Nonnull Identifier identifier )
+    {
+        return stripe( identifier ).resources.subtree( identifier );
+    }
+
+    /**
+     * Returns the keys of the cached lists.
+     *
+     * @return the keys, empty list if none
+     */
+    List<ResourceKey> lists()
+    {
+        List<ResourceKey> keys = new ArrayList<>();
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                keys.addAll( stripe.lists );
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * The keys of a single stripe, guarded by its own monitor.
+     */
+    private static final class Stripe
+    {
+        private final IdentifierIndex<ResourceKey> resources = new IdentifierIndex<>();
+
+        private final Set<ResourceKey> lists = new HashSet<>();
+    }
+}
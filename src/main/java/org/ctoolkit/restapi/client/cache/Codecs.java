@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.ResourceKey;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The helper to encode the list of resources by the {@link ResourceCodec} of a single resource.
+ * Format: the number of items followed by the length prefixed items.
+ * The value of the {@link CacheTier} entry is encoded either as a resource or as a list,
+ * see {@link ResourceKey#isList()}.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class Codecs
+{
+    private Codecs()
+    {
+    }
+
+    @SuppressWarnings( "unchecked" )
+    static <T> byte[] encode( ResourceCodec<T> codec, ResourceKey key, Object value ) throws IOException
+    {
+        return key.isList() ? encodeList( codec, ( List<T> ) value ) : codec.encode( ( T ) value );
+    }
+
+    static <T> Object decode( ResourceCodec<T> codec, ResourceKey key, byte[] data ) throws IOException
+    {
+        return key.isList() ? decodeList( codec, data ) : codec.decode( data );
+    }
+
+    static <T> byte[] encodeList( ResourceCodec<T> codec, List<T> list ) throws IOException
+    {
+        List<byte[]> items = new ArrayList<>( list.size() );
+        int length = 4;
+        for ( T item : list )
+        {
+            byte[] data = codec.encode( item );
+            items.add( data );
+            length += 4 + data.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate( length );
+        buffer.putInt( items.size() );
+        for ( byte[] data : items )
+        {
+            buffer.putInt( data.length ).put( data );
+        }
+        return buffer.array();
+    }
+
+    static <T> List<T> decodeList( ResourceCodec<T> codec, byte[] data ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( data );
+        try
+        {
+            int size = buffer.getInt();
+            List<T> list = new ArrayList<>( size );
+            for ( int index = 0; index < size; index++ )
+            {
+                byte[] item = new byte[buffer.getInt()];
+                buffer.get( item );
+                list.add( codec.decode( item ) );
+            }
+            return Collections.unmodifiableList( list );
+        }
+        catch ( RuntimeException e )
+        {
+            throw new IOException( "Malformed list of resources", e );
+        }
+    }
+}
@@ -0,0 +1,708 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.adaptee.ListExecutorAdaptee;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The {@link LocalListResourceProvider} keeping the lists in sync incrementally. Records the high-water mark
+ * per list criteria, the latest last modified date of the items seen so far, and asks the remote API
+ * only for the items modified since then, see {@link #modifiedSince(String)}.
+ * The changed items are merged into the cached list by identity, a new item is appended at the end.
+ * <p>
+ * The list is seeded by the full list retrieval, either by the facade via {@link #persistList(List, Map, Locale, Long)}
+ * or by {@link #sync(Map, Locale)}. The {@code lastFor} is the minimum period between two delta syncs.
+ * The deleted items are removed only once reported by the delta, see {@link #removedWhen(Predicate)},
+ * thus optionally the list might be fully retrieved periodically, see {@link #fullSyncAfter(long)}.
+ * The item deleted by this client is removed at once, see {@link #evictDeleted(Identifier)}.
+ * If the delta sync fails, {@link #list(Map, Locale, Date)} returns {@code null}, the facade falls back
+ * to the full list retrieval.
+ * <p>
+ * The list scoped by the parent resource or sorted is seeded and retrieved by the overloads taking the parent
+ * and the order, such as {@link #sync(Identifier, Map, Locale, String, Boolean)}. The delta is then asked
+ * for with the same parent and order as the seeding list retrieval. The sorted list is sorted again once merged
+ * by the comparator of its property, see {@link #orderBy(String, Comparator)}. The sorted list with no comparator
+ * is retrieved fully instead, whenever the delta is not empty.
+ * <p>
+ * To bind it use this in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<LocalListResourceProvider<MyResource>>(){} )
+ *      .toInstance( new DeltaSyncListProvider<>( MyResource.class, new MyResourceListAdaptee(),
+ *              MyResource::getId, MyResource::getModified ) );
+ * }</pre>
+ *
+ * @param <T> the type of the resource within list
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class DeltaSyncListProvider<T>
+        implements LocalListResourceProvider<T>
+{
+    /**
+     * The default name of the list parameter to carry the high-water mark.
+     */
+    public static final String DEFAULT_MODIFIED_SINCE = "modifiedSince";
+
+    private final Class<T> type;
+
+    private final ListExecutorAdaptee<T> adaptee;
+
+    private final Function<? super T, ?> identity;
+
+    private final Function<? super T, Date> lastModified;
+
+    private final Map<ListKey, Snapshot<T>> snapshots = new ConcurrentHashMap<>();
+
+    private final Map<String, Comparator<? super T>> comparators = new ConcurrentHashMap<>();
+
+    private final LongAdder deltaSyncs = new LongAdder();
+
+    private final LongAdder fullSyncs = new LongAdder();
+
+    private final LongAdder merged = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile String modifiedSince = DEFAULT_MODIFIED_SINCE;
+
+    private volatile Predicate<? super T> removed = item -> false;
+
+    private volatile Function<? super T, Identifier> identifier;
+
+    private volatile long fullSyncAfter;
+
+    /**
+     * Constructor.
+     *
+     * @param type         the type of the resource
+     * @param adaptee      the list adaptee to retrieve the resources
+     * @param identity     the function to get the identity of the resource, such as its identifier
+     * @param lastModified the function to get the last modified date of the resource
+     */
+    public DeltaSyncListProvider( @Nonnull Class<T> type,
+                                  @Nonnull ListExecutorAdaptee<T> adaptee,
+                                  @Nonnull Function<? super T, ?> identity,
+                                  @Nonnull Function<? super T, Date> lastModified )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( adaptee == null )
+        {
+            throw new NullPointerException( "Adaptee cannot be null!" );
+        }
+        if ( identity == null )
+        {
+            throw new NullPointerException( "Identity cannot be null!" );
+        }
+        if ( lastModified == null )
+        {
+            throw new NullPointerException( "Last modified cannot be null!" );
+        }
+
+        this.type = type;
+        this.adaptee = adaptee;
+        this.identity = identity;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Set the name of the list parameter to carry the high-water mark as a {@link Date},
+     * {@link #DEFAULT_MODIFIED_SINCE} by default. The adaptee is expected to return only the items
+     * modified at or after the given date.
+     *
+     * @param parameter the name of the list parameter
+     * @return this provider to chain calls
+     */
+    public DeltaSyncListProvider<T> modifiedSince( @Nonnull String parameter )
+    {
+        if ( parameter == null )
+        {
+            throw new NullPointerException( "Parameter cannot be null!" );
+        }
+        this.modifiedSince = parameter;
+        return this;
+    }
+
+    /**
+     * Set the predicate to identify the item reported as deleted by the delta, to be removed from the list.
+     *
+     * @param removed the predicate of the deleted item
+     * @return this provider to chain calls
+     */
+    public DeltaSyncListProvider<T> removedWhen( @Nonnull Predicate<? super T> removed )
+    {
+        if ( removed == null )
+        {
+            throw new NullPointerException( "Predicate cannot be null!" );
+        }
+        this.removed = removed;
+        return this;
+    }
+
+    /**
+     * Set the function to get the identifier of the item, to remove the deleted item from the lists at once.
+     * If not set, the lists that might contain the deleted item are dropped, see {@link #evictDeleted(Identifier)}.
+     *
+     * @param identifier the function to get the identifier of the item
+     * @return this provider to chain calls
+     */
+    public DeltaSyncListProvider<T> identifiedBy( @Nonnull Function<? super T, Identifier> identifier )
+    {
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier function cannot be null!" );
+        }
+        this.identifier = identifier;
+        return this;
+    }
+
+    /**
+     * Set the period after which the list is retrieved fully again, to catch up the deletions
+     * not reported by the delta.
+     *
+     * @param millis the period in milliseconds since the last full retrieval, 0 to disable
+     * @return this provider to chain calls
+     */
+    public DeltaSyncListProvider<T> fullSyncAfter( long millis )
+    {
+        if ( millis < 0 )
+        {
+            throw new IllegalArgumentException( "Full sync period cannot be negative: " + millis );
+        }
+        this.fullSyncAfter = millis;
+        return this;
+    }
+
+    /**
+     * Set the comparator to sort the merged list retrieved sorted by the given property, in ascending order.
+     * The list retrieved sorted descending is sorted by the reversed comparator.
+     *
+     * @param property   the resource property name used to sort the result
+     * @param comparator the comparator consistent with the remote order of the property
+     * @return this provider to chain calls
+     */
+    public DeltaSyncListProvider<T> orderBy( @Nonnull String property, @Nonnull Comparator<? super T> comparator )
+    {
+        if ( property == null )
+        {
+            throw new NullPointerException( "Property cannot be null!" );
+        }
+        if ( comparator == null )
+        {
+            throw new NullPointerException( "Comparator cannot be null!" );
+        }
+        comparators.put( property, comparator );
+        return this;
+    }
+
+    @Override
+    public List<T> list( @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Date lastModifiedDate )
+    {
+        return list( null, parameters, locale, null, null, lastModifiedDate );
+    }
+
+    /**
+     * Retrieves the list scoped by the parent resource and sorted, synchronized by the delta if needed.
+     *
+     * @param parent           the unique identifier of the parent resource if any
+     * @param parameters       the optional resource parameters (list criteria)
+     * @param locale           the language the client has configured to prefer in results if applicable
+     * @param orderBy          the resource property name used to sort the result if any
+     * @param ascending        true to sort the result ascending
+     * @param lastModifiedDate the last modified date of the remote resource if any
+     * @return the merged list or {@code null} if not seeded yet, the delta sync has failed or full sync is due
+     * @see #list(Map, Locale, Date)
+     */
+    public List<T> list( @Nullable Identifier parent,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable String orderBy,
+                         @Nullable Boolean ascending,
+                         @Nullable Date lastModifiedDate )
+    {
+        ListKey key = key( parent, parameters, locale, orderBy, ascending );
+        Snapshot<T> snapshot = snapshots.get( key );
+        if ( snapshot == null )
+        {
+            return null;
+        }
+
+        synchronized ( snapshot )
+        {
+            long now = System.currentTimeMillis();
+            if ( fullSyncAfter > 0 && now - snapshot.fullSyncedAt >= fullSyncAfter )
+            {
+                return null;
+            }
+
+            boolean unchanged = lastModifiedDate != null && lastModifiedDate.getTime() <= snapshot.highWaterMark;
+            if ( !snapshot.dirty && ( unchanged || now - snapshot.syncedAt < snapshot.lastFor ) )
+            {
+                return snapshot.view;
+            }
+
+            try
+            {
+                List<T> delta = delta( snapshot, parameters, locale );
+                if ( !mergeable( snapshot, delta ) )
+                {
+                    snapshots.remove( key, snapshot );
+                    return null;
+                }
+                merge( snapshot, delta, now );
+                deltaSyncs.increment();
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                failures.increment();
+                return null;
+            }
+            return snapshot.view;
+        }
+    }
+
+    @Override
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable Long lastFor )
+    {
+        persistList( list, null, parameters, locale, null, null, lastFor );
+    }
+
+    /**
+     * Seeds the list scoped by the parent resource and sorted by the full list retrieval.
+     * The parent and the order are reused for the delta.
+     *
+     * @param list       the fully retrieved list of resources
+     * @param parent     the unique identifier of the parent resource if any
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @param orderBy    the resource property name used to sort the result if any
+     * @param ascending  true to sort the result ascending
+     * @param lastFor    the minimum period in milliseconds between two delta syncs, {@code null} for none
+     * @see #persistList(List, Map, Locale, Long)
+     */
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Identifier parent,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable String orderBy,
+                             @Nullable Boolean ascending,
+                             @Nullable Long lastFor )
+    {
+        Snapshot<T> snapshot = new Snapshot<>( parent, orderBy, ascending, lastFor == null ? 0 : lastFor );
+        synchronized ( snapshot )
+        {
+            long now = System.currentTimeMillis();
+            snapshot.fullSyncedAt = now;
+            merge( snapshot, list, now );
+        }
+        snapshots.put( key( parent, parameters, locale, orderBy, ascending ), snapshot );
+    }
+
+    /**
+     * Synchronizes the list and returns the merged result. The list not yet seeded is retrieved fully.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @return the merged list
+     * @throws IOException might be thrown during remote call execution
+     */
+    public List<T> sync( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+            throws IOException
+    {
+        return sync( null, parameters, locale, null, null );
+    }
+
+    /**
+     * Synchronizes the list scoped by the parent resource and sorted, returns the merged result.
+     * The list not yet seeded is retrieved fully.
+     *
+     * @param parent     the unique identifier of the parent resource if any
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language the client has configured to prefer in results if applicable
+     * @param orderBy    the resource property name used to sort the result if any
+     * @param ascending  true to sort the result ascending
+     * @return the merged list
+     * @throws IOException might be thrown during remote call execution
+     */
+    public List<T> sync( @Nullable Identifier parent,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable String orderBy,
+                         @Nullable Boolean ascending )
+            throws IOException
+    {
+        ListKey key = key( parent, parameters, locale, orderBy, ascending );
+        Snapshot<T> snapshot = snapshots.get( key );
+        if ( snapshot != null )
+        {
+            synchronized ( snapshot )
+            {
+                List<T> delta = delta( snapshot, parameters, locale );
+                if ( mergeable( snapshot, delta ) )
+                {
+                    merge( snapshot, delta, System.currentTimeMillis() );
+                    deltaSyncs.increment();
+                    return snapshot.view;
+                }
+            }
+        }
+
+        List<T> list = adaptee.executeList( adaptee.prepareList( parent ), parameters, locale,
+                null, null, orderBy, ascending );
+        fullSyncs.increment();
+        list = list == null ? Collections.emptyList() : list;
+        persistList( list, parent, parameters, locale, orderBy, ascending, null );
+        return snapshots.get( key ).view;
+    }
+
+    private ListKey key( Identifier parent,
+                         Map<String, Object> parameters,
+                         Locale locale,
+                         String orderBy,
+                         Boolean ascending )
+    {
+        ResourceKey criteria = ResourceKey.ofList( type, parameters, locale );
+        return new ListKey( criteria, parent == null ? null : parent.key(), orderBy, ascending );
+    }
+
+    private List<T> delta( Snapshot<T> snapshot, Map<String, Object> parameters, Locale locale )
+            throws IOException
+    {
+        Map<String, Object> criteria = parameters == null ? new HashMap<>() : new HashMap<>( parameters );
+        criteria.put( modifiedSince, new Date( snapshot.highWaterMark ) );
+
+        Object request = adaptee.prepareList( snapshot.parent );
+        List<T> delta = adaptee.executeList( request, criteria, locale, null, null,
+                snapshot.orderBy, snapshot.ascending );
+        return delta == null ? Collections.emptyList() : delta;
+    }
+
+    /**
+     * The delta merged into the sorted list would break its order, unless the comparator is known.
+     */
+    private boolean mergeable( Snapshot<T> snapshot, List<T> delta )
+    {
+        return snapshot.orderBy == null || delta.isEmpty() || comparators.containsKey( snapshot.orderBy );
+    }
+
+    private void merge( Snapshot<T> snapshot, List<T> changes, long now )
+    {
+        Predicate<? super T> removed = this.removed;
+        for ( T item : changes )
+        {
+            Object key = identity.apply( item );
+            if ( removed.test( item ) )
+            {
+                snapshot.items.remove( key );
+            }
+            else
+            {
+                snapshot.items.put( key, item );
+            }
+
+            Date modified = lastModified.apply( item );
+            if ( modified != null && modified.getTime() > snapshot.highWaterMark )
+            {
+                snapshot.highWaterMark = modified.getTime();
+            }
+        }
+
+        if ( snapshot.view == null || !changes.isEmpty() )
+        {
+            List<T> view = new ArrayList<>( snapshot.items.values() );
+            Comparator<? super T> comparator = snapshot.orderBy == null ? null : comparators.get( snapshot.orderBy );
+            if ( comparator != null && !changes.isEmpty() && snapshot.view != null )
+            {
+                view.sort( Boolean.FALSE.equals( snapshot.ascending ) ? comparator.reversed() : comparator );
+            }
+            snapshot.view = Collections.unmodifiableList( view );
+        }
+        snapshot.syncedAt = now;
+        snapshot.dirty = false;
+        merged.add( changes.size() );
+    }
+
+    /**
+     * Returns the high-water mark of the list with no parent and order,
+     * the latest last modified date of the items seen so far.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     * @return the high-water mark or {@code null} if the list has not been seeded yet
+     */
+    public Date highWaterMark( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        Snapshot<T> snapshot = snapshots.get( key( null, parameters, locale, null, null ) );
+        if ( snapshot == null )
+        {
+            return null;
+        }
+        synchronized ( snapshot )
+        {
+            return new Date( snapshot.highWaterMark );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lists are kept, but synchronized by the delta on the next retrieval regardless of the {@code lastFor}.
+     * Affected are the lists scoped by the given parent and the lists with no parent, all lists if no parent given.
+     */
+    @Override
+    public void evictLists( @Nullable Identifier parent )
+    {
+        String key = parent == null ? null : parent.key();
+        for ( Map.Entry<ListKey, Snapshot<T>> entry : snapshots.entrySet() )
+        {
+            String scope = entry.getKey().parent;
+            if ( key == null || scope == null || scope.equals( key ) )
+            {
+                entry.getValue().dirty = true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The deleted item is removed from the lists scoped by its parent and the lists with no parent, as the delta
+     * is not expected to report it. If the identifier of the item is unknown, see {@link #identifiedBy(Function)},
+     * those lists are removed, the next retrieval will be the full one.
+     */
+    @Override
+    public void evictDeleted( @Nonnull Identifier identifier )
+    {
+        Identifier leaf = identifier.leaf();
+        String key = leaf.hasParent() ? leaf.getParent().key() : null;
+        Function<? super T, Identifier> identity = this.identifier;
+
+        for ( Map.Entry<ListKey, Snapshot<T>> entry : snapshots.entrySet() )
+        {
+            String scope = entry.getKey().parent;
+            if ( scope != null && !scope.equals( key ) )
+            {
+                continue;
+            }
+            if ( identity == null )
+            {
+                snapshots.remove( entry.getKey(), entry.getValue() );
+                continue;
+            }
+
+            Snapshot<T> snapshot = entry.getValue();
+            synchronized ( snapshot )
+            {
+                // the view is filtered rather than rebuilt from the items, to keep its order
+                List<T> view = new ArrayList<>( snapshot.view.size() );
+                for ( T item : snapshot.view )
+                {
+                    if ( !identifier.equals( identity.apply( item ) ) )
+                    {
+                        view.add( item );
+                    }
+                }
+                if ( view.size() < snapshot.view.size() )
+                {
+                    snapshot.items.values().removeIf( item -> identifier.equals( identity.apply( item ) ) );
+                    snapshot.view = Collections.unmodifiableList( view );
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the cached list with no parent and order if any, the next retrieval will be the full one.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     */
+    public void invalidateList( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        invalidateList( null, parameters, locale, null, null );
+    }
+
+    /**
+     * Removes the cached list scoped by the parent resource and sorted if any,
+     * the next retrieval will be the full one.
+     *
+     * @param parent     the unique identifier of the parent resource if any
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     * @param orderBy    the resource property name used to sort the result if any
+     * @param ascending  true to sort the result ascending
+     */
+    public void invalidateList( @Nullable Identifier parent,
+                                @Nullable Map<String, Object> parameters,
+                                @Nullable Locale locale,
+                                @Nullable String orderBy,
+                                @Nullable Boolean ascending )
+    {
+        snapshots.remove( key( parent, parameters, locale, orderBy, ascending ) );
+    }
+
+    /**
+     * Removes all of the cached lists.
+     */
+    public void invalidateAll()
+    {
+        snapshots.clear();
+    }
+
+    /**
+     * Returns the number of completed delta syncs.
+     *
+     * @return the delta sync count
+     */
+    public long deltaSyncCount()
+    {
+        return deltaSyncs.sum();
+    }
+
+    /**
+     * Returns the number of full list retrievals made by {@link #sync(Map, Locale)}.
+     *
+     * @return the full sync count
+     */
+    public long fullSyncCount()
+    {
+        return fullSyncs.sum();
+    }
+
+    /**
+     * Returns the number of items merged into the lists, including the seeding ones.
+     *
+     * @return the merged item count
+     */
+    public long mergedCount()
+    {
+        return merged.sum();
+    }
+
+    /**
+     * Returns the number of failed delta syncs.
+     *
+     * @return the failure count
+     */
+    public long failureCount()
+    {
+        return failures.sum();
+    }
+
+    /**
+     * The synchronized state of the list, guarded by its own monitor.
+     */
+    private static final class Snapshot<T>
+    {
+        private final Map<Object, T> items = new LinkedHashMap<>();
+
+        private final Identifier parent;
+
+        private final String orderBy;
+
+        private final Boolean ascending;
+
+        private final long lastFor;
+
+        private long highWaterMark;
+
+        private long syncedAt;
+
+        private long fullSyncedAt;
+
+        private volatile List<T> view;
+
+        private volatile boolean dirty;
+
+        Snapshot( Identifier parent, String orderBy, Boolean ascending, long lastFor )
+        {
+            this.parent = parent;
+            this.orderBy = orderBy;
+            this.ascending = ascending;
+            this.lastFor = lastFor;
+        }
+    }
+
+    /**
+     * The key of the list, the criteria along with the parent and the order of the list retrieval.
+     */
+    private static final class ListKey
+    {
+        private final ResourceKey criteria;
+
+        private final String parent;
+
+        private final String orderBy;
+
+        private final Boolean ascending;
+
+        ListKey( ResourceKey criteria, String parent, String orderBy, Boolean ascending )
+        {
+            this.criteria = criteria;
+            this.parent = parent;
+            this.orderBy = orderBy;
+            this.ascending = ascending;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o ) return true;
+            if ( !( o instanceof ListKey ) ) return false;
+            ListKey that = ( ListKey ) o;
+            return criteria.equals( that.criteria ) &&
+                    Objects.equals( parent, that.parent ) &&
+                    Objects.equals( orderBy, that.orderBy ) &&
+                    Objects.equals( ascending, that.ascending );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( criteria, parent, orderBy, ascending );
+        }
+    }
+}
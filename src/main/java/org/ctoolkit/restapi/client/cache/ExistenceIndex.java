@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The existence index of the resource identifiers, backed by the Bloom filter keyed by {@link Identifier#key()}.
+ * Answers whether a resource might exist or definitely does not exist, with the configured false positive rate.
+ * <p>
+ * The index is built from the full set of the identifiers, typically synchronized periodically
+ * by the list retrieval, see {@link #rebuild(Supplier, Function)}. The new filter is built aside
+ * and swapped atomically once complete. In between, the newly created resources are added incrementally
+ * by {@link #put(Identifier)}, those put while a rebuild is in progress are journaled and replayed
+ * into the new filter. Until the first rebuild has completed, every resource might exist.
+ * <pre>{@code
+ *  index.rebuild( () -> facade.list( MyResource.class ).stream(), MyResource::getIdentifier );
+ * }</pre>
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ * @see org.ctoolkit.restapi.client.adaptee.ExistenceCheckingGetExecutorAdaptee
+ */
+public final class ExistenceIndex
+{
+    private final long expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private final Object rebuildLock = new Object();
+
+    private volatile BloomFilter filter;
+
+    private volatile Set<String> building;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedInsertions the expected number of the identifiers
+     * @param falsePositiveRate  the desired false positive probability, between 0 and 1 exclusive
+     */
+    public ExistenceIndex( long expectedInsertions, double falsePositiveRate )
+    {
+        if ( falsePositiveRate <= 0 || falsePositiveRate >= 1 )
+        {
+            throw new IllegalArgumentException( "False positive rate must be in range (0, 1): " + falsePositiveRate );
+        }
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    private static String key( Identifier identifier )
+    {
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier cannot be null!" );
+        }
+        return identifier.key();
+    }
+
+    /**
+     * Returns a boolean identification whether the index has been built.
+     *
+     * @return true once the first rebuild has completed
+     */
+    public boolean isReady()
+    {
+        return filter != null;
+    }
+
+    /**
+     * Returns a boolean identification whether the resource might exist.
+     *
+     * @param identifier the unique identifier of the resource
+     * @return false if the resource definitely does not exist, always true until the index is ready
+     */
+    public boolean mightExist( @Nonnull Identifier identifier )
+    {
+        String key = key( identifier );
+
+        // the journal is read first, a rebuild replays it into the new filter before it is dropped
+        Set<String> journal = building;
+        BloomFilter current = filter;
+        return current == null || current.mightContain( key ) || ( journal != null && journal.contains( key ) );
+    }
+
+    /**
+     * Adds the identifier of the newly created resource.
+     *
+     * @param identifier the unique identifier of the resource
+     */
+    public void put( @Nonnull Identifier identifier )
+    {
+        String key = key( identifier );
+
+        // a rebuild started or completed meanwhile might have missed the key, thus added once again
+        BloomFilter current;
+        Set<String> journal;
+        do
+        {
+            current = filter;
+            journal = building;
+            if ( current != null )
+            {
+                current.put( key );
+            }
+            if ( journal != null )
+            {
+                journal.add( key );
+            }
+        }
+        while ( current != filter || journal != building );
+    }
+
+    /**
+     * Rebuilds the index from the full set of the identifiers and swaps it atomically.
+     * The identifiers are fetched once the rebuild has begun, thus the resources created meanwhile are kept.
+     *
+     * @param identifiers the supplier of the identifiers of all existing resources
+     */
+    public void rebuild( @Nonnull Supplier<? extends Iterable<Identifier>> identifiers )
+    {
+        rebuild( () -> StreamSupport.stream( identifiers.get().spliterator(), false ), Function.identity() );
+    }
+
+    /**
+     * Rebuilds the index from the stream of all existing resources and swaps it atomically.
+     * The stream is requested once the rebuild has begun, thus the resources created meanwhile are kept.
+     * <pre>{@code
+     *  index.rebuild( () -> facade.list( MyResource.class ).stream(), MyResource::getIdentifier );
+     * }</pre>
+     *
+     * @param resources the supplier of the stream of all existing resources, closed once consumed
+     * @param identity  the function to get the identifier of the resource
+     */
+    public <T> void rebuild( @Nonnull Supplier<? extends Stream<T>> resources,
+                             @Nonnull Function<? super T, Identifier> identity )
+    {
+        synchronized ( rebuildLock )
+        {
+            Set<String> journal = ConcurrentHashMap.newKeySet();
+            building = journal;
+            try ( Stream<Identifier> identifiers = resources.get().map( identity ) )
+            {
+                Spliterator<Identifier> all = identifiers.spliterator();
+                long size = Math.max( expectedInsertions, all.getExactSizeIfKnown() );
+                BloomFilter next = new BloomFilter( size, falsePositiveRate );
+                all.forEachRemaining( identifier -> next.put( key( identifier ) ) );
+
+                // the journal answers until replayed into the swapped filter, the keys put meanwhile retried by put
+                filter = next;
+                journal.forEach( next::put );
+            }
+            finally
+            {
+                building = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+/**
+ * The Count-Min sketch to estimate the popularity (access frequency) of the cache entries,
+ * used by the TinyLFU admission policy. Each element is counted in one counter per row,
+ * the rows are indexed by the double hashing of the element's hash code and the estimate
+ * is the minimum of its counters. Counters saturate at 15 and only the smallest ones are incremented
+ * (the conservative update), thus the collisions overestimate less. Once the number of increments reaches
+ * the sample size all counters are halved (aged), so the sketch reflects the recent history only.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class FrequencySketch
+{
+    private static final int DEPTH = 4;
+
+    private static final int MAXIMUM_FREQUENCY = 15;
+
+    private static final int MAXIMUM_WIDTH = 1 << 24;
+
+    /**
+     * The counters of all rows, the row {@code r} occupies the range {@code [r * width, (r + 1) * width)}.
+     */
+    private final byte[] counters;
+
+    private final int width;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * Constructor.
+     *
+     * @param maximumSize the expected maximum number of entries being tracked
+     */
+    FrequencySketch( long maximumSize )
+    {
+        int capacity = ( int ) Math.min( Math.max( maximumSize, 16 ), MAXIMUM_WIDTH );
+        width = Integer.highestOneBit( capacity - 1 ) << 1;
+        counters = new byte[DEPTH * width];
+        sampleSize = 10 * width;
+    }
+
+    /**
+     * Mixes the hash code into 64 bits, the lower and upper half serve as two independent hashes.
+     */
+    private static long mix( int hashCode )
+    {
+        long hash = ( hashCode & 0xffffffffL ) * 0x9e3779b97f4a7c15L;
+        hash = ( hash ^ ( hash >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+        hash = ( hash ^ ( hash >>> 27 ) ) * 0x94d049bb133111ebL;
+        return hash ^ ( hash >>> 31 );
+    }
+
+    private int indexOf( long hash, int row )
+    {
+        int first = ( int ) hash;
+        // odd step, thus the rows never share the column
+        int second = ( int ) ( hash >>> 32 ) | 1;
+        return row * width + ( ( first + row * second ) & ( width - 1 ) );
+    }
+
+    /**
+     * Returns the estimated number of occurrences of an element, up to the maximum (15).
+     *
+     * @param hashCode the hash code of the element
+     * @return the estimated frequency
+     */
+    int frequency( int hashCode )
+    {
+        return frequency( mix( hashCode ) );
+    }
+
+    private int frequency( long hash )
+    {
+        int frequency = MAXIMUM_FREQUENCY;
+        for ( int row = 0; row < DEPTH; row++ )
+        {
+            frequency = Math.min( frequency, counters[indexOf( hash, row )] );
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the element if it does not exceed the maximum (15).
+     * Once the number of increments reaches the sample size, all counters are halved.
+     *
+     * @param hashCode the hash code of the element
+     */
+    void increment( int hashCode )
+    {
+        long hash = mix( hashCode );
+        int frequency = frequency( hash );
+        if ( frequency == MAXIMUM_FREQUENCY )
+        {
+            return;
+        }
+
+        for ( int row = 0; row < DEPTH; row++ )
+        {
+            int index = indexOf( hash, row );
+            if ( counters[index] == frequency )
+            {
+                counters[index]++;
+            }
+        }
+
+        if ( ++additions == sampleSize )
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        for ( int index = 0; index < counters.length; index++ )
+        {
+            counters[index] >>>= 1;
+        }
+        additions >>>= 1;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The thread safe trie of the values (typically the cache keys) indexed by the {@link Identifier} chains,
+ * one trie node per identifier segment (the controller and the value) from the root to the leaf.
+ * The values of the whole subtree, such as everything under {@code accounts/42}, are enumerated or removed
+ * in time proportional to the depth of the given identifier and the size of its subtree,
+ * regardless of the total number of the indexed values. The nodes left empty are pruned.
+ *
+ * @param <V> the type of the indexed value
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class IdentifierIndex<V>
+{
+    private final Node<V> root = new Node<>( null, null );
+
+    private int size;
+
+    private static List<String> segments( Identifier identifier )
+    {
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier cannot be null!" );
+        }
+        return identifier.segments();
+    }
+
+    private Node<V> find( List<String> segments )
+    {
+        Node<V> node = root;
+        for ( String segment : segments )
+        {
+            node = node.children == null ? null : node.children.get( segment );
+            if ( node == null )
+            {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Associates the value with the identifier.
+     *
+     * @param identifier the identifier of the value
+     * @param value      the value to be indexed
+     * @return true if the value has not been associated with the identifier yet
+     */
+    public boolean add( @Nonnull Identifier identifier, @Nonnull V value )
+    {
+        return add( segments( identifier ), value );
+    }
+
+    /**
+     * Associates the value with the identifier given by its segments, see {@link Identifier#segments()}.
+     *
+     * @param segments the segments of the identifier of the value
+     * @param value    the value to be indexed
+     * @return true if the value has not been associated with the identifier yet
+     */
+    synchronized boolean add( @Nonnull List<String> segments, @Nonnull V value )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( "Value cannot be null!" );
+        }
+
+        Node<V> node = root;
+        for ( String segment : segments )
+        {
+            if ( node.children == null )
+            {
+                node.children = new HashMap<>();
+            }
+            Node<V> parent = node;
+            node = node.children.computeIfAbsent( segment, key -> new Node<>( parent, key ) );
+        }
+
+        if ( node.values == null )
+        {
+            node.values = new LinkedHashSet<>();
+        }
+        boolean added = node.values.add( value );
+        if ( added )
+        {
+            size++;
+        }
+        return added;
+    }
+
+    /**
+     * Removes the association of the value with the identifier.
+     *
+     * @param identifier the identifier of the value
+     * @param value      the value to be removed
+     * @return true if the value has been associated with the identifier
+     */
+    public boolean remove( @Nonnull Identifier identifier, @Nonnull V value )
+    {
+        return remove( segments( identifier ), value );
+    }
+
+    /**
+     * Removes the association of the value with the identifier given by its segments.
+     *
+     * @param segments the segments of the identifier of the value
+     * @param value    the value to be removed
+     * @return true if the value has been associated with the identifier
+     */
+    synchronized boolean remove( @Nonnull List<String> segments, @Nonnull V value )
+    {
+        Node<V> node = find( segments );
+        if ( node == null || node.values == null || !node.values.remove( value ) )
+        {
+            return false;
+        }
+        size--;
+        prune( node );
+        return true;
+    }
+
+    /**
+     * Returns the values associated exactly with the identifier.
+     *
+     * @param identifier the identifier of the values
+     * @return the values, empty list if none
+     */
+    public synchronized List<V> get( @Nonnull Identifier identifier )
+    {
+        Node<V> node = find( segments( identifier ) );
+        return node == null || node.values == null ? Collections.emptyList() : new ArrayList<>( node.values );
+    }
+
+    /**
+     * Returns the values associated with the identifier and all of its descendants.
+     *
+     * @param identifier the identifier of the subtree root
+     * @return the values, empty list if none
+     */
+    public synchronized List<V> subtree( @Nonnull Identifier identifier )
+    {
+        Node<V> node = find( segments( identifier ) );
+        List<V> values = new ArrayList<>();
+        if ( node != null )
+        {
+            collect( node, values );
+        }
+        return values;
+    }
+
+    /**
+     * Removes the identifier and all of its descendants along with the associated values.
+     *
+     * @param identifier the identifier of the subtree root
+     * @return the removed values, empty list if none
+     */
+    public synchronized List<V> removeSubtree( @Nonnull Identifier identifier )
+    {
+        Node<V> node = find( segments( identifier ) );
+        if ( node == null )
+        {
+            return Collections.emptyList();
+        }
+
+        List<V> values = new ArrayList<>();
+        collect( node, values );
+        size -= values.size();
+
+        node.values = null;
+        node.children = null;
+        prune( node );
+        return values;
+    }
+
+    private void collect( Node<V> node, List<V> values )
+    {
+        Deque<Node<V>> stack = new ArrayDeque<>();
+        stack.push( node );
+        while ( !stack.isEmpty() )
+        {
+            Node<V> next = stack.pop();
+            if ( next.values != null )
+            {
+                values.addAll( next.values );
+            }
+            if ( next.children != null )
+            {
+                for ( Node<V> child : next.children.values() )
+                {
+                    stack.push( child );
+                }
+            }
+        }
+    }
+
+    private void prune( Node<V> node )
+    {
+        Node<V> next = node;
+        while ( next.parent != null
+                && ( next.values == null || next.values.isEmpty() )
+                && ( next.children == null || next.children.isEmpty() ) )
+        {
+            next.parent.children.remove( next.segment );
+            next = next.parent;
+        }
+    }
+
+    /**
+     * Removes all of the values.
+     */
+    public synchronized void clear()
+    {
+        root.children = null;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of the indexed values.
+     *
+     * @return the number of values
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    private static final class Node<V>
+    {
+        private final Node<V> parent;
+
+        private final String segment;
+
+        private Map<String, Node<V>> children;
+
+        private Set<V> values;
+
+        Node( Node<V> parent, String segment )
+        {
+            this.parent = parent;
+            this.segment = segment;
+        }
+    }
+}
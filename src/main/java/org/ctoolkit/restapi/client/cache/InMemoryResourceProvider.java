@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.Validators;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The bounded in-memory {@link LocalResourceProvider} and {@link LocalListResourceProvider}
+ * with frequency aware admission and eviction (W-TinyLFU), keyed by {@link ResourceKey}.
+ * The size is bound either by the number of entries, where the list counts as a single entry,
+ * or by the total weight of the entries, where the weight of the list is the sum of the weights of its items
+ * but at least one.
+ * The {@code lastFor} of the {@link #persist(Object, Identifier, Map, Locale, Long)} is honored per entry.
+ * Serves as the first (heap) level of the {@link TieredResourceProvider}.
+ * The {@link CacheEntry#getValidators()} are kept along with the cached value.
+ * The resources are indexed by its {@link Identifier} chain, thus all of the resources under given identifier
+ * are invalidated without scanning the whole cache, see {@link #invalidateSubtree(Identifier)}.
+ * <p>
+ * To bind it use this in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<LocalResourceProvider<MyResource>>(){} )
+ *      .toInstance( new InMemoryResourceProvider<>( MyResource.class, 10_000 ) );
+ * }</pre>
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class InMemoryResourceProvider<T>
+        implements LocalResourceProvider<T>, LocalListResourceProvider<T>, CacheTier<T>
+{
+    /**
+     * The default expected maximum number of the cached entries of the provider bound by the total weight.
+     */
+    public static final long DEFAULT_EXPECTED_SIZE = 1 << 16;
+
+    /**
+     * The weigher of the provider bound by the number of entries.
+     */
+    private static final Weigher<Object> SINGLE = resource -> 1;
+
+    private final Class<T> type;
+
+    private final Weigher<? super T> weigher;
+
+    private final TinyLfuCache<ResourceKey, Object> cache;
+
+    private final CachedKeyIndex keys;
+
+    private volatile EvictionListener evictionListener;
+
+    /**
+     * Creates the provider bound by the number of entries.
+     *
+     * @param type        the type of the resource
+     * @param maximumSize the maximum number of the cached entries
+     */
+    public InMemoryResourceProvider( @Nonnull Class<T> type, long maximumSize )
+    {
+        this( type, maximumSize, SINGLE, maximumSize );
+    }
+
+    /**
+     * Creates the provider bound by the total weight of the entries.
+     * The frequency sketch is sized for up to {@link #DEFAULT_EXPECTED_SIZE} entries,
+     * see {@link #InMemoryResourceProvider(Class, long, Weigher, long)} to size it explicitly.
+     *
+     * @param type          the type of the resource
+     * @param maximumWeight the maximum total weight of the cached entries
+     * @param weigher       the weigher to calculate the weight of a single resource
+     */
+    public InMemoryResourceProvider( @Nonnull Class<T> type,
+                                     long maximumWeight,
+                                     @Nonnull Weigher<? super T> weigher )
+    {
+        this( type, maximumWeight, weigher, Math.min( maximumWeight, DEFAULT_EXPECTED_SIZE ) );
+    }
+
+    /**
+     * Creates the provider bound by the total weight of the entries.
+     *
+     * @param type          the type of the resource
+     * @param maximumWeight the maximum total weight of the cached entries
+     * @param weigher       the weigher to calculate the weight of a single resource
+     * @param expectedSize  the expected maximum number of the cached entries,
+     *                      for example the maximum weight divided by the average weight of the entry
+     */
+    public InMemoryResourceProvider( @Nonnull Class<T> type,
+                                     long maximumWeight,
+                                     @Nonnull Weigher<? super T> weigher,
+                                     long expectedSize )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( weigher == null )
+        {
+            throw new NullPointerException( "Weigher cannot be null!" );
+        }
+        this.type = type;
+        this.weigher = weigher;
+        this.cache = new TinyLfuCache<>( maximumWeight, expectedSize, this::onRemoval, System::currentTimeMillis );
+        this.keys = new CachedKeyIndex( cache );
+    }
+
+    private int weigh( T resource )
+    {
+        int weight = weigher.weigh( resource );
+        if ( weight < 0 )
+        {
+            throw new IllegalArgumentException( "Weight cannot be negative: " + weight );
+        }
+        return weight;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private int weigh( ResourceKey key, Object value )
+    {
+        if ( !key.isList() )
+        {
+            return weigh( type.cast( value ) );
+        }
+        if ( weigher == SINGLE )
+        {
+            return 1;
+        }
+
+        long weight = 0;
+        for ( T item : ( List<T> ) value )
+        {
+            weight += weigh( item );
+        }
+        // even the empty list occupies the cache
+        return ( int ) Math.max( 1, Math.min( weight, Integer.MAX_VALUE ) );
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.of( type, identifier, parameters, locale ) );
+        return entry == null ? null : type.cast( entry.getValue() );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( instance, System.currentTimeMillis(), lastFor ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cached list is considered stale if it has been cached before the given last modified date.
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<T> list( @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Date lastModifiedDate )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.ofList( type, parameters, locale ) );
+        if ( entry == null || ( lastModifiedDate != null && entry.getWrittenAt() < lastModifiedDate.getTime() ) )
+        {
+            return null;
+        }
+        return ( List<T> ) entry.getValue();
+    }
+
+    @Override
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.ofList( type, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( list, System.currentTimeMillis(), lastFor ) );
+    }
+
+    @Override
+    public CacheEntry<?> getEntry( @Nonnull ResourceKey key )
+    {
+        TinyLfuCache.Node<ResourceKey, Object> node = cache.getNode( key );
+        return node == null ? null : entry( node.value, node.writtenAt, node.expiresAt );
+    }
+
+    private static CacheEntry<?> entry( Object value, long writtenAt, long expiresAt )
+    {
+        if ( value instanceof Validated )
+        {
+            Validated validated = ( Validated ) value;
+            return CacheEntry.of( validated.value, writtenAt, expiresAt ).withValidators( validated.validators );
+        }
+        return CacheEntry.of( value, writtenAt, expiresAt );
+    }
+
+    @Override
+    public void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry )
+    {
+        Object value = entry.getValue();
+        if ( key.isList() )
+        {
+            value = Collections.unmodifiableList( new ArrayList<>( ( List<?> ) value ) );
+        }
+        int weight = weigh( key, value );
+        if ( entry.getValidators() != null )
+        {
+            value = new Validated( value, entry.getValidators() );
+        }
+        cache.put( key, value, weight, entry.getWrittenAt(), entry.getExpiresAt() );
+        keys.added( key );
+    }
+
+    @Override
+    public void invalidate( @Nonnull ResourceKey key )
+    {
+        cache.remove( key );
+    }
+
+    @Override
+    public void setEvictionListener( @Nullable EvictionListener listener )
+    {
+        this.evictionListener = listener;
+    }
+
+    private void onRemoval( ResourceKey key,
+                            Object value,
+                            long writtenAt,
+                            long expiresAt,
+                            RemovalListener.Cause cause )
+    {
+        keys.removed( key, cause );
+
+        EvictionListener listener = evictionListener;
+        if ( listener != null && cause == RemovalListener.Cause.SIZE )
+        {
+            listener.onEviction( key, entry( value, writtenAt, expiresAt ) );
+        }
+    }
+
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        for ( ResourceKey key : keys.get( identifier ) )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Proportional to the number of the removed resources.
+     */
+    @Override
+    public void invalidateSubtree( @Nonnull Identifier identifier )
+    {
+        for ( ResourceKey key : keys.subtree( identifier ) )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * Returns the keys of the cached resources identified by the given identifier or its descendants.
+     *
+     * @param identifier the identifier of the subtree root
+     * @return the keys, including not yet removed expired resources
+     */
+    public List<ResourceKey> subtree( @Nonnull Identifier identifier )
+    {
+        return keys.subtree( identifier );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lists are keyed by the criteria only, thus all of the cached lists are evicted.
+     */
+    @Override
+    public void evictLists( @Nullable Identifier parent )
+    {
+        for ( ResourceKey key : keys.lists() )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * Removes the cached resource if any.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     */
+    public void invalidate( @Nonnull Identifier identifier,
+                            @Nullable Map<String, Object> parameters,
+                            @Nullable Locale locale )
+    {
+        cache.remove( ResourceKey.of( type, identifier, parameters, locale ) );
+    }
+
+    /**
+     * Removes the cached list if any.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     */
+    public void invalidateList( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        cache.remove( ResourceKey.ofList( type, parameters, locale ) );
+    }
+
+    /**
+     * Removes all of the cached resources and lists.
+     */
+    @Override
+    public void invalidateAll()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Removes all of the expired resources. Expired resources are otherwise removed lazily once accessed
+     * or evicted once the cache reaches its maximum size.
+     */
+    public void cleanUp()
+    {
+        cache.cleanUp();
+    }
+
+    /**
+     * Returns the number of cached resources and lists, including not yet removed expired resources.
+     *
+     * @return the estimated number of cached resources
+     */
+    public long size()
+    {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     *
+     * @return the hit count
+     */
+    public long hitCount()
+    {
+        return cache.hitCount();
+    }
+
+    /**
+     * Returns the number of lookups with no cached resource found.
+     *
+     * @return the miss count
+     */
+    public long missCount()
+    {
+        return cache.missCount();
+    }
+
+    /**
+     * Returns the number of resources evicted to keep the cache within its maximum size.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount()
+    {
+        return cache.evictionCount();
+    }
+
+    /**
+     * The cached value along with its validators.
+     */
+    private static final class Validated
+    {
+        private final Object value;
+
+        private final Validators validators;
+
+        Validated( Object value, Validators validators )
+        {
+            this.value = value;
+            this.validators = validators;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.adaptee.SingleFlight;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link LocalResourceProvider} decorating a {@link CacheTier} with the cache stampede protection.
+ * Once the resource is not cached (or has expired), exactly one caller per key loads it
+ * by the {@link ResourceLoader} and caches it, while the concurrent callers of the same key wait for its result
+ * instead of calling the remote API together. The time to live is optionally jittered,
+ * thus the resources cached at the same time do not expire at the same time, see {@link #jitter(double)}.
+ * <p>
+ * The outcome of the load is shared by all waiting callers, none of them falls back to its own remote call.
+ * The resource not found by the loader is propagated as the {@link NotFoundException},
+ * the {@link IOException} as the {@link UncheckedIOException} and any other failure as is.
+ * To serve the stale resource while a single caller refreshes it, use {@link RefreshingResourceProvider}.
+ * <p>
+ * To bind it use this in your guice module: <pre>{@code
+ *  bind( new TypeLiteral<LocalResourceProvider<MyResource>>(){} )
+ *      .toInstance( new LoadingResourceProvider<>( MyResource.class, tier, loader, 60_000L ).jitter( 0.1 ) );
+ * }</pre>
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class LoadingResourceProvider<T>
+        implements LocalResourceProvider<T>
+{
+    private final SingleFlight<ResourceKey, T> flight = new SingleFlight<>();
+
+    private final Class<T> type;
+
+    private final CacheTier<T> tier;
+
+    private final ResourceLoader<T> loader;
+
+    private final Long lastFor;
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile double jitter;
+
+    /**
+     * Constructor.
+     *
+     * @param type    the type of the resource
+     * @param tier    the cache of the resources
+     * @param loader  the loader of the resource not cached
+     * @param lastFor the time in milliseconds how long to keep the loaded resource cached, {@code null} for undefined
+     */
+    public LoadingResourceProvider( @Nonnull Class<T> type,
+                                    @Nonnull CacheTier<T> tier,
+                                    @Nonnull ResourceLoader<T> loader,
+                                    @Nullable Long lastFor )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( tier == null )
+        {
+            throw new NullPointerException( "Cache tier cannot be null!" );
+        }
+        if ( loader == null )
+        {
+            throw new NullPointerException( "Loader cannot be null!" );
+        }
+
+        this.type = type;
+        this.tier = tier;
+        this.loader = loader;
+        this.lastFor = lastFor;
+    }
+
+    /**
+     * Enables the jittered expiration, the time to live is shortened randomly by up to the given fraction.
+     *
+     * @param fraction the maximum fraction of the time to live, in range [0, 1), 0 to disable
+     * @return this provider to chain calls
+     * @throws IllegalArgumentException thrown for fraction out of range
+     */
+    public LoadingResourceProvider<T> jitter( double fraction )
+    {
+        if ( fraction < 0 || fraction >= 1 )
+        {
+            throw new IllegalArgumentException( "Jitter fraction must be in range [0, 1): " + fraction );
+        }
+        this.jitter = fraction;
+        return this;
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        CacheEntry<?> entry = tier.getEntry( key );
+        if ( entry != null )
+        {
+            return type.cast( entry.getValue() );
+        }
+
+        try
+        {
+            return flight.execute( key, () -> load( key, identifier, parameters, locale ) );
+        }
+        catch ( IOException e )
+        {
+            failures.increment();
+            String message = "Load of " + type.getSimpleName() + " " + identifier.key() + " has failed";
+            throw new UncheckedIOException( message, e );
+        }
+        catch ( RuntimeException e )
+        {
+            failures.increment();
+            throw e;
+        }
+    }
+
+    private T load( ResourceKey key, Identifier identifier, Map<String, Object> parameters, Locale locale )
+            throws IOException
+    {
+        // the previous load might have been completed meanwhile
+        CacheEntry<?> entry = tier.getEntry( key );
+        if ( entry != null )
+        {
+            return type.cast( entry.getValue() );
+        }
+
+        T resource = loader.load( identifier, parameters, locale );
+        loads.increment();
+        if ( resource == null )
+        {
+            throw new NotFoundException( "Not found: " + type.getSimpleName() + " " + identifier.key() );
+        }
+        tier.putEntry( key, entry( resource, lastFor ) );
+        return resource;
+    }
+
+    private CacheEntry<T> entry( T resource, Long lastFor )
+    {
+        return CacheEntry.lastFor( resource, System.currentTimeMillis(), CacheEntry.jitter( lastFor, jitter ) );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        tier.putEntry( ResourceKey.of( type, identifier, parameters, locale ), entry( instance, lastFor ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Evicted once the tier implements the {@link LocalResourceProvider}.
+     */
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        if ( tier instanceof LocalResourceProvider )
+        {
+            ( ( LocalResourceProvider<?> ) tier ).evict( identifier );
+        }
+    }
+
+    /**
+     * Returns the number of completed loads, a single one for all of the concurrent callers of the same key.
+     *
+     * @return the load count
+     */
+    public long loadCount()
+    {
+        return loads.sum();
+    }
+
+    /**
+     * Returns the number of callers failed to get the resource.
+     *
+     * @return the failure count
+     */
+    public long failureCount()
+    {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,904 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * The persistent {@link LocalResourceProvider} and {@link LocalListResourceProvider} backed by the memory-mapped
+ * segment files on local disk, the cached resources survive the restart of the application.
+ * <p>
+ * The resources are serialized by the {@link ResourceCodec} and appended to the active segment file (append-only log),
+ * the invalidation appends a tombstone. Only the in-memory index of the keys ({@link ResourceKey#asString()})
+ * is kept on the heap, rebuilt by replaying the segments once opened. The index is sorted, thus the variants
+ * of the resource and the lists sharing the key prefix are evicted by a range lookup, not a scan of all keys.
+ * A torn record at the end of a segment (the application has crashed while writing) is detected by its checksum
+ * and ignored.
+ * The segments with mostly dead records (overwritten, invalidated or expired) are compacted in background
+ * by copying the live records to the active segment.
+ * <p>
+ * Each resource type requires its own directory that must not be shared by multiple instances.
+ * Serves as the last (disk) level of the {@link TieredResourceProvider}.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class MappedFileResourceProvider<T>
+        implements LocalResourceProvider<T>, LocalListResourceProvider<T>, CacheTier<T>, Closeable
+{
+    /**
+     * The default size of the segment file in bytes (64 MB).
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    private static final long COMPACTION_INTERVAL = 60_000L;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    /**
+     * kind, writtenAt, expiresAt, key length, value length and checksum
+     */
+    private static final int MINIMUM_RECORD_LENGTH = 1 + 8 + 8 + 4 + 4 + 4;
+
+    private final Class<T> type;
+
+    private final Path directory;
+
+    private final ResourceCodec<T> codec;
+
+    private final int segmentSize;
+
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentNavigableMap<String, Location> index = new ConcurrentSkipListMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final ScheduledExecutorService compactor;
+
+    private volatile Segment active;
+
+    private volatile boolean closed;
+
+    /**
+     * Opens the provider with default segment size.
+     *
+     * @param type      the type of the resource
+     * @param directory the directory of the segment files, created if does not exist
+     * @param codec     the codec to serialize the resources
+     * @throws IOException if opening of the existing segment files has failed
+     */
+    public MappedFileResourceProvider( @Nonnull Class<T> type,
+                                       @Nonnull Path directory,
+                                       @Nonnull ResourceCodec<T> codec )
+            throws IOException
+    {
+        this( type, directory, codec, DEFAULT_SEGMENT_SIZE );
+    }
+
+    /**
+     * Opens the provider.
+     *
+     * @param type        the type of the resource
+     * @param directory   the directory of the segment files, created if does not exist
+     * @param codec       the codec to serialize the resources
+     * @param segmentSize the size of the segment file in bytes, a larger record gets its own segment
+     * @throws IOException if opening of the existing segment files has failed
+     */
+    public MappedFileResourceProvider( @Nonnull Class<T> type,
+                                       @Nonnull Path directory,
+                                       @Nonnull ResourceCodec<T> codec,
+                                       int segmentSize )
+            throws IOException
+    {
+        checkNotNull( type, "Resource type" );
+        checkNotNull( directory, "Directory" );
+        checkNotNull( codec, "Codec" );
+        if ( segmentSize < 1024 )
+        {
+            throw new IllegalArgumentException( "Segment size must be at least 1024 bytes: " + segmentSize );
+        }
+
+        this.type = type;
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories( directory );
+        open();
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "ctoolkit-cache-compaction-" + type.getSimpleName() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        compactor.scheduleWithFixedDelay( this::compactQuietly,
+                COMPACTION_INTERVAL,
+                COMPACTION_INTERVAL,
+                TimeUnit.MILLISECONDS );
+    }
+
+    private static void checkNotNull( Object value, String name )
+    {
+        if ( value == null )
+        {
+            throw new NullPointerException( name + " cannot be null!" );
+        }
+    }
+
+    private void open() throws IOException
+    {
+        List<Integer> ids = new ArrayList<>();
+        String glob = SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX;
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream( directory, glob ) )
+        {
+            for ( Path path : stream )
+            {
+                String name = path.getFileName().toString();
+                String id = name.substring( SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length() );
+                ids.add( Integer.valueOf( id ) );
+            }
+        }
+        ids.sort( null );
+
+        long now = System.currentTimeMillis();
+        for ( Integer id : ids )
+        {
+            Path path = segmentPath( id );
+            Segment segment = new Segment( id, path, ( int ) Files.size( path ) );
+            segments.put( id, segment );
+            replay( segment, now );
+        }
+
+        active = segments.isEmpty() ? createSegment( 0, segmentSize ) : segments.lastEntry().getValue();
+    }
+
+    private Path segmentPath( int id )
+    {
+        return directory.resolve( String.format( "%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX ) );
+    }
+
+    private Segment createSegment( int id, int capacity ) throws IOException
+    {
+        Segment segment = new Segment( id, segmentPath( id ), capacity );
+        segments.put( id, segment );
+        return segment;
+    }
+
+    private void replay( Segment segment, long now )
+    {
+        int offset = 0;
+        Record record;
+        while ( ( record = readRecord( segment, offset ) ) != null )
+        {
+            if ( record.kind == PUT && record.expiresAt > now )
+            {
+                Location location = record.location( segment.id, offset );
+                release( index.put( record.key, location ) );
+                segment.live.addAndGet( location.length );
+            }
+            else
+            {
+                release( index.remove( record.key ) );
+            }
+            offset += record.length;
+        }
+        segment.position = offset;
+    }
+
+    /**
+     * Reads the record at given offset.
+     *
+     * @return the record or {@code null} at the end of the segment or if the record is malformed
+     */
+    private Record readRecord( Segment segment, int offset )
+    {
+        if ( offset + 4 + MINIMUM_RECORD_LENGTH > segment.capacity )
+        {
+            return null;
+        }
+
+        ByteBuffer in = segment.buffer.duplicate();
+        in.position( offset );
+
+        int length = in.getInt();
+        int end = offset + 4 + length;
+        if ( length < MINIMUM_RECORD_LENGTH || end > segment.capacity )
+        {
+            return null;
+        }
+
+        int start = in.position();
+        byte kind = in.get();
+        long writtenAt = in.getLong();
+        long expiresAt = in.getLong();
+        int keyLength = in.getInt();
+        if ( keyLength < 0 || keyLength > length - MINIMUM_RECORD_LENGTH )
+        {
+            return null;
+        }
+
+        byte[] key = new byte[keyLength];
+        in.get( key );
+        int valueLength = in.getInt();
+        int valueOffset = in.position();
+        if ( valueLength < 0 || valueOffset + valueLength + 4 != end )
+        {
+            return null;
+        }
+
+        in.position( valueOffset + valueLength );
+        int checksum = in.getInt();
+
+        ByteBuffer region = segment.buffer.duplicate();
+        region.position( start ).limit( valueOffset + valueLength );
+        CRC32 crc = new CRC32();
+        crc.update( region );
+        if ( ( int ) crc.getValue() != checksum || ( kind != PUT && kind != REMOVE ) )
+        {
+            return null;
+        }
+
+        String keyString = new String( key, StandardCharsets.UTF_8 );
+        return new Record( kind, keyString, writtenAt, expiresAt, 4 + length, valueOffset, valueLength );
+    }
+
+    /**
+     * Appends the record to the active segment, rolls a new segment if the record does not fit.
+     * Must be called while holding the write lock.
+     */
+    private Location append( byte kind, String key, long writtenAt, long expiresAt, byte[] value )
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Provider has been already closed" );
+        }
+
+        byte[] keyBytes = key.getBytes( StandardCharsets.UTF_8 );
+        int valueLength = value == null ? 0 : value.length;
+        int length = MINIMUM_RECORD_LENGTH + keyBytes.length + valueLength;
+
+        Segment segment = active;
+        if ( segment.position + 4 + length > segment.capacity )
+        {
+            try
+            {
+                segment = createSegment( segment.id + 1, Math.max( segmentSize, 4 + length ) );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( "Segment file creation has failed", e );
+            }
+            active = segment;
+        }
+
+        ByteBuffer out = segment.buffer.duplicate();
+        out.position( segment.position );
+        out.putInt( length );
+
+        int start = out.position();
+        out.put( kind ).putLong( writtenAt ).putLong( expiresAt );
+        out.putInt( keyBytes.length ).put( keyBytes );
+        out.putInt( valueLength );
+
+        int valueOffset = out.position();
+        if ( value != null )
+        {
+            out.put( value );
+        }
+
+        ByteBuffer region = segment.buffer.duplicate();
+        region.position( start ).limit( out.position() );
+        CRC32 crc = new CRC32();
+        crc.update( region );
+        out.putInt( ( int ) crc.getValue() );
+
+        Location location = new Location( segment.id,
+                segment.position,
+                4 + length,
+                valueOffset,
+                valueLength,
+                writtenAt,
+                expiresAt );
+        segment.position += 4 + length;
+        return location;
+    }
+
+    private void write( String key, byte[] value, long writtenAt, long expiresAt )
+    {
+        synchronized ( writeLock )
+        {
+            Location location = append( PUT, key, writtenAt, expiresAt, value );
+            release( index.put( key, location ) );
+            segments.get( location.segment ).live.addAndGet( location.length );
+        }
+    }
+
+    private void delete( String key )
+    {
+        synchronized ( writeLock )
+        {
+            Location removed = index.remove( key );
+            if ( removed != null )
+            {
+                release( removed );
+                append( REMOVE, key, System.currentTimeMillis(), CacheEntry.NEVER, null );
+            }
+        }
+    }
+
+    private void release( Location location )
+    {
+        if ( location != null )
+        {
+            Segment segment = segments.get( location.segment );
+            if ( segment != null )
+            {
+                segment.live.addAndGet( -location.length );
+            }
+        }
+    }
+
+    /**
+     * Reads the value of the live record.
+     *
+     * @return the value and its location or {@code null} if none or expired
+     */
+    private Value read( String key )
+    {
+        // the second attempt once the record has been moved by compaction
+        for ( int attempt = 0; attempt < 2; attempt++ )
+        {
+            Location location = index.get( key );
+            if ( location == null )
+            {
+                return null;
+            }
+            if ( location.expiresAt <= System.currentTimeMillis() )
+            {
+                if ( index.remove( key, location ) )
+                {
+                    release( location );
+                }
+                return null;
+            }
+
+            Segment segment = segments.get( location.segment );
+            if ( segment != null )
+            {
+                byte[] data = new byte[location.valueLength];
+                ByteBuffer in = segment.buffer.duplicate();
+                in.position( location.valueOffset );
+                in.get( data );
+                return new Value( data, location );
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.of( type, identifier, parameters, locale ) );
+        return entry == null ? null : type.cast( entry.getValue() );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( instance, System.currentTimeMillis(), lastFor ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cached list is considered stale if it has been cached before the given last modified date.
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<T> list( @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Date lastModifiedDate )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.ofList( type, parameters, locale ) );
+        if ( entry == null || ( lastModifiedDate != null && entry.getWrittenAt() < lastModifiedDate.getTime() ) )
+        {
+            return null;
+        }
+        return ( List<T> ) entry.getValue();
+    }
+
+    @Override
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.ofList( type, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( list, System.currentTimeMillis(), lastFor ) );
+    }
+
+    @Override
+    public CacheEntry<?> getEntry( @Nonnull ResourceKey key )
+    {
+        String canonical = key.asString();
+        Value value = read( canonical );
+        if ( value == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            Object decoded = Codecs.decode( codec, key, value.data );
+            return CacheEntry.of( decoded, value.location.writtenAt, value.location.expiresAt );
+        }
+        catch ( IOException e )
+        {
+            // incompatible (outdated) serialized form, treated as a miss
+            delete( canonical );
+            return null;
+        }
+    }
+
+    @Override
+    public void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry )
+    {
+        byte[] data;
+        try
+        {
+            data = Codecs.encode( codec, key, entry.getValue() );
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalArgumentException( "Resource encoding has failed", e );
+        }
+        write( key.asString(), data, entry.getWrittenAt(), entry.getExpiresAt() );
+    }
+
+    @Override
+    public void invalidate( @Nonnull ResourceKey key )
+    {
+        delete( key.asString() );
+    }
+
+    /**
+     * The disk tier does not evict, entries are removed only once expired or invalidated.
+     *
+     * @param listener ignored
+     */
+    @Override
+    public void setEvictionListener( @Nullable EvictionListener listener )
+    {
+    }
+
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        // the key of the resource with no parameters and locale ends with two separators
+        String key = ResourceKey.of( type, identifier, null, null ).asString();
+        deleteIf( key.substring( 0, key.length() - 1 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The descendants share the leading identifier segments, see {@link ResourceKey#getSegments()},
+     * thus found by the range lookup of the key prefix and removed once its segments match.
+     */
+    @Override
+    public void invalidateSubtree( @Nonnull Identifier identifier )
+    {
+        // the key of the resource with no parameters and locale ends with two separators
+        String key = ResourceKey.of( type, identifier, null, null ).asString();
+        String prefix = key.substring( 0, key.length() - 2 );
+        List<String> subtree = segmentsOf( key );
+
+        for ( String candidate : index.tailMap( prefix ).keySet() )
+        {
+            if ( !candidate.startsWith( prefix ) )
+            {
+                break;
+            }
+
+            List<String> segments = segmentsOf( candidate );
+            if ( segments.size() >= subtree.size() && segments.subList( 0, subtree.size() ).equals( subtree ) )
+            {
+                delete( candidate );
+            }
+        }
+    }
+
+    /**
+     * Returns the escaped identifier segments of the key given by {@link ResourceKey#asString()}.
+     * The segments never contain the separators, as those are percent encoded.
+     */
+    private static List<String> segmentsOf( String key )
+    {
+        int from = key.indexOf( '|' ) + 1;
+        return Arrays.asList( key.substring( from, key.indexOf( '|', from ) ).split( ":", -1 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lists are keyed by the criteria only, thus all of the cached lists are evicted.
+     */
+    @Override
+    public void evictLists( @Nullable Identifier parent )
+    {
+        // the key of the list with no parameters and locale ends with two separators following the empty identifier
+        String key = ResourceKey.ofList( type, null, null ).asString();
+        deleteIf( key.substring( 0, key.length() - 1 ) );
+    }
+
+    private void deleteIf( String prefix )
+    {
+        for ( String key : index.tailMap( prefix ).keySet() )
+        {
+            if ( !key.startsWith( prefix ) )
+            {
+                break;
+            }
+            delete( key );
+        }
+    }
+
+    /**
+     * Removes the cached resource if any.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     */
+    public void invalidate( @Nonnull Identifier identifier,
+                            @Nullable Map<String, Object> parameters,
+                            @Nullable Locale locale )
+    {
+        delete( ResourceKey.of( type, identifier, parameters, locale ).asString() );
+    }
+
+    /**
+     * Removes the cached list if any.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     */
+    public void invalidateList( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        delete( ResourceKey.ofList( type, parameters, locale ).asString() );
+    }
+
+    /**
+     * Removes all of the cached resources and lists.
+     */
+    @Override
+    public void invalidateAll()
+    {
+        for ( String key : index.keySet() )
+        {
+            delete( key );
+        }
+    }
+
+    /**
+     * Returns the number of cached resources and lists, including not yet removed expired entries.
+     *
+     * @return the number of cached entries
+     */
+    public long size()
+    {
+        return index.size();
+    }
+
+    /**
+     * Compacts the sealed segments with the live records ratio below the threshold.
+     * The expired records are considered dead, even if not yet accessed.
+     * Run periodically in background, no need to call it explicitly.
+     *
+     * @throws IOException if deletion of a compacted segment file has failed
+     */
+    public void compact() throws IOException
+    {
+        // releases the expired records first, so they don't count as live while selecting the segments
+        long now = System.currentTimeMillis();
+        for ( Map.Entry<String, Location> entry : index.entrySet() )
+        {
+            Location location = entry.getValue();
+            if ( location.expiresAt <= now && index.remove( entry.getKey(), location ) )
+            {
+                release( location );
+            }
+        }
+
+        for ( Segment segment : segments.values() )
+        {
+            if ( segment != active && segment.live.get() <= segment.position * COMPACTION_THRESHOLD )
+            {
+                compact( segment );
+            }
+        }
+    }
+
+    private void compactQuietly()
+    {
+        try
+        {
+            compact();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // retried within the next compaction run
+        }
+    }
+
+    private void compact( Segment segment ) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        int offset = 0;
+        Record record;
+
+        while ( offset < segment.position && ( record = readRecord( segment, offset ) ) != null )
+        {
+            synchronized ( writeLock )
+            {
+                if ( closed )
+                {
+                    return;
+                }
+
+                if ( record.kind == REMOVE )
+                {
+                    // tombstone must survive as long as an older segment might contain the removed record
+                    if ( !index.containsKey( record.key ) && segments.firstKey() < segment.id )
+                    {
+                        append( REMOVE, record.key, record.writtenAt, CacheEntry.NEVER, null );
+                    }
+                }
+                else
+                {
+                    Location location = index.get( record.key );
+                    if ( location != null && location.segment == segment.id && location.offset == offset )
+                    {
+                        if ( location.expiresAt <= now )
+                        {
+                            index.remove( record.key );
+                            release( location );
+                        }
+                        else
+                        {
+                            byte[] data = new byte[record.valueLength];
+                            ByteBuffer in = segment.buffer.duplicate();
+                            in.position( record.valueOffset );
+                            in.get( data );
+
+                            Location moved = append( PUT, record.key, record.writtenAt, record.expiresAt, data );
+                            index.put( record.key, moved );
+                            release( location );
+                            segments.get( moved.segment ).live.addAndGet( moved.length );
+                        }
+                    }
+                }
+            }
+            offset += record.length;
+        }
+
+        synchronized ( writeLock )
+        {
+            segments.remove( segment.id );
+        }
+        segment.channel.close();
+        Files.deleteIfExists( segment.path );
+    }
+
+    /**
+     * Stops the background compaction and flushes the segment files to the disk.
+     *
+     * @throws IOException if closing of a segment file has failed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        compactor.shutdownNow();
+        synchronized ( writeLock )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+
+            for ( Segment segment : segments.values() )
+            {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+        }
+    }
+
+    /**
+     * The memory-mapped segment file.
+     */
+    private static final class Segment
+    {
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private final int capacity;
+
+        private final AtomicLong live = new AtomicLong();
+
+        /**
+         * The write position, guarded by the write lock.
+         */
+        private volatile int position;
+
+        Segment( int id, Path path, int capacity ) throws IOException
+        {
+            this.id = id;
+            this.path = path;
+            this.capacity = capacity;
+            this.channel = FileChannel.open( path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE );
+            this.buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, capacity );
+        }
+    }
+
+    /**
+     * The location of the live record.
+     */
+    private static final class Location
+    {
+        private final int segment;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int valueOffset;
+
+        private final int valueLength;
+
+        private final long writtenAt;
+
+        private final long expiresAt;
+
+        Location( int segment,
+                  int offset,
+                  int length,
+                  int valueOffset,
+                  int valueLength,
+                  long writtenAt,
+                  long expiresAt )
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The parsed record.
+     */
+    private static final class Record
+    {
+        private final byte kind;
+
+        private final String key;
+
+        private final long writtenAt;
+
+        private final long expiresAt;
+
+        private final int length;
+
+        private final int valueOffset;
+
+        private final int valueLength;
+
+        Record( byte kind, String key, long writtenAt, long expiresAt, int length, int valueOffset, int valueLength )
+        {
+            this.kind = kind;
+            this.key = key;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+            this.length = length;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+
+        Location location( int segment, int offset )
+        {
+            return new Location( segment, offset, length, valueOffset, valueLength, writtenAt, expiresAt );
+        }
+    }
+
+    /**
+     * The value read from the segment along with its location.
+     */
+    private static final class Value
+    {
+        private final byte[] data;
+
+        private final Location location;
+
+        Value( byte[] data, Location location )
+        {
+            this.data = data;
+            this.location = location;
+        }
+    }
+}
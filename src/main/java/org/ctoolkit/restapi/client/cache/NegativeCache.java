@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The bounded cache of the recently not found resources (404), keyed by the resource type
+ * and {@link Identifier#key()}, regardless of the parameters and locale.
+ * The entry is kept for a short time to live configured per resource type, see {@link #ttl(Class, long)}.
+ * Shared by the resource types, see {@link org.ctoolkit.restapi.client.adaptee.NegativeCachingGetExecutorAdaptee}.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public final class NegativeCache
+{
+    private final TinyLfuCache<String, Boolean> cache;
+
+    private final long defaultTtl;
+
+    private final Map<Class<?>, Long> ttls = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param maximumSize the maximum number of the not found resources being remembered
+     * @param defaultTtl  the default time in milliseconds how long to remember the not found resource,
+     *                    {@code 0} to disable negative caching unless configured for a type
+     */
+    public NegativeCache( long maximumSize, long defaultTtl )
+    {
+        if ( defaultTtl < 0 )
+        {
+            throw new IllegalArgumentException( "Time to live cannot be negative: " + defaultTtl );
+        }
+        this.cache = new TinyLfuCache<>( maximumSize, null, System::currentTimeMillis );
+        this.defaultTtl = defaultTtl;
+    }
+
+    private static String key( Class<?> type, Identifier identifier )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( identifier == null )
+        {
+            throw new NullPointerException( "Identifier cannot be null!" );
+        }
+        return type.getName() + '|' + identifier.key();
+    }
+
+    /**
+     * Configures the time to live of the not found resources of given type.
+     *
+     * @param type the type of the resource
+     * @param ttl  the time in milliseconds how long to remember the not found resource, {@code 0} to disable
+     * @return this cache to chain calls
+     */
+    public NegativeCache ttl( @Nonnull Class<?> type, long ttl )
+    {
+        if ( ttl < 0 )
+        {
+            throw new IllegalArgumentException( "Time to live cannot be negative: " + ttl );
+        }
+        ttls.put( type, ttl );
+        return this;
+    }
+
+    /**
+     * Returns the time to live of the not found resources of given type.
+     *
+     * @param type the type of the resource
+     * @return the time in milliseconds, {@code 0} if disabled
+     */
+    public long ttlOf( @Nonnull Class<?> type )
+    {
+        Long ttl = ttls.get( type );
+        return ttl == null ? defaultTtl : ttl;
+    }
+
+    /**
+     * Returns a boolean identification whether the resource has been recently not found.
+     *
+     * @param type       the type of the resource
+     * @param identifier the unique identifier of the resource
+     * @return true if recently not found
+     */
+    public boolean isNotFound( @Nonnull Class<?> type, @Nonnull Identifier identifier )
+    {
+        return cache.get( key( type, identifier ) ) != null;
+    }
+
+    /**
+     * Remembers the resource as not found for the time to live of its type.
+     *
+     * @param type       the type of the resource
+     * @param identifier the unique identifier of the resource
+     */
+    public void notFound( @Nonnull Class<?> type, @Nonnull Identifier identifier )
+    {
+        long ttl = ttlOf( type );
+        if ( ttl > 0 )
+        {
+            long expiresAt = CacheEntry.expiresAt( System.currentTimeMillis(), ttl );
+            cache.put( key( type, identifier ), Boolean.TRUE, 1, expiresAt );
+        }
+    }
+
+    /**
+     * Forgets the resource as not found, to be called once the resource has been created.
+     *
+     * @param type       the type of the resource
+     * @param identifier the unique identifier of the resource
+     */
+    public void invalidate( @Nonnull Class<?> type, @Nonnull Identifier identifier )
+    {
+        cache.remove( key( type, identifier ) );
+    }
+
+    /**
+     * Forgets all of the not found resources.
+     */
+    public void invalidateAll()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of lookups answered locally as not found.
+     *
+     * @return the hit count
+     */
+    public long hitCount()
+    {
+        return cache.hitCount();
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link LocalResourceProvider} and {@link LocalListResourceProvider} storing the serialized resources
+ * outside of the heap, in the direct memory slabs, thus not adding to the garbage collection pressure.
+ * The resource is deserialized by the {@link ResourceCodec} on each hit.
+ * <p>
+ * The memory is allocated in chunks of the size classes (growth factor 1.25) and never exceeds the maximum memory.
+ * The entries are evicted by the W-TinyLFU policy, see {@link InMemoryResourceProvider}.
+ * Once the memory cap has been reached, the entries are evicted to make room for the new one.
+ * A resource larger than the slab size is not cached, see {@link #rejectedCount()}.
+ * Serves as the second (off-heap) level of the {@link TieredResourceProvider}.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class OffHeapResourceProvider<T>
+        implements LocalResourceProvider<T>, LocalListResourceProvider<T>, CacheTier<T>
+{
+    /**
+     * The default size of the single slab in bytes (1 MB), the maximum size of the serialized resource.
+     */
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+    /**
+     * The default expected average size of the serialized resource in bytes (1 KB),
+     * used to estimate the number of entries the eviction policy is sized for.
+     */
+    public static final int DEFAULT_AVERAGE_SIZE = 1024;
+
+    private static final int MAXIMUM_EVICTIONS = 64;
+
+    private final Class<T> type;
+
+    private final ResourceCodec<T> codec;
+
+    private final SlabAllocator allocator;
+
+    private final TinyLfuCache<ResourceKey, SlabAllocator.Chunk> cache;
+
+    private final CachedKeyIndex keys;
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile EvictionListener evictionListener;
+
+    /**
+     * Creates the provider with default slab size.
+     *
+     * @param type          the type of the resource
+     * @param maximumMemory the hard cap of the off-heap memory in bytes
+     * @param codec         the codec to serialize the resources
+     */
+    public OffHeapResourceProvider( @Nonnull Class<T> type, long maximumMemory, @Nonnull ResourceCodec<T> codec )
+    {
+        this( type, maximumMemory, codec, ( int ) Math.min( DEFAULT_SLAB_SIZE, maximumMemory ) );
+    }
+
+    /**
+     * Creates the provider, the number of entries is estimated by {@link #DEFAULT_AVERAGE_SIZE}.
+     *
+     * @param type          the type of the resource
+     * @param maximumMemory the hard cap of the off-heap memory in bytes
+     * @param codec         the codec to serialize the resources
+     * @param slabSize      the size of the single slab in bytes, the maximum size of the serialized resource
+     */
+    public OffHeapResourceProvider( @Nonnull Class<T> type,
+                                    long maximumMemory,
+                                    @Nonnull ResourceCodec<T> codec,
+                                    int slabSize )
+    {
+        this( type, maximumMemory, codec, slabSize, Math.max( 1, maximumMemory / DEFAULT_AVERAGE_SIZE ) );
+    }
+
+    /**
+     * Creates the provider.
+     *
+     * @param type          the type of the resource
+     * @param maximumMemory the hard cap of the off-heap memory in bytes
+     * @param codec         the codec to serialize the resources
+     * @param slabSize      the size of the single slab in bytes, the maximum size of the serialized resource
+     * @param expectedSize  the expected maximum number of the cached entries, the on-heap frequency sketch
+     *                      of the eviction policy is sized by it rather than by the maximum memory
+     */
+    public OffHeapResourceProvider( @Nonnull Class<T> type,
+                                    long maximumMemory,
+                                    @Nonnull ResourceCodec<T> codec,
+                                    int slabSize,
+                                    long expectedSize )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( codec == null )
+        {
+            throw new NullPointerException( "Codec cannot be null!" );
+        }
+
+        this.type = type;
+        this.codec = codec;
+        this.allocator = new SlabAllocator( maximumMemory, slabSize );
+        this.cache = new TinyLfuCache<>( maximumMemory, expectedSize, this::onRemoval, System::currentTimeMillis );
+        this.keys = new CachedKeyIndex( cache );
+    }
+
+    private void onRemoval( ResourceKey key,
+                            SlabAllocator.Chunk chunk,
+                            long writtenAt,
+                            long expiresAt,
+                            RemovalListener.Cause cause )
+    {
+        keys.removed( key, cause );
+
+        EvictionListener listener = evictionListener;
+        if ( listener != null && cause == RemovalListener.Cause.SIZE )
+        {
+            Object value = decode( key, chunk );
+            if ( value != null )
+            {
+                listener.onEviction( key, CacheEntry.of( value, writtenAt, expiresAt ) );
+            }
+        }
+        allocator.release( chunk );
+    }
+
+    private Object decode( ResourceKey key, SlabAllocator.Chunk chunk )
+    {
+        byte[] data = chunk.read();
+        if ( data == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return Codecs.decode( codec, key, data );
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.of( type, identifier, parameters, locale ) );
+        return entry == null ? null : type.cast( entry.getValue() );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( instance, System.currentTimeMillis(), lastFor ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cached list is considered stale if it has been cached before the given last modified date.
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<T> list( @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Date lastModifiedDate )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.ofList( type, parameters, locale ) );
+        if ( entry == null || ( lastModifiedDate != null && entry.getWrittenAt() < lastModifiedDate.getTime() ) )
+        {
+            return null;
+        }
+        return ( List<T> ) entry.getValue();
+    }
+
+    @Override
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.ofList( type, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( list, System.currentTimeMillis(), lastFor ) );
+    }
+
+    @Override
+    public CacheEntry<?> getEntry( @Nonnull ResourceKey key )
+    {
+        TinyLfuCache.Node<ResourceKey, SlabAllocator.Chunk> node = cache.getNode( key );
+        if ( node == null )
+        {
+            return null;
+        }
+
+        Object value = decode( key, node.value );
+        if ( value == null )
+        {
+            // either released meanwhile or an incompatible (outdated) serialized form
+            cache.remove( key );
+            return null;
+        }
+        return CacheEntry.of( value, node.writtenAt, node.expiresAt );
+    }
+
+    @Override
+    public void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry )
+    {
+        byte[] data;
+        try
+        {
+            data = Codecs.encode( codec, key, entry.getValue() );
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalArgumentException( "Resource encoding has failed", e );
+        }
+
+        SlabAllocator.Chunk chunk = allocator.allocate( data );
+
+        // make room once the memory cap has been reached
+        boolean fits = data.length <= allocator.maximumChunkSize();
+        for ( int attempt = 0; chunk == null && fits && attempt < MAXIMUM_EVICTIONS && cache.evictOne(); attempt++ )
+        {
+            chunk = allocator.allocate( data );
+        }
+
+        if ( chunk == null )
+        {
+            // keep no outdated value
+            cache.remove( key );
+            rejected.increment();
+            return;
+        }
+        cache.put( key, chunk, chunk.weight(), entry.getWrittenAt(), entry.getExpiresAt() );
+        keys.added( key );
+    }
+
+    @Override
+    public void invalidate( @Nonnull ResourceKey key )
+    {
+        cache.remove( key );
+    }
+
+    @Override
+    public void setEvictionListener( @Nullable EvictionListener listener )
+    {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        for ( ResourceKey key : keys.get( identifier ) )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Proportional to the number of the removed resources.
+     */
+    @Override
+    public void invalidateSubtree( @Nonnull Identifier identifier )
+    {
+        for ( ResourceKey key : keys.subtree( identifier ) )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lists are keyed by the criteria only, thus all of the cached lists are evicted.
+     */
+    @Override
+    public void evictLists( @Nullable Identifier parent )
+    {
+        for ( ResourceKey key : keys.lists() )
+        {
+            cache.remove( key );
+        }
+    }
+
+    /**
+     * Removes the cached resource if any.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     */
+    public void invalidate( @Nonnull Identifier identifier,
+                            @Nullable Map<String, Object> parameters,
+                            @Nullable Locale locale )
+    {
+        cache.remove( ResourceKey.of( type, identifier, parameters, locale ) );
+    }
+
+    /**
+     * Removes the cached list if any.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     */
+    public void invalidateList( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        cache.remove( ResourceKey.ofList( type, parameters, locale ) );
+    }
+
+    /**
+     * Removes all of the cached resources and lists.
+     */
+    @Override
+    public void invalidateAll()
+    {
+        cache.clear();
+    }
+
+    /**
+     * Removes all of the expired resources, releasing its memory.
+     */
+    public void cleanUp()
+    {
+        cache.cleanUp();
+    }
+
+    /**
+     * Returns the number of cached resources and lists, including not yet removed expired entries.
+     *
+     * @return the estimated number of cached entries
+     */
+    public long size()
+    {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the size of the off-heap memory allocated so far, never exceeds the maximum memory.
+     *
+     * @return the allocated memory in bytes
+     */
+    public long allocatedMemory()
+    {
+        return allocator.allocatedMemory();
+    }
+
+    /**
+     * Returns the number of successful lookups.
+     *
+     * @return the hit count
+     */
+    public long hitCount()
+    {
+        return cache.hitCount();
+    }
+
+    /**
+     * Returns the number of lookups with no cached resource found.
+     *
+     * @return the miss count
+     */
+    public long missCount()
+    {
+        return cache.missCount();
+    }
+
+    /**
+     * Returns the number of resources not cached as too large or not fitting in to the memory even after eviction.
+     *
+     * @return the rejected count
+     */
+    public long rejectedCount()
+    {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.RequestContext;
+import org.ctoolkit.restapi.client.RequestExecutors;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.Validators;
+import org.ctoolkit.restapi.client.adaptee.ConditionalResult;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link LocalResourceProvider} decorating a {@link CacheTier} with the stale-while-revalidate
+ * and the refresh-ahead policy.
+ * <p>
+ * The {@code lastFor} of the {@link #persist(Object, Identifier, Map, Locale, Long)} is the soft time to live,
+ * the entry is cached for the additional {@code staleFor} period (the hard time to live).
+ * Once the soft time to live has elapsed, the stale resource is still returned immediately
+ * and refreshed asynchronously by the {@link ResourceLoader}, at most one refresh per entry at a time.
+ * Optionally, with the refresh-ahead a resource being accessed is refreshed even before its soft expiration,
+ * once the given fraction of its soft time to live has elapsed, thus a hot resource never expires.
+ * <p>
+ * A resource not found while refreshing is invalidated. Any other refresh failure keeps the stale resource
+ * until its hard expiration.
+ * <p>
+ * Once the resource has been cached along with its {@link Validators}, the refresh is a revalidation,
+ * see {@link ResourceLoader#conditional(org.ctoolkit.restapi.client.adaptee.ConditionalGetExecutorAdaptee)}.
+ * The resource not modified is kept with renewed time to live, without transferring the payload.
+ * The validators are kept only by the tiers able to carry them, see {@link CacheEntry#getValidators()}.
+ * <p>
+ * The refresh result is dropped once the refreshed entry has meanwhile been replaced or removed
+ * through this provider, thus a refresh never undoes the invalidation or the persist made through this provider,
+ * even if made within the same millisecond.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class RefreshingResourceProvider<T>
+        implements LocalResourceProvider<T>
+{
+    private static final int STRIPES = 64;
+
+    private final Class<T> type;
+
+    private final CacheTier<T> tier;
+
+    private final ResourceLoader<T> loader;
+
+    private final long staleFor;
+
+    private final Map<ResourceKey, Refresh> refreshing = new ConcurrentHashMap<>();
+
+    /**
+     * The monitors ordering the refresh result against the writes, striped by the identifier root.
+     */
+    private final Object[] locks = new Object[STRIPES];
+
+    /**
+     * The sequence of the writes made through this provider.
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * The sequence number of the latest write per stripe.
+     */
+    private final AtomicLongArray written = new AtomicLongArray( STRIPES );
+
+    private final LongAdder staleHits = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder notModified = new LongAdder();
+
+    private volatile double refreshAhead;
+
+    private volatile Executor executor = RequestExecutors.defaultExecutor();
+
+    /**
+     * Constructor.
+     *
+     * @param type     the type of the resource
+     * @param tier     the cache of the resources
+     * @param loader   the loader to refresh the resource
+     * @param staleFor the time in milliseconds how long to keep serving the resource once its soft TTL has elapsed
+     */
+    public RefreshingResourceProvider( @Nonnull Class<T> type,
+                                       @Nonnull CacheTier<T> tier,
+                                       @Nonnull ResourceLoader<T> loader,
+                                       long staleFor )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( tier == null )
+        {
+            throw new NullPointerException( "Cache tier cannot be null!" );
+        }
+        if ( loader == null )
+        {
+            throw new NullPointerException( "Loader cannot be null!" );
+        }
+        if ( staleFor < 0 )
+        {
+            throw new IllegalArgumentException( "Stale period cannot be negative: " + staleFor );
+        }
+
+        this.type = type;
+        this.tier = tier;
+        this.loader = loader;
+        this.staleFor = staleFor;
+
+        for ( int stripe = 0; stripe < STRIPES; stripe++ )
+        {
+            locks[stripe] = new Object();
+        }
+    }
+
+    private static int stripe( ResourceKey key )
+    {
+        int hash = key.getSegments().get( 0 ).hashCode();
+        return ( hash ^ ( hash >>> 16 ) ) & ( STRIPES - 1 );
+    }
+
+    private Object lock( ResourceKey key )
+    {
+        return locks[stripe( key )];
+    }
+
+    /**
+     * Records the write of the given key, the refresh of the key in flight won't be committed.
+     * Must be called while holding the lock of the key.
+     */
+    private void written( ResourceKey key )
+    {
+        written.set( stripe( key ), writes.incrementAndGet() );
+        Refresh refresh = refreshing.get( key );
+        if ( refresh != null )
+        {
+            refresh.superseded = true;
+        }
+    }
+
+    /**
+     * Enables the refresh-ahead, the resource being accessed is refreshed once given fraction
+     * of its soft time to live has elapsed.
+     *
+     * @param fraction the fraction of the soft time to live, between 0 and 1 exclusive, 0 to disable
+     * @return this provider to chain calls
+     * @throws IllegalArgumentException thrown for fraction out of range
+     */
+    public RefreshingResourceProvider<T> refreshAhead( double fraction )
+    {
+        if ( fraction < 0 || fraction >= 1 )
+        {
+            throw new IllegalArgumentException( "Refresh ahead fraction must be in range [0, 1): " + fraction );
+        }
+        this.refreshAhead = fraction;
+        return this;
+    }
+
+    /**
+     * Set the executor to run the asynchronous refresh on, {@link RequestExecutors#defaultExecutor()} by default.
+     * The {@link RequestContext} of the caller is propagated to the refresh.
+     *
+     * @param executor the executor to run the refresh on
+     * @return this provider to chain calls
+     */
+    public RefreshingResourceProvider<T> executeOn( @Nonnull Executor executor )
+    {
+        if ( executor == null )
+        {
+            throw new NullPointerException( "Executor cannot be null!" );
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    private long softExpiresAt( CacheEntry<?> entry )
+    {
+        long expiresAt = entry.getExpiresAt();
+        return expiresAt == CacheEntry.NEVER ? CacheEntry.NEVER : expiresAt - staleFor;
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        long sequence = writes.get();
+        CacheEntry<?> entry = tier.getEntry( key );
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        long softExpiresAt = softExpiresAt( entry );
+        if ( softExpiresAt != CacheEntry.NEVER )
+        {
+            long now = System.currentTimeMillis();
+            long softTtl = softExpiresAt - entry.getWrittenAt();
+
+            if ( now >= softExpiresAt )
+            {
+                staleHits.increment();
+                refresh( key, identifier, parameters, locale, softTtl, entry, sequence );
+            }
+            else if ( refreshAhead > 0 && now >= entry.getWrittenAt() + ( long ) ( softTtl * refreshAhead ) )
+            {
+                refresh( key, identifier, parameters, locale, softTtl, entry, sequence );
+            }
+        }
+        return type.cast( entry.getValue() );
+    }
+
+    private void refresh( ResourceKey key,
+                          Identifier identifier,
+                          Map<String, Object> parameters,
+                          Locale locale,
+                          long softTtl,
+                          CacheEntry<?> cached,
+                          long sequence )
+    {
+        Refresh refresh = new Refresh();
+        synchronized ( lock( key ) )
+        {
+            // the entry might have been replaced since it has been read, or being refreshed already
+            if ( written.get( stripe( key ) ) > sequence || refreshing.putIfAbsent( key, refresh ) != null )
+            {
+                return;
+            }
+        }
+
+        Map<String, Object> copy = parameters == null ? null : new HashMap<>( parameters );
+        try
+        {
+            Runnable reload = () -> reload( key, identifier, copy, locale, softTtl, cached, refresh );
+            RequestContext.propagating( executor ).execute( reload );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            refreshing.remove( key, refresh );
+            failures.increment();
+        }
+    }
+
+    private void reload( ResourceKey key,
+                         Identifier identifier,
+                         Map<String, Object> parameters,
+                         Locale locale,
+                         long softTtl,
+                         CacheEntry<?> cached,
+                         Refresh refresh )
+    {
+        try
+        {
+            Validators validators = cached.getValidators();
+            ConditionalResult<T> result = loader.revalidate( identifier, validators, parameters, locale );
+            if ( result == null )
+            {
+                commit( key, refresh, null );
+            }
+            else if ( result.isNotModified() )
+            {
+                Validators current = result.getValidators() == null ? validators : result.getValidators();
+                commit( key, refresh, entry( type.cast( cached.getValue() ), softTtl ).withValidators( current ) );
+                notModified.increment();
+            }
+            else
+            {
+                commit( key, refresh, entry( result.getValue(), softTtl ).withValidators( result.getValidators() ) );
+            }
+            refreshes.increment();
+        }
+        catch ( NotFoundException e )
+        {
+            commit( key, refresh, null );
+            refreshes.increment();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            failures.increment();
+        }
+        finally
+        {
+            refreshing.remove( key, refresh );
+        }
+    }
+
+    /**
+     * Replaces the refreshed entry by the refresh result, only if the entry has not been written meanwhile.
+     *
+     * @param key     the key of the entry
+     * @param refresh the refresh in flight
+     * @param updated the refresh result, {@code null} to remove the entry
+     */
+    private void commit( ResourceKey key, Refresh refresh, @Nullable CacheEntry<?> updated )
+    {
+        synchronized ( lock( key ) )
+        {
+            if ( refresh.superseded )
+            {
+                return;
+            }
+            written( key );
+            if ( updated == null )
+            {
+                tier.invalidate( key );
+            }
+            else
+            {
+                tier.putEntry( key, updated );
+            }
+        }
+    }
+
+    private CacheEntry<T> entry( T resource, @Nullable Long lastFor )
+    {
+        long now = System.currentTimeMillis();
+        Long hardTtl = lastFor == null ? null : lastFor + staleFor;
+        return CacheEntry.lastFor( resource, now, hardTtl );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        persist( instance, identifier, parameters, locale, lastFor, null );
+    }
+
+    /**
+     * Persists the resource along with its validators, to be revalidated once its soft time to live has elapsed.
+     *
+     * @param instance   the resource instance to be cached
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     * @param lastFor    the soft time to live in milliseconds, {@code null} for undefined
+     * @param validators the validators of the resource as returned by the remote server
+     */
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor,
+                         @Nullable Validators validators )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        CacheEntry<T> entry = entry( instance, lastFor ).withValidators( validators );
+        synchronized ( lock( key ) )
+        {
+            written( key );
+            tier.putEntry( key, entry );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Evicted once the tier implements the {@link LocalResourceProvider}.
+     */
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        if ( tier instanceof LocalResourceProvider )
+        {
+            ResourceKey key = ResourceKey.of( type, identifier, null, null );
+            synchronized ( lock( key ) )
+            {
+                written( key );
+                // all of the variants of the resource are evicted
+                for ( Map.Entry<ResourceKey, Refresh> next : refreshing.entrySet() )
+                {
+                    if ( next.getKey().getSegments().equals( key.getSegments() ) )
+                    {
+                        next.getValue().superseded = true;
+                    }
+                }
+                ( ( LocalResourceProvider<?> ) tier ).evict( identifier );
+            }
+        }
+    }
+
+    /**
+     * Removes the cached resource if any.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     */
+    public void invalidate( @Nonnull Identifier identifier,
+                            @Nullable Map<String, Object> parameters,
+                            @Nullable Locale locale )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        synchronized ( lock( key ) )
+        {
+            written( key );
+            tier.invalidate( key );
+        }
+    }
+
+    /**
+     * Returns the number of stale resources returned, once its soft time to live has elapsed.
+     *
+     * @return the stale hit count
+     */
+    public long staleHitCount()
+    {
+        return staleHits.sum();
+    }
+
+    /**
+     * Returns the number of completed refreshes.
+     *
+     * @return the refresh count
+     */
+    public long refreshCount()
+    {
+        return refreshes.sum();
+    }
+
+    /**
+     * Returns the number of refreshes revalidated as not modified, included in the refresh count.
+     *
+     * @return the not modified count
+     */
+    public long notModifiedCount()
+    {
+        return notModified.sum();
+    }
+
+    /**
+     * Returns the number of failed refreshes.
+     *
+     * @return the refresh failure count
+     */
+    public long refreshFailureCount()
+    {
+        return failures.sum();
+    }
+
+    /**
+     * The refresh in flight, guarded by the lock of its key.
+     */
+    private static class Refresh
+    {
+        /**
+         * True once the refreshed entry has been written meanwhile, thus the refresh result must be dropped.
+         */
+        private boolean superseded;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The listener notified once a cache entry has been removed. Notified outside of any cache lock.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+@FunctionalInterface
+interface RemovalListener<K, V>
+{
+    /**
+     * Notifies the listener that a removal occurred.
+     *
+     * @param key       the key of the removed entry
+     * @param value     the value of the removed entry
+     * @param writtenAt the time the entry has been written at in milliseconds since epoch
+     * @param expiresAt the expiration time of the entry in milliseconds since epoch
+     * @param cause     the reason of the removal
+     */
+    void onRemoval( @Nonnull K key, @Nonnull V value, long writtenAt, long expiresAt, @Nonnull Cause cause );
+
+    enum Cause
+    {
+        /**
+         * Removed explicitly by invalidation.
+         */
+        EXPLICIT,
+
+        /**
+         * Replaced by a new value.
+         */
+        REPLACED,
+
+        /**
+         * Removed once expired.
+         */
+        EXPIRED,
+
+        /**
+         * Evicted to keep the cache within its maximum size (weight).
+         */
+        SIZE
+    }
+}
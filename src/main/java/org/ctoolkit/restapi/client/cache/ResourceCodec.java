@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * The codec to serialize the resource in to the bytes and back, used by the cache tiers
+ * storing the resources outside of the heap, see {@link MappedFileResourceProvider}.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public interface ResourceCodec<T>
+{
+    /**
+     * Returns the codec based on the Java serialization, the resource must implement {@link java.io.Serializable}.
+     *
+     * @param type the type of the resource
+     * @return the Java serialization codec
+     */
+    static <T> ResourceCodec<T> serializable( @Nonnull Class<T> type )
+    {
+        return new SerializableCodec<>( type );
+    }
+
+    /**
+     * Serializes the resource.
+     *
+     * @param resource the resource to be serialized
+     * @return the serialized form of the resource
+     * @throws IOException if serialization has failed
+     */
+    byte[] encode( @Nonnull T resource ) throws IOException;
+
+    /**
+     * Deserializes the resource.
+     *
+     * @param data the serialized form of the resource
+     * @return the resource instance
+     * @throws IOException if deserialization has failed
+     */
+    T decode( @Nonnull byte[] data ) throws IOException;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.Validators;
+import org.ctoolkit.restapi.client.adaptee.ConditionalGetExecutorAdaptee;
+import org.ctoolkit.restapi.client.adaptee.ConditionalResult;
+import org.ctoolkit.restapi.client.adaptee.GetExecutorAdaptee;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The loader of a single resource by a remote call, used to refresh the cached resources,
+ * see {@link RefreshingResourceProvider}.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+@FunctionalInterface
+public interface ResourceLoader<T>
+{
+    /**
+     * Creates the loader backed by the get adaptee, applicable once the model type is the resource type.
+     *
+     * @param adaptee the get adaptee
+     * @return the newly created loader
+     */
+    static <T> ResourceLoader<T> of( @Nonnull GetExecutorAdaptee<T> adaptee )
+    {
+        return ( identifier, parameters, locale ) ->
+                adaptee.executeGet( adaptee.prepareGet( identifier ), parameters, locale );
+    }
+
+    /**
+     * Creates the loader backed by the conditional get adaptee, the cached resource is revalidated
+     * by the conditional request.
+     *
+     * @param adaptee the conditional get adaptee
+     * @return the newly created loader
+     */
+    static <T> ResourceLoader<T> conditional( @Nonnull ConditionalGetExecutorAdaptee<T> adaptee )
+    {
+        return new ResourceLoader<T>()
+        {
+            @Override
+            public T load( @Nonnull Identifier identifier,
+                           @Nullable Map<String, Object> parameters,
+                           @Nullable Locale locale )
+                    throws IOException
+            {
+                return adaptee.executeGet( adaptee.prepareGet( identifier ), parameters, locale );
+            }
+
+            @Override
+            public ConditionalResult<T> revalidate( @Nonnull Identifier identifier,
+                                                    @Nullable Validators validators,
+                                                    @Nullable Map<String, Object> parameters,
+                                                    @Nullable Locale locale )
+                    throws IOException
+            {
+                Object request = adaptee.prepareGet( identifier );
+                return adaptee.executeConditionalGet( request, validators, parameters, locale );
+            }
+        };
+    }
+
+    /**
+     * Loads the resource.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to prefer in results if applicable
+     * @return the resource instance, {@code null} if not found
+     * @throws IOException might be thrown during remote call execution
+     */
+    T load( @Nonnull Identifier identifier, @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+            throws IOException;
+
+    /**
+     * Revalidates the cached resource. Unless overridden, the resource is fully loaded.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param validators the validators of the cached resource, {@code null} if none
+     * @param parameters the optional map of parameters, configuration, and credential
+     * @param locale     the optional language the client has configured to prefer in results if applicable
+     * @return the modified resource or the not modified signal, {@code null} if not found
+     * @throws IOException might be thrown during remote call execution
+     */
+    default ConditionalResult<T> revalidate( @Nonnull Identifier identifier,
+                                             @Nullable Validators validators,
+                                             @Nullable Map<String, Object> parameters,
+                                             @Nullable Locale locale )
+            throws IOException
+    {
+        T resource = load( identifier, parameters, locale );
+        return resource == null ? null : ConditionalResult.modified( resource, null );
+    }
+}
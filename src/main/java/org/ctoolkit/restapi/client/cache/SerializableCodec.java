@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * The {@link ResourceCodec} based on the Java serialization.
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class SerializableCodec<T>
+        implements ResourceCodec<T>
+{
+    private final Class<T> type;
+
+    SerializableCodec( @Nonnull Class<T> type )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode( @Nonnull T resource ) throws IOException
+    {
+        if ( !( resource instanceof Serializable ) )
+        {
+            throw new IOException( "Resource is not serializable: " + resource.getClass().getName() );
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+        {
+            out.writeObject( resource );
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public T decode( @Nonnull byte[] data ) throws IOException
+    {
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( data ) ) )
+        {
+            return type.cast( in.readObject() );
+        }
+        catch ( ClassNotFoundException | ClassCastException e )
+        {
+            throw new IOException( "Resource deserialization has failed", e );
+        }
+    }
+}
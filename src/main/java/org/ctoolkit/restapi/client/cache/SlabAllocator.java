@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The allocator of the off-heap memory chunks carved out of the direct {@link ByteBuffer} slabs,
+ * bound by the hard memory cap. Each slab is formatted to the chunks of a single size class once needed
+ * and returned to the pool of the free slabs once all of its chunks have been released,
+ * thus the memory is rebalanced among the size classes.
+ * <p>
+ * A released chunk might be reused immediately, a {@link Chunk} reference kept by a reader becomes stale
+ * and its {@link Chunk#read()} returns {@code null}.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class SlabAllocator
+{
+    private static final int MINIMUM_CHUNK_SIZE = 64;
+
+    private final int slabSize;
+
+    private final int maximumSlabs;
+
+    private final int[] sizeClasses;
+
+    private final List<Deque<Slab>> available;
+
+    private final Deque<Slab> free = new ArrayDeque<>();
+
+    private int allocatedSlabs;
+
+    /**
+     * Constructor.
+     *
+     * @param maximumMemory the hard cap of the allocated off-heap memory in bytes
+     * @param slabSize      the size of the single slab, the largest chunk
+     */
+    SlabAllocator( long maximumMemory, int slabSize )
+    {
+        if ( slabSize < MINIMUM_CHUNK_SIZE )
+        {
+            throw new IllegalArgumentException( "Slab size must be at least " + MINIMUM_CHUNK_SIZE + ": " + slabSize );
+        }
+        if ( maximumMemory < slabSize )
+        {
+            throw new IllegalArgumentException( "Maximum memory must be at least slab size: " + maximumMemory );
+        }
+
+        this.slabSize = slabSize;
+        this.maximumSlabs = ( int ) Math.min( Integer.MAX_VALUE, maximumMemory / slabSize );
+
+        // growth factor 1.25 aligned to 8 bytes, as the internal fragmentation is bound by 25%
+        List<Integer> sizes = new ArrayList<>();
+        int size = MINIMUM_CHUNK_SIZE;
+        while ( size < slabSize )
+        {
+            sizes.add( size );
+            size = ( ( size + size / 4 ) + 7 ) & ~7;
+        }
+        sizes.add( slabSize );
+
+        this.sizeClasses = new int[sizes.size()];
+        this.available = new ArrayList<>( sizes.size() );
+        for ( int index = 0; index < sizeClasses.length; index++ )
+        {
+            sizeClasses[index] = sizes.get( index );
+            available.add( new ArrayDeque<>() );
+        }
+    }
+
+    /**
+     * Returns the capacity of the largest chunk, the maximum length of the data.
+     *
+     * @return the maximum chunk capacity
+     */
+    int maximumChunkSize()
+    {
+        return slabSize;
+    }
+
+    /**
+     * Returns the size of the off-heap memory allocated by the slabs.
+     *
+     * @return the allocated memory in bytes
+     */
+    synchronized long allocatedMemory()
+    {
+        return ( long ) allocatedSlabs * slabSize;
+    }
+
+    /**
+     * Allocates the chunk and copies the data in to it.
+     *
+     * @param data the data to be stored
+     * @return the chunk or {@code null} if the data is too large or the memory cap has been reached
+     */
+    Chunk allocate( byte[] data )
+    {
+        if ( data.length > slabSize )
+        {
+            return null;
+        }
+
+        int sizeClass = Arrays.binarySearch( sizeClasses, data.length );
+        if ( sizeClass < 0 )
+        {
+            sizeClass = -sizeClass - 1;
+        }
+
+        Chunk chunk;
+        synchronized ( this )
+        {
+            Deque<Slab> slabs = available.get( sizeClass );
+            Slab slab = slabs.peekFirst();
+            if ( slab == null )
+            {
+                slab = free.pollFirst();
+                if ( slab == null && allocatedSlabs < maximumSlabs )
+                {
+                    slab = new Slab( ByteBuffer.allocateDirect( slabSize ) );
+                    allocatedSlabs++;
+                }
+                if ( slab == null )
+                {
+                    return null;
+                }
+                slab.format( sizeClass, sizeClasses[sizeClass] );
+                slabs.addFirst( slab );
+            }
+
+            chunk = slab.take( data.length );
+            if ( slab.top == 0 )
+            {
+                slabs.pollFirst();
+            }
+        }
+
+        // the chunk is not yet published, no other thread can access it
+        ByteBuffer out = chunk.slab.buffer.duplicate();
+        out.position( chunk.offset );
+        out.put( data );
+        return chunk;
+    }
+
+    /**
+     * Releases the chunk, the chunk might be reused immediately.
+     *
+     * @param chunk the chunk to be released
+     */
+    void release( Chunk chunk )
+    {
+        Slab slab = chunk.slab;
+        synchronized ( this )
+        {
+            slab.lock.writeLock().lock();
+            try
+            {
+                if ( !chunk.isValid() )
+                {
+                    return;
+                }
+                slab.generations[chunk.index]++;
+            }
+            finally
+            {
+                slab.lock.writeLock().unlock();
+            }
+
+            Deque<Slab> slabs = available.get( slab.sizeClass );
+            if ( slab.top == 0 )
+            {
+                slabs.addFirst( slab );
+            }
+            slab.free[slab.top++] = chunk.index;
+
+            if ( slab.top == slab.free.length )
+            {
+                slabs.remove( slab );
+                slab.epoch++;
+                free.addFirst( slab );
+            }
+        }
+    }
+
+    /**
+     * The allocated chunk of the slab.
+     */
+    static final class Chunk
+    {
+        private final Slab slab;
+
+        private final int index;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int epoch;
+
+        private final int generation;
+
+        private final int weight;
+
+        private Chunk( Slab slab, int index, int offset, int length, int epoch, int generation, int weight )
+        {
+            this.slab = slab;
+            this.index = index;
+            this.offset = offset;
+            this.length = length;
+            this.epoch = epoch;
+            this.generation = generation;
+            this.weight = weight;
+        }
+
+        /**
+         * Returns the share of the slab memory occupied by the chunk, including the unused tail of the slab.
+         * The sum of the weights of all chunks of the slab equals to the slab size.
+         *
+         * @return the chunk weight in bytes
+         */
+        int weight()
+        {
+            return weight;
+        }
+
+        private boolean isValid()
+        {
+            return slab.epoch == epoch && slab.generations[index] == generation;
+        }
+
+        /**
+         * Copies the data out of the chunk.
+         *
+         * @return the data or {@code null} if the chunk has been released meanwhile
+         */
+        byte[] read()
+        {
+            slab.lock.readLock().lock();
+            try
+            {
+                if ( !isValid() )
+                {
+                    return null;
+                }
+                byte[] data = new byte[length];
+                ByteBuffer in = slab.buffer.duplicate();
+                in.position( offset );
+                in.get( data );
+                return data;
+            }
+            finally
+            {
+                slab.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The direct memory slab formatted to the chunks of a single size class.
+     * The free chunks are guarded by the allocator monitor, the generations by the slab lock.
+     */
+    private static final class Slab
+    {
+        private final ByteBuffer buffer;
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private int sizeClass;
+
+        private int chunkSize;
+
+        private int[] free;
+
+        private int top;
+
+        private int[] generations;
+
+        private volatile int epoch;
+
+        Slab( ByteBuffer buffer )
+        {
+            this.buffer = buffer;
+        }
+
+        void format( int sizeClass, int chunkSize )
+        {
+            this.sizeClass = sizeClass;
+            this.chunkSize = chunkSize;
+
+            int count = buffer.capacity() / chunkSize;
+            this.free = new int[count];
+            for ( int index = 0; index < count; index++ )
+            {
+                free[index] = count - 1 - index;
+            }
+            this.top = count;
+
+            lock.writeLock().lock();
+            try
+            {
+                this.generations = new int[count];
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Chunk take( int length )
+        {
+            int index = free[--top];
+            int weight = ( buffer.capacity() + free.length - 1 ) / free.length;
+            return new Chunk( this, index, index * chunkSize, length, epoch, generations[index], weight );
+        }
+    }
+}
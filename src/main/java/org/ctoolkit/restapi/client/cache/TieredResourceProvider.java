@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.provider.LocalListResourceProvider;
+import org.ctoolkit.restapi.client.provider.LocalResourceProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link LocalResourceProvider} and {@link LocalListResourceProvider} composed of several {@link CacheTier}s,
+ * ordered from the fastest and smallest to the slowest and largest one, for example
+ * {@link InMemoryResourceProvider}, {@link OffHeapResourceProvider} and {@link MappedFileResourceProvider}.
+ * <ul>
+ * <li>The lookup consults the tiers in order, the entry found in a lower tier is promoted to all upper tiers.</li>
+ * <li>The persist writes the entry through to all tiers.</li>
+ * <li>The entry evicted from a tier is demoted to the next one, unless the next tier already caches the key.</li>
+ * </ul>
+ * The entry keeps its original expiration time while moving among the tiers. An entry written before
+ * the latest invalidation of its identifier root is neither promoted nor demoted, thus a lookup or an eviction
+ * running concurrently with the invalidation never puts the invalidated entry back.
+ * <pre>{@code
+ *  TieredResourceProvider<MyResource> provider = TieredResourceProvider.of( MyResource.class,
+ *      new InMemoryResourceProvider<>( MyResource.class, 10_000 ),
+ *      new OffHeapResourceProvider<>( MyResource.class, 512 * 1024 * 1024, codec ),
+ *      new MappedFileResourceProvider<>( MyResource.class, directory, codec ) );
+ * }</pre>
+ *
+ * @param <T> the type of the resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class TieredResourceProvider<T>
+        implements LocalResourceProvider<T>, LocalListResourceProvider<T>, CacheTier<T>
+{
+    private static final int STRIPES = 256;
+
+    private final Class<T> type;
+
+    private final List<CacheTier<T>> tiers;
+
+    private final LongAdder[] hits;
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The time of the latest invalidation per stripe of the identifier roots.
+     */
+    private final AtomicLongArray invalidated = new AtomicLongArray( STRIPES );
+
+    /**
+     * Creates the provider composed of given tiers.
+     *
+     * @param type  the type of the resource
+     * @param tiers the tiers ordered from the first (fastest) to the last one
+     */
+    public TieredResourceProvider( @Nonnull Class<T> type, @Nonnull List<? extends CacheTier<T>> tiers )
+    {
+        if ( type == null )
+        {
+            throw new NullPointerException( "Resource type cannot be null!" );
+        }
+        if ( tiers == null )
+        {
+            throw new NullPointerException( "Tiers cannot be null!" );
+        }
+        if ( tiers.isEmpty() )
+        {
+            throw new IllegalArgumentException( "At least one tier is required" );
+        }
+
+        this.type = type;
+        this.tiers = Collections.unmodifiableList( new ArrayList<>( tiers ) );
+        this.hits = new LongAdder[tiers.size()];
+
+        for ( int level = 0; level < hits.length; level++ )
+        {
+            hits[level] = new LongAdder();
+            if ( level < hits.length - 1 )
+            {
+                CacheTier<T> next = this.tiers.get( level + 1 );
+                this.tiers.get( level ).setEvictionListener( ( key, entry ) -> demote( next, key, entry ) );
+            }
+        }
+    }
+
+    /**
+     * Creates the provider composed of given tiers.
+     *
+     * @param type  the type of the resource
+     * @param tiers the tiers ordered from the first (fastest) to the last one
+     * @param <T>   the type of the resource
+     * @return the newly created provider
+     */
+    @SafeVarargs
+    public static <T> TieredResourceProvider<T> of( @Nonnull Class<T> type, @Nonnull CacheTier<T>... tiers )
+    {
+        if ( tiers == null )
+        {
+            throw new NullPointerException( "Tiers cannot be null!" );
+        }
+
+        List<CacheTier<T>> list = new ArrayList<>( tiers.length );
+        for ( CacheTier<T> tier : tiers )
+        {
+            list.add( tier );
+        }
+        return new TieredResourceProvider<>( type, list );
+    }
+
+    private static int stripe( ResourceKey key )
+    {
+        List<String> segments = key.getSegments();
+        int hash = segments.isEmpty() ? 0 : segments.get( 0 ).hashCode();
+        return ( hash ^ ( hash >>> 16 ) ) & ( STRIPES - 1 );
+    }
+
+    /**
+     * Records the invalidation of the entries of given key, to be called before removing them from the tiers.
+     */
+    private void invalidated( ResourceKey key )
+    {
+        invalidated.accumulateAndGet( stripe( key ), System.currentTimeMillis(), Math::max );
+    }
+
+    /**
+     * Records the invalidation of all entries, to be called before removing them from the tiers.
+     */
+    private void invalidatedAll()
+    {
+        long now = System.currentTimeMillis();
+        for ( int stripe = 0; stripe < STRIPES; stripe++ )
+        {
+            invalidated.accumulateAndGet( stripe, now, Math::max );
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether the entry might have been invalidated since it has been written.
+     */
+    private boolean isInvalidated( ResourceKey key, CacheEntry<?> entry )
+    {
+        return entry.getWrittenAt() <= invalidated.get( stripe( key ) );
+    }
+
+    private void demote( CacheTier<T> next, ResourceKey key, CacheEntry<?> entry )
+    {
+        if ( entry.isExpired( System.currentTimeMillis() ) || isInvalidated( key, entry ) )
+        {
+            return;
+        }
+        // the write through copy (or a newer one) is already there
+        if ( next.getEntry( key ) != null )
+        {
+            return;
+        }
+
+        next.putEntry( key, entry );
+        // invalidated meanwhile, the invalidation might have missed the demoted copy
+        if ( isInvalidated( key, entry ) )
+        {
+            next.invalidate( key );
+        }
+    }
+
+    private void promote( ResourceKey key, CacheEntry<?> entry, int level )
+    {
+        if ( isInvalidated( key, entry ) )
+        {
+            return;
+        }
+
+        for ( int upper = 0; upper < level; upper++ )
+        {
+            tiers.get( upper ).putEntry( key, entry );
+        }
+        // invalidated meanwhile, the invalidation might have missed the promoted copies
+        if ( isInvalidated( key, entry ) )
+        {
+            for ( int upper = 0; upper < level; upper++ )
+            {
+                tiers.get( upper ).invalidate( key );
+            }
+        }
+    }
+
+    @Override
+    public T get( @Nonnull Identifier identifier,
+                  @Nullable Map<String, Object> parameters,
+                  @Nullable Locale locale )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.of( type, identifier, parameters, locale ) );
+        return entry == null ? null : type.cast( entry.getValue() );
+    }
+
+    @Override
+    public void persist( @Nonnull T instance,
+                         @Nonnull Identifier identifier,
+                         @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.of( type, identifier, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( instance, System.currentTimeMillis(), lastFor ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cached list is considered stale if it has been cached before the given last modified date.
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<T> list( @Nullable Map<String, Object> parameters,
+                         @Nullable Locale locale,
+                         @Nullable Date lastModifiedDate )
+    {
+        CacheEntry<?> entry = getEntry( ResourceKey.ofList( type, parameters, locale ) );
+        if ( entry == null || ( lastModifiedDate != null && entry.getWrittenAt() < lastModifiedDate.getTime() ) )
+        {
+            return null;
+        }
+        return ( List<T> ) entry.getValue();
+    }
+
+    @Override
+    public void persistList( @Nonnull List<T> list,
+                             @Nullable Map<String, Object> parameters,
+                             @Nullable Locale locale,
+                             @Nullable Long lastFor )
+    {
+        ResourceKey key = ResourceKey.ofList( type, parameters, locale );
+        putEntry( key, CacheEntry.lastFor( list, System.currentTimeMillis(), lastFor ) );
+    }
+
+    @Override
+    public CacheEntry<?> getEntry( @Nonnull ResourceKey key )
+    {
+        for ( int level = 0; level < tiers.size(); level++ )
+        {
+            CacheEntry<?> entry = tiers.get( level ).getEntry( key );
+            if ( entry != null )
+            {
+                hits[level].increment();
+                promote( key, entry, level );
+                return entry;
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry )
+    {
+        for ( CacheTier<T> tier : tiers )
+        {
+            tier.putEntry( key, entry );
+        }
+    }
+
+    @Override
+    public void invalidate( @Nonnull ResourceKey key )
+    {
+        invalidated( key );
+        for ( CacheTier<T> tier : tiers )
+        {
+            tier.invalidate( key );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Evicted from all tiers implementing the {@link LocalResourceProvider}.
+     */
+    @Override
+    public void evict( @Nonnull Identifier identifier )
+    {
+        invalidated( ResourceKey.of( type, identifier, null, null ) );
+        for ( CacheTier<T> tier : tiers )
+        {
+            if ( tier instanceof LocalResourceProvider )
+            {
+                ( ( LocalResourceProvider<?> ) tier ).evict( identifier );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removed from all tiers, thus the copies of the lower tiers are not promoted back.
+     */
+    @Override
+    public void invalidateSubtree( @Nonnull Identifier identifier )
+    {
+        // the subtree shares the root segment, thus the stripe as well
+        invalidated( ResourceKey.of( type, identifier, null, null ) );
+        for ( CacheTier<T> tier : tiers )
+        {
+            tier.invalidateSubtree( identifier );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Evicted from all tiers implementing the {@link LocalListResourceProvider}.
+     */
+    @Override
+    public void evictLists( @Nullable Identifier parent )
+    {
+        invalidated( ResourceKey.ofList( type, null, null ) );
+        for ( CacheTier<T> tier : tiers )
+        {
+            if ( tier instanceof LocalListResourceProvider )
+            {
+                ( ( LocalListResourceProvider<?> ) tier ).evictLists( parent );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Evicted from all tiers implementing the {@link LocalListResourceProvider}.
+     */
+    @Override
+    public void evictDeleted( @Nonnull Identifier identifier )
+    {
+        invalidated( ResourceKey.ofList( type, null, null ) );
+        for ( CacheTier<T> tier : tiers )
+        {
+            if ( tier instanceof LocalListResourceProvider )
+            {
+                ( ( LocalListResourceProvider<?> ) tier ).evictDeleted( identifier );
+            }
+        }
+    }
+
+    /**
+     * Removes the cached resource from all tiers.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     * @param parameters the optional resource parameters
+     * @param locale     the language of the resource
+     */
+    public void invalidate( @Nonnull Identifier identifier,
+                            @Nullable Map<String, Object> parameters,
+                            @Nullable Locale locale )
+    {
+        invalidate( ResourceKey.of( type, identifier, parameters, locale ) );
+    }
+
+    /**
+     * Removes the cached list from all tiers.
+     *
+     * @param parameters the optional resource parameters (list criteria)
+     * @param locale     the language of the resources
+     */
+    public void invalidateList( @Nullable Map<String, Object> parameters, @Nullable Locale locale )
+    {
+        invalidate( ResourceKey.ofList( type, parameters, locale ) );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        invalidatedAll();
+        for ( CacheTier<T> tier : tiers )
+        {
+            tier.invalidateAll();
+        }
+    }
+
+    /**
+     * Sets the listener notified once an entry has been evicted from the last tier, thus from the provider.
+     * The entries evicted from the other tiers are not reported, as those are demoted to the next tier
+     * (or already cached there) and the listeners of the other tiers are reserved for the demotion.
+     *
+     * @param listener the listener, {@code null} to remove
+     */
+    @Override
+    public void setEvictionListener( @Nullable EvictionListener listener )
+    {
+        tiers.get( tiers.size() - 1 ).setEvictionListener( listener );
+    }
+
+    /**
+     * Returns the tiers ordered from the first (fastest) to the last one.
+     *
+     * @return the unmodifiable list of tiers
+     */
+    public List<CacheTier<T>> getTiers()
+    {
+        return tiers;
+    }
+
+    /**
+     * Returns the number of lookups served by given tier.
+     *
+     * @param level the zero based index of the tier
+     * @return the hit count of the tier
+     */
+    public long hitCount( int level )
+    {
+        return hits[level].sum();
+    }
+
+    /**
+     * Returns the number of lookups not served by any of the tiers.
+     *
+     * @return the miss count
+     */
+    public long missCount()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the total number of lookups.
+     *
+     * @return the request count
+     */
+    public long requestCount()
+    {
+        long count = misses.sum();
+        for ( LongAdder hit : hits )
+        {
+            count += hit.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the ratio of the lookups served by given tier to all lookups.
+     *
+     * @param level the zero based index of the tier
+     * @return the hit rate of the tier, {@code 0} if no lookup yet
+     */
+    public double hitRate( int level )
+    {
+        long requests = requestCount();
+        return requests == 0 ? 0 : ( double ) hitCount( level ) / requests;
+    }
+
+    /**
+     * Returns the ratio of the lookups served by any of the tiers to all lookups.
+     *
+     * @return the overall hit rate, {@code 0} if no lookup yet
+     */
+    public double hitRate()
+    {
+        long requests = requestCount();
+        return requests == 0 ? 0 : ( double ) ( requests - misses.sum() ) / requests;
+    }
+}
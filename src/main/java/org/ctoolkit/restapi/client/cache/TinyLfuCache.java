@@ -0,0 +1,733 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The bounded, lock-striped cache with the W-TinyLFU admission and eviction policy.
+ * <p>
+ * Each segment (stripe) is split into a small admission window (LRU) and the main space,
+ * a segmented LRU of the probation and protected queues. An entry evicted from the window is admitted
+ * to the main space only if its estimated access frequency is higher than the frequency of the main space victim.
+ * Thus a scan of one-hit-wonders cannot flush the frequently used entries.
+ * <p>
+ * The expiration is evaluated lazily on access, expired entries might be removed eagerly by {@link #cleanUp()}.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+final class TinyLfuCache<K, V>
+{
+    static final long NEVER = CacheEntry.NEVER;
+
+    private static final int MAXIMUM_STRIPES = 16;
+
+    private static final int MINIMUM_STRIPE_WEIGHT = 256;
+
+    /**
+     * The maximum number of entries the frequency sketches are sized for, about 32MB of counters in total.
+     */
+    static final long MAXIMUM_EXPECTED_SIZE = 1 << 22;
+
+    private final Segment<K, V>[] segments;
+
+    private final long maximumWeight;
+
+    /**
+     * The total weight of all entries, the segments might exceed their share while holding a heavy entry.
+     */
+    private final AtomicLong weight = new AtomicLong();
+
+    private final RemovalListener<K, V> listener;
+
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final AtomicInteger evictionCursor = new AtomicInteger();
+
+    /**
+     * Constructor of the cache bound by the number of entries, each entry of weight one.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param listener    the optional listener notified once an entry has been removed
+     * @param clock       the current time in milliseconds since epoch
+     */
+    TinyLfuCache( long maximumSize,
+                  @Nullable RemovalListener<K, V> listener,
+                  @Nonnull LongSupplier clock )
+    {
+        this( maximumSize, maximumSize, listener, clock );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maximumWeight the maximum total weight of all entries
+     * @param expectedSize  the expected maximum number of entries to size the frequency sketches for,
+     *                      up to {@link #MAXIMUM_EXPECTED_SIZE}
+     * @param listener      the optional listener notified once an entry has been removed
+     * @param clock         the current time in milliseconds since epoch
+     */
+    @SuppressWarnings( "unchecked" )
+    TinyLfuCache( long maximumWeight,
+                  long expectedSize,
+                  @Nullable RemovalListener<K, V> listener,
+                  @Nonnull LongSupplier clock )
+    {
+        if ( maximumWeight <= 0 )
+        {
+            throw new IllegalArgumentException( "Maximum weight must be positive: " + maximumWeight );
+        }
+        if ( expectedSize <= 0 )
+        {
+            throw new IllegalArgumentException( "Expected size must be positive: " + expectedSize );
+        }
+
+        int stripes = ( int ) Math.min( MAXIMUM_STRIPES, Math.max( 1, maximumWeight / MINIMUM_STRIPE_WEIGHT ) );
+        stripes = Integer.highestOneBit( stripes );
+        long sketchSize = Math.min( expectedSize, MAXIMUM_EXPECTED_SIZE ) / stripes;
+
+        this.segments = ( Segment<K, V>[] ) new Segment<?, ?>[stripes];
+        for ( int index = 0; index < stripes; index++ )
+        {
+            long weight = maximumWeight / stripes + ( index < maximumWeight % stripes ? 1 : 0 );
+            segments[index] = new Segment<>( weight, sketchSize, this.weight );
+        }
+
+        this.maximumWeight = maximumWeight;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    private static int spread( int hash )
+    {
+        return ( hash ^ ( hash >>> 16 ) ) * 0x7feb352d;
+    }
+
+    private Segment<K, V> segmentFor( int hash )
+    {
+        return segments[( spread( hash ) >>> 16 ) & ( segments.length - 1 )];
+    }
+
+    /**
+     * Returns the value associated with the key if present and not expired.
+     *
+     * @param key the key of the entry
+     * @return the value or {@code null} if none
+     */
+    V get( @Nonnull K key )
+    {
+        Node<K, V> node = getNode( key );
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the entry associated with the key if present and not expired.
+     *
+     * @param key the key of the entry
+     * @return the snapshot of the entry or {@code null} if none
+     */
+    Node<K, V> getNode( @Nonnull K key )
+    {
+        int hash = key.hashCode();
+        Segment<K, V> segment = segmentFor( hash );
+        List<Node<K, V>> removed = null;
+        Node<K, V> found;
+
+        synchronized ( segment )
+        {
+            segment.sketch.increment( hash );
+            found = segment.map.get( key );
+            if ( found != null && found.expiresAt <= clock.getAsLong() )
+            {
+                segment.remove( found );
+                removed = new ArrayList<>( 1 );
+                removed.add( found );
+                found = null;
+            }
+            else if ( found != null )
+            {
+                segment.onHit( found );
+            }
+        }
+
+        if ( found == null )
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+        notify( removed, RemovalListener.Cause.EXPIRED );
+        return found;
+    }
+
+    /**
+     * Associates the value with the key, replacing the previous one if any.
+     *
+     * @param key       the key of the entry
+     * @param value     the value of the entry
+     * @param weight    the non negative weight of the entry
+     * @param expiresAt the expiration time in milliseconds since epoch, {@link #NEVER} to not expire
+     */
+    void put( @Nonnull K key, @Nonnull V value, int weight, long expiresAt )
+    {
+        put( key, value, weight, clock.getAsLong(), expiresAt );
+    }
+
+    /**
+     * Associates the value with the key, replacing the previous one if any.
+     * The entry heavier than the maximum weight of the cache is not admitted at all,
+     * it's reported as evicted right away while the previous value (if any) is removed.
+     * The entry heavier than the share of its segment is admitted, the entries of the other segments
+     * are evicted until the cache fits its maximum weight.
+     *
+     * @param key       the key of the entry
+     * @param value     the value of the entry
+     * @param weight    the non negative weight of the entry
+     * @param writtenAt the time the value has been originally written at in milliseconds since epoch
+     * @param expiresAt the expiration time in milliseconds since epoch, {@link #NEVER} to not expire
+     */
+    void put( @Nonnull K key, @Nonnull V value, int weight, long writtenAt, long expiresAt )
+    {
+        if ( weight < 0 )
+        {
+            throw new IllegalArgumentException( "Weight cannot be negative: " + weight );
+        }
+
+        int hash = key.hashCode();
+        Segment<K, V> segment = segmentFor( hash );
+        Node<K, V> node = new Node<>( key, value, weight, writtenAt, expiresAt );
+        Node<K, V> replaced;
+        List<Node<K, V>> evicted = new ArrayList<>();
+
+        synchronized ( segment )
+        {
+            segment.sketch.increment( hash );
+            if ( weight > maximumWeight )
+            {
+                // would flush the whole cache, while still not fitting in
+                replaced = segment.map.remove( key );
+                evicted.add( node );
+            }
+            else
+            {
+                replaced = segment.map.put( key, node );
+                segment.addToWindow( node );
+            }
+
+            if ( replaced != null )
+            {
+                segment.unlink( replaced );
+            }
+            segment.evict( evicted );
+        }
+
+        if ( replaced != null )
+        {
+            notify( replaced, RemovalListener.Cause.REPLACED );
+        }
+        evictions.add( evicted.size() );
+        notify( evicted, RemovalListener.Cause.SIZE );
+
+        // the segment holds the entry heavier than its share, make room in the other segments
+        boolean evicting = true;
+        while ( evicting && this.weight.get() > maximumWeight )
+        {
+            evicting = evictOne( segment );
+        }
+    }
+
+    /**
+     * Returns a boolean identification whether the cache contains the entry, including the expired one,
+     * with no effect on its access order, frequency and statistics.
+     *
+     * @param key the key of the entry
+     * @return true if the entry is present
+     */
+    boolean containsKey( @Nonnull K key )
+    {
+        Segment<K, V> segment = segmentFor( key.hashCode() );
+        synchronized ( segment )
+        {
+            return segment.map.containsKey( key );
+        }
+    }
+
+    /**
+     * Removes the entry associated with the key.
+     *
+     * @param key the key of the entry
+     * @return the removed value or {@code null} if none
+     */
+    V remove( @Nonnull K key )
+    {
+        Segment<K, V> segment = segmentFor( key.hashCode() );
+        Node<K, V> removed;
+
+        synchronized ( segment )
+        {
+            removed = segment.map.get( key );
+            if ( removed != null )
+            {
+                segment.remove( removed );
+            }
+        }
+
+        if ( removed == null )
+        {
+            return null;
+        }
+        notify( removed, RemovalListener.Cause.EXPLICIT );
+        return removed.value;
+    }
+
+    /**
+     * Evicts a single entry chosen by the eviction policy, regardless of the maximum weight.
+     * The segments take turns to release the external resources held by the entries evenly.
+     *
+     * @return true if an entry has been evicted, false if the cache is empty
+     */
+    boolean evictOne()
+    {
+        return evictOne( null );
+    }
+
+    private boolean evictOne( @Nullable Segment<K, V> excluded )
+    {
+        int start = evictionCursor.getAndIncrement();
+        for ( int index = 0; index < segments.length; index++ )
+        {
+            Segment<K, V> segment = segments[( start + index ) & ( segments.length - 1 )];
+            if ( segment == excluded )
+            {
+                continue;
+            }
+
+            Node<K, V> victim;
+            synchronized ( segment )
+            {
+                victim = segment.probation.tail != null ? segment.probation.tail
+                        : segment.protect.tail != null ? segment.protect.tail : segment.window.tail;
+                if ( victim != null )
+                {
+                    segment.remove( victim );
+                }
+            }
+
+            if ( victim != null )
+            {
+                evictions.increment();
+                notify( victim, RemovalListener.Cause.SIZE );
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes all of the entries.
+     */
+    void clear()
+    {
+        for ( Segment<K, V> segment : segments )
+        {
+            List<Node<K, V>> removed;
+            synchronized ( segment )
+            {
+                removed = new ArrayList<>( segment.map.values() );
+                segment.clear();
+            }
+            notify( removed, RemovalListener.Cause.EXPLICIT );
+        }
+    }
+
+    /**
+     * Removes all of the expired entries.
+     */
+    void cleanUp()
+    {
+        long now = clock.getAsLong();
+        for ( Segment<K, V> segment : segments )
+        {
+            List<Node<K, V>> removed = new ArrayList<>();
+            synchronized ( segment )
+            {
+                Iterator<Node<K, V>> iterator = segment.map.values().iterator();
+                while ( iterator.hasNext() )
+                {
+                    Node<K, V> node = iterator.next();
+                    if ( node.expiresAt <= now )
+                    {
+                        iterator.remove();
+                        segment.unlink( node );
+                        removed.add( node );
+                    }
+                }
+            }
+            notify( removed, RemovalListener.Cause.EXPIRED );
+        }
+    }
+
+    private void notify( List<Node<K, V>> nodes, RemovalListener.Cause cause )
+    {
+        if ( nodes != null )
+        {
+            for ( Node<K, V> node : nodes )
+            {
+                notify( node, cause );
+            }
+        }
+    }
+
+    private void notify( Node<K, V> node, RemovalListener.Cause cause )
+    {
+        if ( listener != null )
+        {
+            listener.onRemoval( node.key, node.value, node.writtenAt, node.expiresAt, cause );
+        }
+    }
+
+    /**
+     * Returns the number of entries, including not yet removed expired entries.
+     *
+     * @return the estimated number of entries
+     */
+    long estimatedSize()
+    {
+        long size = 0;
+        for ( Segment<K, V> segment : segments )
+        {
+            synchronized ( segment )
+            {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the total weight of all entries.
+     *
+     * @return the weighted size
+     */
+    long weightedSize()
+    {
+        long weight = 0;
+        for ( Segment<K, V> segment : segments )
+        {
+            synchronized ( segment )
+            {
+                weight += segment.totalWeight();
+            }
+        }
+        return weight;
+    }
+
+    long hitCount()
+    {
+        return hits.sum();
+    }
+
+    long missCount()
+    {
+        return misses.sum();
+    }
+
+    long evictionCount()
+    {
+        return evictions.sum();
+    }
+
+    private enum Queue
+    {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * The cache entry, linked within one of the access ordered queues.
+     */
+    static final class Node<K, V>
+    {
+        final K key;
+
+        final V value;
+
+        final int weight;
+
+        final long writtenAt;
+
+        final long expiresAt;
+
+        private Queue queue;
+
+        private Node<K, V> previous;
+
+        private Node<K, V> next;
+
+        Node( K key, V value, int weight, long writtenAt, long expiresAt )
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * The access ordered queue, the head is the most recently used node.
+     */
+    private static final class AccessOrderQueue<K, V>
+    {
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        private long weight;
+
+        void addFirst( Node<K, V> node )
+        {
+            node.previous = null;
+            node.next = head;
+            if ( head == null )
+            {
+                tail = node;
+            }
+            else
+            {
+                head.previous = node;
+            }
+            head = node;
+            weight += node.weight;
+        }
+
+        void unlink( Node<K, V> node )
+        {
+            if ( node.previous == null )
+            {
+                head = node.next;
+            }
+            else
+            {
+                node.previous.next = node.next;
+            }
+
+            if ( node.next == null )
+            {
+                tail = node.previous;
+            }
+            else
+            {
+                node.next.previous = node.previous;
+            }
+
+            node.previous = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToFirst( Node<K, V> node )
+        {
+            if ( node != head )
+            {
+                unlink( node );
+                addFirst( node );
+            }
+        }
+
+        void clear()
+        {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+
+    /**
+     * The stripe of the cache guarded by its own monitor.
+     */
+    private static final class Segment<K, V>
+    {
+        private final Map<K, Node<K, V>> map = new HashMap<>();
+
+        private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+
+        private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+
+        private final AccessOrderQueue<K, V> protect = new AccessOrderQueue<>();
+
+        private final FrequencySketch sketch;
+
+        private final long maximumWeight;
+
+        private final long windowMaximum;
+
+        private final long protectedMaximum;
+
+        private final AtomicLong cacheWeight;
+
+        Segment( long maximumWeight, long expectedSize, AtomicLong cacheWeight )
+        {
+            this.maximumWeight = maximumWeight;
+            this.cacheWeight = cacheWeight;
+            this.windowMaximum = Math.max( 1, maximumWeight / 100 );
+            this.protectedMaximum = ( maximumWeight - windowMaximum ) * 80 / 100;
+            this.sketch = new FrequencySketch( expectedSize );
+        }
+
+        long totalWeight()
+        {
+            return window.weight + probation.weight + protect.weight;
+        }
+
+        private AccessOrderQueue<K, V> queueOf( Node<K, V> node )
+        {
+            switch ( node.queue )
+            {
+                case WINDOW:
+                    return window;
+                case PROBATION:
+                    return probation;
+                default:
+                    return protect;
+            }
+        }
+
+        void addToWindow( Node<K, V> node )
+        {
+            node.queue = Queue.WINDOW;
+            window.addFirst( node );
+            cacheWeight.addAndGet( node.weight );
+        }
+
+        void unlink( Node<K, V> node )
+        {
+            queueOf( node ).unlink( node );
+            cacheWeight.addAndGet( -node.weight );
+        }
+
+        void remove( Node<K, V> node )
+        {
+            map.remove( node.key );
+            unlink( node );
+        }
+
+        void clear()
+        {
+            cacheWeight.addAndGet( -totalWeight() );
+            map.clear();
+            window.clear();
+            probation.clear();
+            protect.clear();
+        }
+
+        void onHit( Node<K, V> node )
+        {
+            switch ( node.queue )
+            {
+                case WINDOW:
+                {
+                    window.moveToFirst( node );
+                    break;
+                }
+                case PROBATION:
+                {
+                    probation.unlink( node );
+                    node.queue = Queue.PROTECTED;
+                    protect.addFirst( node );
+
+                    while ( protect.weight > protectedMaximum && protect.tail != node )
+                    {
+                        Node<K, V> demoted = protect.tail;
+                        protect.unlink( demoted );
+                        demoted.queue = Queue.PROBATION;
+                        probation.addFirst( demoted );
+                    }
+                    break;
+                }
+                default:
+                {
+                    protect.moveToFirst( node );
+                }
+            }
+        }
+
+        /**
+         * Moves the window overflow to the probation queue and evicts either the candidates
+         * or the probation victims until the segment fits its maximum weight.
+         * The most recent entry is kept, even if heavier than the segment maximum.
+         */
+        void evict( List<Node<K, V>> evicted )
+        {
+            // the window keeps at least the most recent entry, even if heavier than the window maximum
+            while ( window.weight > windowMaximum && window.tail != window.head )
+            {
+                Node<K, V> candidate = window.tail;
+                window.unlink( candidate );
+                candidate.queue = Queue.PROBATION;
+                probation.addFirst( candidate );
+            }
+
+            while ( totalWeight() > maximumWeight && map.size() > 1 )
+            {
+                Node<K, V> candidate = probation.head;
+                Node<K, V> victim = probation.tail;
+                Node<K, V> loser;
+
+                if ( victim == null )
+                {
+                    loser = protect.tail != null ? protect.tail : window.tail;
+                }
+                else if ( candidate == victim )
+                {
+                    loser = candidate;
+                }
+                else
+                {
+                    int candidateFrequency = sketch.frequency( candidate.key.hashCode() );
+                    int victimFrequency = sketch.frequency( victim.key.hashCode() );
+                    loser = candidateFrequency > victimFrequency ? victim : candidate;
+                }
+
+                remove( loser );
+                evicted.add( loser );
+            }
+        }
+    }
+}
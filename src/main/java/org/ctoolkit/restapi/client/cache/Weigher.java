@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Calculates the weight of the cache entry, the total weight of all entries is bound by the maximum weight.
+ *
+ * @param <T> the type of the cached resource
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+@FunctionalInterface
+public interface Weigher<T>
+{
+    /**
+     * Returns the weight of the given resource, it's calculated once the resource is being cached.
+     *
+     * @param resource the resource to weigh
+     * @return the non negative weight of the resource
+     */
+    int weigh( @Nonnull T resource );
+}
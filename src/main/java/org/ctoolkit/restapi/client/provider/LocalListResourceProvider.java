@@ -18,6 +18,8 @@
 
 package org.ctoolkit.restapi.client.provider;
 
+import org.ctoolkit.restapi.client.Identifier;
+
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Date;
@@ -33,6 +35,9 @@ import java.util.Map;
  *  bind( new TypeLiteral<LocalListResourceProvider<MyResource>>(){} )
  *      .to( MyListResourceProvider.class );
  * }</pre>
+ * Derive the cache key by {@link org.ctoolkit.restapi.client.ResourceKey#ofList(Class, Map, Locale)},
+ * the canonical key with sorted parameters, independent of the map iteration order.
+ * See {@link org.ctoolkit.restapi.client.cache.InMemoryResourceProvider} for the bounded in-memory implementation.
  *
  * @param <T> the type of the resource within list
  * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
@@ -69,4 +74,30 @@ public interface LocalListResourceProvider<T>
                       @Nullable Map<String, Object> parameters,
                       @Nullable Locale locale,
                       @Nullable Long lastFor );
+
+    /**
+     * Optionally, evict the cached lists that might contain the resource inserted, modified or deleted remotely,
+     * the lists scoped by the given parent and the lists with no parent. Processed in the same thread.
+     * The lists keyed by the criteria only (with no parent) are expected to be evicted all.
+     *
+     * @param parent the unique identifier of the parent resource as an owner of the mutated resource if any
+     */
+    default void evictLists( @Nullable Identifier parent )
+    {
+    }
+
+    /**
+     * Optionally, evict the cached lists that might contain the resource deleted remotely.
+     * Unlike the inserted or modified resource, the deleted one might never be reported by the remote list again,
+     * thus the implementation keeping the lists in sync incrementally is expected to remove it from the lists
+     * or to drop the lists. Evicts the lists by {@link #evictLists(Identifier)} by default.
+     * Processed in the same thread.
+     *
+     * @param identifier the unique identifier of the deleted resource
+     */
+    default void evictDeleted( @Nonnull Identifier identifier )
+    {
+        Identifier leaf = identifier.leaf();
+        evictLists( leaf.hasParent() ? leaf.getParent() : null );
+    }
 }
@@ -33,6 +33,9 @@ import java.util.Map;
  *  bind( new TypeLiteral<LocalResourceProvider<MyResource>>(){} )
  *      .to( MyResourceProvider.class );
  * }</pre>
+ * Derive the cache key by {@link org.ctoolkit.restapi.client.ResourceKey#of(Class, Identifier, Map, Locale)},
+ * the canonical key with sorted parameters, independent of the map iteration order.
+ * See {@link org.ctoolkit.restapi.client.cache.InMemoryResourceProvider} for the bounded in-memory implementation.
  *
  * @param <T> the type of the resource
  * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
@@ -71,4 +74,14 @@ public interface LocalResourceProvider<T>
                   @Nullable Map<String, Object> parameters,
                   @Nullable Locale locale,
                   @Nullable Long lastFor );
+
+    /**
+     * Optionally, evict all of the cached variants (any parameters and locale) of the resource,
+     * once it has been modified or deleted remotely. Processed in the same thread.
+     *
+     * @param identifier the unique (root) identifier of the resource
+     */
+    default void evict( @Nonnull Identifier identifier )
+    {
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchExecutorAdaptee;
+import org.ctoolkit.restapi.client.adaptee.BatchOperation;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link FanOutBatchRequest} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class FanOutBatchRequestTest
+{
+    @Test
+    public void resultsInOrderWithFailure()
+    {
+        NotFoundException notFound = new NotFoundException();
+        RestFacade facade = facade( call -> {
+            if ( call.startsWith( "update" ) )
+            {
+                throw notFound;
+            }
+            return call;
+        } );
+
+        List<BatchResult<Object>> results = new FanOutBatchRequest( facade )
+                .insert( "a", new Identifier( 1L ) )
+                .update( "b", new Identifier( 2L ) )
+                .delete( String.class, new Identifier( 3L ) )
+                .parallelism( 2 )
+                .finish();
+
+        assertEquals( results.size(), 3 );
+        assertEquals( results.get( 0 ).get(), "insert a " + new Identifier( 1L ) );
+        assertFalse( results.get( 1 ).isSuccess() );
+        assertSame( results.get( 1 ).getFailure(), notFound );
+        assertEquals( results.get( 2 ).get(), "delete " + new Identifier( 3L ) );
+    }
+
+    @Test
+    public void unexpectedFailurePropagates()
+    {
+        IllegalStateException failure = new IllegalStateException();
+        RestFacade facade = facade( call -> {
+            throw failure;
+        } );
+
+        try
+        {
+            new FanOutBatchRequest( facade ).insert( "a" ).finish();
+            fail( "IllegalStateException expected" );
+        }
+        catch ( IllegalStateException e )
+        {
+            assertSame( e, failure );
+        }
+    }
+
+    @Test
+    public void batchedByAdaptee()
+    {
+        StubBatchAdaptee adaptee = new StubBatchAdaptee();
+        RestFacade facade = facade( call -> call );
+
+        List<BatchResult<Object>> results = BatchRequest
+                .batched( facade, type -> type == String.class ? adaptee : null )
+                .insert( "a" )
+                .insert( 1 )
+                .update( "b", new Identifier( 2L ) )
+                .delete( String.class, new Identifier( 3L ) )
+                .parallelism( 1 )
+                .finish( Collections.emptyMap(), null );
+
+        assertEquals( adaptee.batches, Arrays.asList( 2, 1 ) );
+        assertEquals( results.size(), 4 );
+        assertEquals( results.get( 0 ).get(), "batch INSERT" );
+        assertEquals( results.get( 1 ).get(), "insert 1 null" );
+        assertEquals( results.get( 2 ).get(), "batch UPDATE" );
+        assertEquals( results.get( 3 ).get(), "batch DELETE" );
+    }
+
+    @Test
+    public void batchResultsSizeMismatch()
+    {
+        StubBatchAdaptee adaptee = new StubBatchAdaptee();
+        adaptee.drop = true;
+
+        List<BatchResult<Object>> results = BatchRequest
+                .batched( facade( call -> call ), type -> type == String.class ? adaptee : null )
+                .insert( "a" )
+                .insert( 1 )
+                .finish();
+
+        assertEquals( results.size(), 2 );
+        assertTrue( results.get( 0 ).getFailure() instanceof RemoteServerErrorException );
+        assertTrue( results.get( 0 ).getFailure().getMessage().contains( "Expected 1 batch results" ) );
+        assertEquals( results.get( 1 ).get(), "insert 1 null" );
+    }
+
+    @Test
+    public void batchCallFailureReportedPerOperation()
+    {
+        StubBatchAdaptee adaptee = new StubBatchAdaptee();
+        adaptee.failure = new IOException( "connection reset" );
+
+        List<BatchResult<Object>> results = BatchRequest
+                .batched( facade( call -> call ), type -> type == String.class ? adaptee : null )
+                .insert( "a" )
+                .insert( "b" )
+                .insert( "c" )
+                .insert( 1 )
+                .parallelism( 1 )
+                .finish();
+
+        // both batches have failed, the single call has been executed anyway
+        assertEquals( adaptee.batches, Arrays.asList( 2, 1 ) );
+        assertEquals( results.size(), 4 );
+        for ( int index = 0; index < 3; index++ )
+        {
+            HttpFailureException failure = results.get( index ).getFailure();
+            assertTrue( failure instanceof RemoteServerErrorException );
+            assertSame( failure.getCause(), adaptee.failure );
+        }
+        assertEquals( results.get( 3 ).get(), "insert 1 null" );
+    }
+
+    /**
+     * Creates the facade whose request describes the call it has been created by,
+     * for example <code>update b 2</code>, and finishes by the given remote function.
+     */
+    private static RestFacade facade( Function<String, Object> remote )
+    {
+        return proxy( RestFacade.class, "", remote );
+    }
+
+    private static <P> P proxy( Class<P> type, String call, Function<String, Object> remote )
+    {
+        Object proxy = Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[]{type}, ( p, m, args ) -> {
+            if ( "finish".equals( m.getName() ) && args != null && args.length == 2 )
+            {
+                return remote.apply( call );
+            }
+            if ( !m.getReturnType().isInterface() || m.getReturnType() == Map.class )
+            {
+                throw new UnsupportedOperationException( m.getName() );
+            }
+            StringBuilder next = new StringBuilder( call.isEmpty() ? m.getName() : call );
+            for ( int index = 0; args != null && index < args.length; index++ )
+            {
+                next.append( ' ' ).append( args[index] instanceof Class ? "" : args[index] );
+            }
+            return proxy( m.getReturnType(), next.toString().replace( "  ", " " ).trim(), remote );
+        } );
+        return type.cast( proxy );
+    }
+
+    private static class StubBatchAdaptee
+            implements BatchExecutorAdaptee<Object>
+    {
+        private final List<Integer> batches = new ArrayList<>();
+
+        private boolean drop;
+
+        private IOException failure;
+
+        @Override
+        public Object prepareBatch( @Nonnull List<BatchOperation<Object>> operations )
+        {
+            batches.add( operations.size() );
+            return operations;
+        }
+
+        @Override
+        public List<BatchResult<Object>> executeBatch( @Nonnull Object request,
+                                                       Map<String, Object> parameters,
+                                                       Locale locale )
+                throws IOException
+        {
+            if ( failure != null )
+            {
+                throw failure;
+            }
+            List<BatchResult<Object>> results = new ArrayList<>();
+            for ( Object operation : ( List<?> ) request )
+            {
+                results.add( BatchResult.success( "batch " + ( ( BatchOperation<?> ) operation ).getType() ) );
+            }
+            return drop ? Collections.emptyList() : results;
+        }
+
+        @Override
+        public int getMaxBatchSize()
+        {
+            return 2;
+        }
+    }
+}
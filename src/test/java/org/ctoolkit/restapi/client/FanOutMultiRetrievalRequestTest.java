@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.adaptee.BatchGetExecutorAdaptee;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link FanOutMultiRetrievalRequest} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class FanOutMultiRetrievalRequestTest
+{
+    private static final List<Identifier> IDENTIFIERS = Arrays.asList(
+            new Identifier( 1L ), new Identifier( 2L ), new Identifier( 3L ), new Identifier( 4L ) );
+
+    @Test
+    public void partialNotFound()
+    {
+        RestFacade facade = facade( identifier -> {
+            long id = identifier.getLong();
+            if ( id == 2L )
+            {
+                throw new NotFoundException();
+            }
+            return id == 3L ? null : "item-" + id;
+        } );
+
+        Map<Identifier, String> found = new FanOutMultiRetrievalRequest<>( facade, String.class, IDENTIFIERS )
+                .finish();
+
+        assertEquals( new ArrayList<>( found.keySet() ), Arrays.asList( IDENTIFIERS.get( 0 ), IDENTIFIERS.get( 3 ) ) );
+        assertEquals( found.get( IDENTIFIERS.get( 0 ) ), "item-1" );
+    }
+
+    @Test
+    public void requireAllFailsOnMissing()
+    {
+        RestFacade facade = facade( identifier -> identifier.getLong() == 3L ? null : "item" );
+
+        try
+        {
+            new FanOutMultiRetrievalRequest<>( facade, String.class, IDENTIFIERS ).requireAll().finish();
+            fail( "NotFoundException expected" );
+        }
+        catch ( NotFoundException e )
+        {
+            assertTrue( e.getMessage().contains( IDENTIFIERS.get( 2 ).toString() ) );
+        }
+    }
+
+    @Test
+    public void errorPropagation()
+    {
+        HttpFailureException failure = new HttpFailureException( 500 );
+        RestFacade facade = facade( identifier -> {
+            if ( identifier.getLong() == 2L )
+            {
+                throw failure;
+            }
+            return "item";
+        } );
+
+        try
+        {
+            new FanOutMultiRetrievalRequest<>( facade, String.class, IDENTIFIERS ).finish();
+            fail( "HttpFailureException expected" );
+        }
+        catch ( HttpFailureException e )
+        {
+            assertSame( e, failure );
+        }
+    }
+
+    @Test
+    public void parallelismBound()
+    {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+        RestFacade facade = facade( identifier -> {
+            max.accumulateAndGet( running.incrementAndGet(), Math::max );
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 5 ) );
+            running.decrementAndGet();
+            return "item";
+        } );
+
+        List<Identifier> identifiers = new ArrayList<>();
+        for ( long id = 0; id < 30; id++ )
+        {
+            identifiers.add( new Identifier( id ) );
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 10 );
+        try
+        {
+            Map<Identifier, String> found = new FanOutMultiRetrievalRequest<>( facade, String.class, identifiers )
+                    .parallelism( 3 )
+                    .executeOn( executor )
+                    .finish();
+
+            assertEquals( found.size(), 30 );
+            assertTrue( max.get() <= 3, "Max concurrent calls: " + max.get() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchedRespectsMaxBatchSize()
+    {
+        StubBatchAdaptee adaptee = new StubBatchAdaptee();
+        Map<Identifier, Integer> found = MultiRetrievalIdentification.batched( adaptee, String::length )
+                .identifiedBy( IDENTIFIERS )
+                .parallelism( 1 )
+                .finish( Collections.singletonMap( "q", "v" ), null );
+
+        assertEquals( adaptee.batches, Arrays.asList( 2, 2 ) );
+        assertEquals( found.size(), 3 );
+        assertEquals( found.get( IDENTIFIERS.get( 3 ) ), Integer.valueOf( "item-4".length() ) );
+    }
+
+    @Test
+    public void batchedFailure()
+    {
+        StubBatchAdaptee adaptee = new StubBatchAdaptee();
+        adaptee.failure = new IOException( "remote" );
+
+        try
+        {
+            MultiRetrievalIdentification.batched( adaptee, Function.identity() ).identifiedBy( IDENTIFIERS ).finish();
+            fail( "UncheckedIOException expected" );
+        }
+        catch ( UncheckedIOException e )
+        {
+            assertSame( e.getCause(), adaptee.failure );
+        }
+    }
+
+    private static RestFacade facade( Function<Identifier, String> remote )
+    {
+        ClassLoader loader = FanOutMultiRetrievalRequestTest.class.getClassLoader();
+        return ( RestFacade ) Proxy.newProxyInstance( loader, new Class<?>[]{RestFacade.class}, ( p, m, args ) -> {
+            if ( !"get".equals( m.getName() ) )
+            {
+                throw new UnsupportedOperationException( m.getName() );
+            }
+            return ( SingleRetrievalIdentification<?> ) Proxy.newProxyInstance(
+                    loader, new Class<?>[]{SingleRetrievalIdentification.class}, ( i, im, iArgs ) -> {
+                        Identifier identifier = ( Identifier ) iArgs[0];
+                        return Proxy.newProxyInstance( loader, new Class<?>[]{RetrievalRequest.class},
+                                ( r, rm, rArgs ) -> {
+                                    if ( !"finish".equals( rm.getName() ) || rArgs.length != 2 )
+                                    {
+                                        throw new UnsupportedOperationException( rm.getName() );
+                                    }
+                                    return remote.apply( identifier );
+                                } );
+                    } );
+        } );
+    }
+
+    private static class StubBatchAdaptee
+            implements BatchGetExecutorAdaptee<String>
+    {
+        private final List<Integer> batches = Collections.synchronizedList( new ArrayList<>() );
+
+        private IOException failure;
+
+        @Override
+        public Object prepareBatchGet( @Nonnull Collection<Identifier> identifiers )
+        {
+            batches.add( identifiers.size() );
+            return new ArrayList<>( identifiers );
+        }
+
+        @Override
+        public Map<Identifier, String> executeBatchGet( @Nonnull Object request,
+                                                        Map<String, Object> parameters,
+                                                        Locale locale )
+                throws IOException
+        {
+            if ( failure != null )
+            {
+                throw failure;
+            }
+            Map<Identifier, String> found = new HashMap<>();
+            for ( Object item : ( List<?> ) request )
+            {
+                Identifier identifier = ( Identifier ) item;
+                // the second resource does not exist
+                if ( identifier.getLong() != 2L )
+                {
+                    found.put( identifier, "item-" + identifier.getLong() );
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int getMaxBatchSize()
+        {
+            return 2;
+        }
+
+        @Override
+        public Object prepareGet( @Nonnull Identifier identifier )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String executeGet( @Nonnull Object request, Map<String, Object> parameters, Locale locale )
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -219,6 +219,22 @@ public class IdentifierTest
         assertEquals( identifier.leaf(), identifier.child().leaf() );
     }
 
+    @Test
+    public void identifierEqualsHashCodeChain()
+    {
+        Identifier first = new Identifier( "abc", "ghb" ).add( 40L ).controller( "control" );
+        Identifier second = new Identifier( "abc", "ghb" ).add( 40L ).controller( "control" );
+
+        assertEquals( first, second );
+        assertEquals( first.hashCode(), second.hashCode() );
+        assertEquals( first.leaf(), second.leaf() );
+        assertEquals( first.leaf().hashCode(), second.leaf().hashCode() );
+
+        assertNotEquals( first, second.leaf() );
+        assertNotEquals( first, new Identifier( "abc", "ghb" ).add( 40L ) );
+        assertNotEquals( first, new Identifier( "abc", "ghb" ).add( 41L ).controller( "control" ) );
+    }
+
     @Test
     public void isLong()
     {
@@ -299,4 +315,25 @@ public class IdentifierTest
         ids[1] = "";
         new Identifier( ids );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void compact()
+    {
+        Identifier identifier = new Identifier( "abc" ).controller( "accounts" ).add( 40L ).add( 9 ).controller( "x" );
+        CompactIdentifier compact = identifier.compact();
+
+        assertEquals( compact.key(), identifier.key() );
+        assertEquals( compact.segments(), identifier.segments() );
+        assertEquals( compact.hashCode(), identifier.hashCode() );
+        assertEquals( compact.length(), 3 );
+        assertEquals( compact.value( 1 ), 40L );
+
+        assertEquals( compact, new Identifier( "abc" ).controller( "accounts" ).add( 40L ).add( 9 ).controller( "x" )
+                .compact() );
+        assertNotEquals( compact, identifier.child().compact() );
+        assertEquals( compact.toIdentifier(), identifier );
+        assertEquals( identifier.child().compact().toIdentifier(), identifier.child() );
+        assertEquals( ResourceKey.of( String.class, compact, null, null ),
+                ResourceKey.of( String.class, identifier, null, null ) );
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.provider.TokenProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The in memory {@link ListRetrievalRequest} serving pages of the given list, counting the remote calls.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+class InMemoryListRetrievalRequest
+        implements ListRetrievalRequest<Integer>
+{
+    final AtomicInteger calls = new AtomicInteger();
+
+    private final List<Integer> items;
+
+    InMemoryListRetrievalRequest( int size )
+    {
+        items = new ArrayList<>( size );
+        for ( int index = 0; index < size; index++ )
+        {
+            items.add( index );
+        }
+    }
+
+    @Override
+    public List<Integer> finish( int start, int length )
+    {
+        calls.incrementAndGet();
+        if ( start >= items.size() )
+        {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>( items.subList( start, Math.min( items.size(), start + length ) ) );
+    }
+
+    @Override
+    public List<Integer> finish()
+    {
+        return finish( 0, items.size() );
+    }
+
+    @Override
+    public List<Integer> finish( @Nonnull RequestCredential credential )
+    {
+        return finish();
+    }
+
+    @Override
+    public List<Integer> finish( @Nullable Map<String, Object> criteria )
+    {
+        return finish();
+    }
+
+    @Override
+    public List<Integer> finish( @Nullable Locale locale )
+    {
+        return finish();
+    }
+
+    @Override
+    public List<Integer> finish( @Nullable Map<String, Object> criteria, @Nullable Locale locale )
+    {
+        return finish();
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> configWith( @Nonnull Properties properties )
+    {
+        return this;
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> forLang( @Nonnull Locale locale )
+    {
+        return this;
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> start( int start )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> length( int length )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> orderBy( @Nullable String property )
+    {
+        return this;
+    }
+
+    @Override
+    public ListRetrievalRequest<Integer> sortAscending( boolean ascending )
+    {
+        return this;
+    }
+
+    @Override
+    public <U> U underlying( Class<U> type )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Request<List<Integer>> add( @Nonnull String name, @Nonnull Object value )
+    {
+        return this;
+    }
+
+    @Override
+    public Request<List<Integer>> add( @Nonnull String name, @Nonnull String value )
+    {
+        return this;
+    }
+
+    @Override
+    public Request<List<Integer>> addHeader( @Nonnull String header, @Nonnull String value )
+    {
+        return this;
+    }
+
+    @Override
+    public Request<List<Integer>> onBehalfOf( @Nonnull Object of )
+    {
+        return this;
+    }
+
+    @Override
+    public AuthRequest<List<Integer>> authBy( @Nonnull String token )
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AuthRequest<List<Integer>> authBy( @Nonnull TokenProvider<?> provider )
+    {
+        throw new UnsupportedOperationException();
+    }
+}
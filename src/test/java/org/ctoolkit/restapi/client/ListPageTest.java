@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link ListPage} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ListPageTest
+{
+    @Test
+    public void nextPage()
+    {
+        ListPage<String> page = ListPage.of( Arrays.asList( "a", "b" ), "next" );
+
+        assertEquals( page.getItems(), Arrays.asList( "a", "b" ) );
+        assertEquals( page.getNextPageToken(), "next" );
+        assertTrue( page.hasNextPage() );
+    }
+
+    @Test
+    public void lastPage()
+    {
+        assertFalse( ListPage.of( Arrays.asList( "a" ), null ).hasNextPage() );
+
+        ListPage<String> empty = ListPage.of( null, "" );
+        assertTrue( empty.getItems().isEmpty() );
+        assertNull( empty.getNextPageToken() );
+        assertFalse( empty.hasNextPage() );
+    }
+
+    @Test( expectedExceptions = UnsupportedOperationException.class )
+    public void itemsUnmodifiable()
+    {
+        List<String> items = new ArrayList<>( Arrays.asList( "a", "b" ) );
+        ListPage.of( items, null ).getItems().add( "c" );
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link ListRetrievalRequest} default methods unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ListRetrievalRequestTest
+{
+    @Test
+    public void streamAllPages()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 25 );
+        List<Integer> all = request.stream( 10 ).collect( Collectors.toList() );
+
+        assertEquals( all.size(), 25 );
+        assertEquals( all.get( 24 ), Integer.valueOf( 24 ) );
+        // stops at the first short page
+        assertEquals( request.calls.get(), 3 );
+    }
+
+    @Test
+    public void finishPageTokens()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 25 );
+
+        ListPage<Integer> first = request.finishPage( null, 10 );
+        assertEquals( first.getItems().size(), 10 );
+        assertEquals( first.getNextPageToken(), "10" );
+
+        ListPage<Integer> second = request.finishPage( first.getNextPageToken(), 10 );
+        assertEquals( second.getItems().get( 0 ), Integer.valueOf( 10 ) );
+
+        ListPage<Integer> last = request.finishPage( second.getNextPageToken(), 10 );
+        assertEquals( last.getItems().size(), 5 );
+        assertFalse( last.hasNextPage() );
+    }
+
+    @Test
+    public void finishPageEmptyIsLast()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 20 );
+
+        ListPage<Integer> page = request.finishPage( "20", 10 );
+        assertTrue( page.getItems().isEmpty() );
+        assertFalse( page.hasNextPage() );
+    }
+
+    @Test( expectedExceptions = IllegalArgumentException.class )
+    public void finishPageUnknownToken()
+    {
+        new InMemoryListRetrievalRequest( 20 ).finishPage( "abc", 10 );
+    }
+
+    @Test
+    public void iteratorLazy()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 20 );
+        Iterator<Integer> iterator = request.iterator( 10 );
+        assertEquals( request.calls.get(), 0 );
+
+        for ( int index = 0; index < 10; index++ )
+        {
+            assertEquals( iterator.next(), Integer.valueOf( index ) );
+        }
+        assertEquals( request.calls.get(), 1 );
+
+        assertTrue( iterator.hasNext() );
+        assertEquals( request.calls.get(), 2 );
+    }
+
+    @Test
+    public void iteratorExactPages()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 20 );
+        Iterator<Integer> iterator = request.iterator( 10 );
+        int count = 0;
+        while ( iterator.hasNext() )
+        {
+            iterator.next();
+            count++;
+        }
+
+        assertEquals( count, 20 );
+        // the last empty page confirms the end
+        assertEquals( request.calls.get(), 3 );
+        assertFalse( iterator.hasNext() );
+    }
+
+    @Test
+    public void streamPrefetchingAllPages()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 95 );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            List<Integer> all = request.stream( 10, 3, executor ).collect( Collectors.toList() );
+
+            assertEquals( all.size(), 95 );
+            for ( int index = 0; index < all.size(); index++ )
+            {
+                assertEquals( all.get( index ), Integer.valueOf( index ) );
+            }
+            // no remote call once the short page has been reached
+            assertEquals( request.calls.get(), 10 );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void iteratorPrefetchingClosed()
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 100 );
+        CloseableIterator<Integer> iterator = request.iterator( 10, 2, Runnable::run );
+        assertEquals( iterator.next(), Integer.valueOf( 0 ) );
+        iterator.close();
+        int calls = request.calls.get();
+
+        // the rest of the current page is still served, without any further remote call
+        while ( iterator.hasNext() )
+        {
+            iterator.next();
+        }
+        assertEquals( request.calls.get(), calls );
+    }
+
+    @Test
+    public void shardedOrderedAndUnordered()
+    {
+        List<InMemoryListRetrievalRequest> supplied = Collections.synchronizedList( new ArrayList<>() );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            ShardedListRetrieval<Integer> retrieval = new ShardedListRetrieval<>( () -> {
+                // a fresh request for each shard, as the request instance is not expected to be used concurrently
+                InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 1003 );
+                supplied.add( request );
+                return request;
+            } )
+                    .shardSize( 50 )
+                    .parallelism( 4 )
+                    .executeOn( executor );
+
+            List<Integer> ordered = retrieval.stream( true ).collect( Collectors.toList() );
+            assertEquals( ordered.size(), 1003 );
+            for ( int index = 0; index < ordered.size(); index++ )
+            {
+                assertEquals( ordered.get( index ), Integer.valueOf( index ) );
+            }
+
+            List<Integer> unordered = new ArrayList<>( retrieval.total( 1000 ).finish() );
+            assertEquals( unordered.size(), 1003 );
+
+            unordered = retrieval.stream( false ).collect( Collectors.toList() );
+            Collections.sort( unordered );
+            assertEquals( unordered, ordered );
+
+            for ( InMemoryListRetrievalRequest request : supplied )
+            {
+                assertEquals( request.calls.get(), 1 );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void publisherDrivenByDemand() throws InterruptedException
+    {
+        InMemoryListRetrievalRequest request = new InMemoryListRetrievalRequest( 25 );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Integer> received = Collections.synchronizedList( new ArrayList<>() );
+        CountDownLatch completed = new CountDownLatch( 1 );
+        try
+        {
+            request.publisher( 10, executor ).subscribe( new Subscriber<Integer>()
+            {
+                private Subscription subscription;
+
+                @Override
+                public void onSubscribe( Subscription subscription )
+                {
+                    this.subscription = subscription;
+                    subscription.request( 3 );
+                }
+
+                @Override
+                public void onNext( Integer item )
+                {
+                    received.add( item );
+                    if ( received.size() % 3 == 0 )
+                    {
+                        subscription.request( 3 );
+                    }
+                }
+
+                @Override
+                public void onError( Throwable throwable )
+                {
+                }
+
+                @Override
+                public void onComplete()
+                {
+                    completed.countDown();
+                }
+            } );
+
+            assertTrue( completed.await( 5, TimeUnit.SECONDS ) );
+            assertEquals( received.size(), 25 );
+            assertEquals( received.get( 24 ), Integer.valueOf( 24 ) );
+            assertEquals( request.calls.get(), 3 );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
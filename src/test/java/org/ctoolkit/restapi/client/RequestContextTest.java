@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link RequestContext} and {@link RequestExecutors} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class RequestContextTest
+{
+    @Test
+    public void runRestoresPrevious() throws Exception
+    {
+        RequestContext outer = RequestContext.impersonating( "outer@company.com", "drive" );
+        RequestContext inner = RequestContext.impersonating( "inner@company.com", "drive" );
+
+        assertNull( RequestContext.current() );
+        outer.run( () -> {
+            assertSame( RequestContext.current(), outer );
+            inner.run( () -> assertSame( RequestContext.current(), inner ) );
+            assertSame( RequestContext.current(), outer );
+        } );
+        assertNull( RequestContext.current() );
+
+        try
+        {
+            inner.call( () -> {
+                throw new IllegalStateException();
+            } );
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+        assertNull( RequestContext.current() );
+    }
+
+    @Test
+    public void propagatingExecutor() throws Exception
+    {
+        ExecutorService pool = RequestExecutors.newVirtualThreadPerTaskExecutor();
+        try
+        {
+            Executor executor = RequestContext.propagating( pool );
+            RequestContext context = RequestContext.impersonating( "john.foo@company.com", "drive" );
+
+            AtomicReference<RequestContext> propagated = new AtomicReference<>();
+            AtomicReference<RequestContext> after = new AtomicReference<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+
+            context.run( () -> executor.execute( () -> {
+                propagated.set( RequestContext.current() );
+                done.complete( null );
+            } ) );
+            done.get( 5, TimeUnit.SECONDS );
+            assertSame( propagated.get(), context );
+
+            // the context is not leaked to the subsequent tasks of the same thread
+            CompletableFuture<Void> next = new CompletableFuture<>();
+            executor.execute( () -> {
+                after.set( RequestContext.current() );
+                next.complete( null );
+            } );
+            next.get( 5, TimeUnit.SECONDS );
+            assertNull( after.get() );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void fallbackThreadFactory() throws Exception
+    {
+        RequestExecutors.DaemonThreadFactory factory = new RequestExecutors.DaemonThreadFactory( "test-" );
+        Thread thread = factory.newThread( () -> {
+        } );
+
+        assertTrue( thread.isDaemon() );
+        assertEquals( thread.getName(), "test-1" );
+        assertEquals( factory.newThread( () -> {
+        } ).getName(), "test-2" );
+    }
+
+    @Test
+    public void virtualThreadExecutor() throws Exception
+    {
+        ExecutorService executor = RequestExecutors.newVirtualThreadPerTaskExecutor();
+        try
+        {
+            Thread thread = executor.submit( Thread::currentThread ).get( 5, TimeUnit.SECONDS );
+            if ( !RequestExecutors.isVirtualThreadSupported() )
+            {
+                assertTrue( thread.isDaemon() );
+                assertTrue( thread.getName().startsWith( "ctoolkit-facade-" ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.ctoolkit.restapi.client.provider.TokenProvider;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link Request#finishAsync()} family unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class RequestTest
+{
+    @Test
+    public void finishAsyncDelegatesToMatchingOverload()
+    {
+        Request<String> request = new StubRequest();
+        Map<String, Object> parameters = Collections.singletonMap( "q", "v" );
+
+        assertEquals( request.finishAsync().join(), "finish()" );
+        assertEquals( request.finishAsync( parameters ).join(), "finish(parameters)" );
+        assertEquals( request.finishAsync( Locale.ENGLISH ).join(), "finish(locale)" );
+        assertEquals( request.finishAsync( parameters, Locale.ENGLISH ).join(), "finish(parameters, locale)" );
+        assertEquals( request.finishAsync( parameters, null, Runnable::run ).join(), "finish(parameters, locale)" );
+    }
+
+    @Test
+    public void finishAsyncFailure()
+    {
+        Request<String> request = new StubRequest()
+        {
+            @Override
+            public String finish()
+            {
+                throw new NotFoundException();
+            }
+        };
+
+        try
+        {
+            request.finishAsync().join();
+            fail( "CompletionException expected" );
+        }
+        catch ( CompletionException e )
+        {
+            assertTrue( e.getCause() instanceof NotFoundException );
+        }
+    }
+
+    @Test
+    public void defaultExecutorIsDedicated()
+    {
+        assertNotSame( new StubRequest().asyncExecutor(), ForkJoinPool.commonPool() );
+        assertEquals( new StubRequest().asyncExecutor(), RequestExecutors.defaultExecutor() );
+    }
+
+    private static class StubRequest
+            implements Request<String>
+    {
+        @Override
+        public String finish()
+        {
+            return "finish()";
+        }
+
+        @Override
+        public String finish( RequestCredential credential )
+        {
+            return "finish(credential)";
+        }
+
+        @Override
+        public String finish( Map<String, Object> parameters )
+        {
+            return "finish(parameters)";
+        }
+
+        @Override
+        public String finish( Locale locale )
+        {
+            return "finish(locale)";
+        }
+
+        @Override
+        public String finish( Map<String, Object> parameters, Locale locale )
+        {
+            return "finish(parameters, locale)";
+        }
+
+        @Override
+        public Request<String> configWith( Properties properties )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Request<String> forLang( Locale locale )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Request<String> add( String name, Object value )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Request<String> add( String name, String value )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Request<String> addHeader( String header, String value )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Request<String> onBehalfOf( Object of )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AuthRequest<String> authBy( String token )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AuthRequest<String> authBy( TokenProvider<?> provider )
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link ResourceKey} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ResourceKeyTest
+{
+    @Test
+    public void parametersOrderIndependent()
+    {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put( "b", 2 );
+        first.put( "a", "x" );
+
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put( "a", "x" );
+        second.put( "b", 2 );
+
+        Identifier identifier = new Identifier( "a" ).add( 1L );
+        ResourceKey one = ResourceKey.of( String.class, identifier, first, Locale.ENGLISH );
+        ResourceKey two = ResourceKey.of( String.class, new Identifier( "a" ).add( 1L ), second, Locale.ENGLISH );
+
+        assertEquals( one, two );
+        assertEquals( one.hashCode(), two.hashCode() );
+        assertEquals( one.asString(), "java.lang.String|a:1|a=x&b=2|en" );
+    }
+
+    @Test
+    public void hashConsistentWithEquals()
+    {
+        Set<String> first = new LinkedHashSet<>( Arrays.asList( "x", "y", "z" ) );
+        Set<String> second = new LinkedHashSet<>( Arrays.asList( "z", "y", "x" ) );
+
+        ResourceKey one = ResourceKey.ofList( String.class, Collections.singletonMap( "ids", first ), null );
+        ResourceKey two = ResourceKey.ofList( String.class, Collections.singletonMap( "ids", second ), null );
+
+        assertEquals( one, two );
+        assertEquals( one.hashCode(), two.hashCode() );
+    }
+
+    @Test
+    public void nullParameterNameRejected()
+    {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put( null, "x" );
+        try
+        {
+            ResourceKey.ofList( String.class, parameters, null );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertTrue( e.getMessage().startsWith( "Parameter name cannot be null" ) );
+        }
+    }
+
+    @Test
+    public void listKey()
+    {
+        ResourceKey list = ResourceKey.ofList( String.class, null, null );
+        ResourceKey empty = ResourceKey.ofList( String.class, new HashMap<>(), null );
+
+        assertTrue( list.isList() );
+        assertEquals( list, empty );
+        assertEquals( list.asString(), "java.lang.String|||" );
+        assertFalse( ResourceKey.of( String.class, new Identifier( "a" ), null, null ).isList() );
+    }
+
+    @Test
+    public void reservedCharactersEscaped()
+    {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put( "q", "a=b&c|d%" );
+
+        ResourceKey key = ResourceKey.of( String.class, new Identifier( "x" ), parameters, Locale.US );
+        assertEquals( key.asString(), "java.lang.String|x|q=a%3db%26c%7cd%25|en-US" );
+
+        ResourceKey other = ResourceKey.of( String.class, new Identifier( "x" ), parameters, Locale.UK );
+        assertNotEquals( key, other );
+    }
+
+    @Test
+    public void controllerSeparatedFromValue()
+    {
+        Identifier first = new Identifier( 42L ).controller( "accounts" );
+        Identifier second = new Identifier( 2L ).controller( "accounts4" );
+        assertEquals( first.key(), second.key() );
+
+        ResourceKey one = ResourceKey.of( String.class, first, null, null );
+        ResourceKey two = ResourceKey.of( String.class, second, null, null );
+        assertNotEquals( one, two );
+        assertNotEquals( one.asString(), two.asString() );
+        assertEquals( one.asString(), "java.lang.String|/accounts%3a42||" );
+
+        // the descendants share the key prefix followed by the separator
+        ResourceKey child = ResourceKey.of( String.class, new Identifier( 42L ).controller( "accounts" ).add( 7L ),
+                null, null );
+        assertTrue( child.asString().startsWith( "java.lang.String|/accounts%3a42:" ) );
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link BatchingGetExecutorAdaptee} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class BatchingGetExecutorAdapteeTest
+{
+    private final GetExecutorAdaptee<String> delegate = new GetExecutorAdaptee<String>()
+    {
+        @Override
+        public Object prepareGet( @Nonnull Identifier identifier )
+        {
+            return new Object();
+        }
+
+        @Override
+        public String executeGet( @Nonnull Object request, Map<String, Object> parameters, Locale locale )
+        {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private List<Collection<Identifier>> loads;
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        loads = new ArrayList<>();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void callsWithinWindowMerged()
+    {
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 500, 10, Runnable::run );
+
+        CompletableFuture<String> first = get( adaptee, 1L );
+        CompletableFuture<String> second = get( adaptee, 2L );
+
+        assertEquals( first.join(), "item-1" );
+        assertEquals( second.join(), "item-2" );
+        assertEquals( loads.size(), 1 );
+        assertEquals( loads.get( 0 ).size(), 2 );
+    }
+
+    @Test
+    public void fullBatchDispatchedBeforeWindow()
+    {
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 60_000, 2, Runnable::run );
+
+        CompletableFuture<String> first = get( adaptee, 1L );
+        CompletableFuture<String> second = get( adaptee, 2L );
+
+        assertEquals( first.orTimeout( 5, TimeUnit.SECONDS ).join(), "item-1" );
+        assertEquals( second.orTimeout( 5, TimeUnit.SECONDS ).join(), "item-2" );
+        assertEquals( loads.size(), 1 );
+    }
+
+    @Test
+    public void loadedOnExecutor()
+    {
+        AtomicInteger executed = new AtomicInteger();
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 0, 10, command -> {
+            executed.incrementAndGet();
+            new Thread( command ).start();
+        } );
+
+        assertEquals( get( adaptee, 1L ).join(), "item-1" );
+        assertEquals( executed.get(), 1 );
+    }
+
+    @Test
+    public void notReturnedIsNotFound()
+    {
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 0, 10, Runnable::run );
+
+        try
+        {
+            get( adaptee, 404L ).join();
+            fail( "NotFoundException expected" );
+        }
+        catch ( CompletionException e )
+        {
+            assertTrue( e.getCause() instanceof NotFoundException );
+        }
+    }
+
+    @Test
+    public void loadFailureSharedByCallers()
+    {
+        IOException failure = new IOException( "remote" );
+        BatchingGetExecutorAdaptee<String> adaptee = new BatchingGetExecutorAdaptee<>( delegate,
+                ( identifiers, parameters, locale ) -> {
+                    throw failure;
+                }, 0, 2, scheduler, Runnable::run );
+
+        for ( CompletableFuture<String> next : Arrays.asList( get( adaptee, 1L ), get( adaptee, 2L ) ) )
+        {
+            try
+            {
+                next.join();
+                fail( "IOException expected" );
+            }
+            catch ( CompletionException e )
+            {
+                assertSame( e.getCause(), failure );
+            }
+        }
+    }
+
+    @Test
+    public void schedulerShutdown() throws Exception
+    {
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 0, 10, Runnable::run );
+        scheduler.shutdown();
+
+        try
+        {
+            adaptee.executeGet( adaptee.prepareGet( new Identifier( 1L ) ), null, null );
+            fail( "RejectedExecutionException expected" );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            // expected, nothing left pending
+        }
+    }
+
+    @Test
+    public void executorRejectionFailsCallers()
+    {
+        BatchingGetExecutorAdaptee<String> adaptee = adaptee( 0, 1, command -> {
+            throw new RejectedExecutionException();
+        } );
+
+        try
+        {
+            get( adaptee, 1L ).orTimeout( 5, TimeUnit.SECONDS ).join();
+            fail( "RejectedExecutionException expected" );
+        }
+        catch ( CompletionException e )
+        {
+            assertTrue( e.getCause() instanceof RejectedExecutionException );
+        }
+    }
+
+    @Test
+    public void loaderRespectsMaxBatchSize() throws Exception
+    {
+        List<Integer> batches = new ArrayList<>();
+        BatchGetExecutorAdaptee<String> adaptee = new BatchGetExecutorAdaptee<String>()
+        {
+            @Override
+            public Object prepareBatchGet( @Nonnull Collection<Identifier> identifiers )
+            {
+                batches.add( identifiers.size() );
+                return identifiers;
+            }
+
+            @Override
+            public Map<Identifier, String> executeBatchGet( @Nonnull Object request,
+                                                            Map<String, Object> parameters,
+                                                            Locale locale )
+            {
+                Map<Identifier, String> found = new HashMap<>();
+                for ( Object next : ( Collection<?> ) request )
+                {
+                    found.put( ( Identifier ) next, next.toString() );
+                }
+                return found;
+            }
+
+            @Override
+            public int getMaxBatchSize()
+            {
+                return 2;
+            }
+
+            @Override
+            public Object prepareGet( @Nonnull Identifier identifier )
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String executeGet( @Nonnull Object request, Map<String, Object> parameters, Locale locale )
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        List<Identifier> identifiers = new ArrayList<>();
+        for ( long id = 0; id < 5; id++ )
+        {
+            identifiers.add( new Identifier( id ) );
+        }
+
+        Map<Identifier, String> loaded = BatchLoader.of( adaptee ).load( identifiers, null, null );
+        assertEquals( loaded.size(), 5 );
+        assertEquals( batches, Arrays.asList( 2, 2, 1 ) );
+    }
+
+    private BatchingGetExecutorAdaptee<String> adaptee( long window,
+                                                        int maxBatchSize,
+                                                        Executor executor )
+    {
+        BatchLoader<String> loader = ( identifiers, parameters, locale ) -> {
+            synchronized ( loads )
+            {
+                loads.add( new ArrayList<>( identifiers ) );
+            }
+            Map<Identifier, String> found = new HashMap<>();
+            for ( Identifier next : identifiers )
+            {
+                if ( next.getLong() != 404L )
+                {
+                    found.put( next, "item-" + next.getLong() );
+                }
+            }
+            return found;
+        };
+        return new BatchingGetExecutorAdaptee<>( delegate, loader, window, maxBatchSize, scheduler, executor );
+    }
+
+    private static CompletableFuture<String> get( GetExecutorAdaptee<String> adaptee, long id )
+    {
+        return CompletableFuture.supplyAsync( () -> {
+            try
+            {
+                return adaptee.executeGet( adaptee.prepareGet( new Identifier( id ) ), null, null );
+            }
+            catch ( IOException e )
+            {
+                throw new CompletionException( e );
+            }
+        }, command -> new Thread( command ).start() );
+    }
+}
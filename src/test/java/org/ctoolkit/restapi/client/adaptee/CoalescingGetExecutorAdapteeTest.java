@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.RequestContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+/**
+ * {@link CoalescingGetExecutorAdaptee} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class CoalescingGetExecutorAdapteeTest
+{
+    private AtomicInteger calls;
+
+    private CountDownLatch release;
+
+    private final GetExecutorAdaptee<String> remote = new GetExecutorAdaptee<String>()
+    {
+        @Override
+        public Object prepareGet( Identifier identifier )
+        {
+            return new Object();
+        }
+
+        @Override
+        public String executeGet( Object request, Map<String, Object> parameters, Locale locale )
+                throws InterruptedIOException
+        {
+            calls.incrementAndGet();
+            try
+            {
+                release.await( 5, TimeUnit.SECONDS );
+            }
+            catch ( InterruptedException e )
+            {
+                throw new InterruptedIOException();
+            }
+            return "remote";
+        }
+    };
+
+    @BeforeMethod
+    public void setUp()
+    {
+        calls = new AtomicInteger();
+        release = new CountDownLatch( 1 );
+    }
+
+    @Test
+    public void requestNotWrapped() throws Exception
+    {
+        Object prepared = new Object();
+        GetExecutorAdaptee<String> delegate = new GetExecutorAdaptee<String>()
+        {
+            @Override
+            public Object prepareGet( Identifier identifier )
+            {
+                return prepared;
+            }
+
+            @Override
+            public String executeGet( Object request, Map<String, Object> parameters, Locale locale )
+            {
+                assertSame( request, prepared );
+                return "remote";
+            }
+        };
+
+        GetExecutorAdaptee<String> adaptee = new CoalescingGetExecutorAdaptee<>( String.class, delegate );
+        Object request = adaptee.prepareGet( new Identifier( 1L ) );
+
+        assertSame( request, prepared );
+        assertEquals( adaptee.executeGet( request, null, null ), "remote" );
+    }
+
+    @Test
+    public void equalContextCoalesced()
+    {
+        GetExecutorAdaptee<String> adaptee = new CoalescingGetExecutorAdaptee<>( String.class, remote );
+
+        CompletableFuture<String> first = get( adaptee, RequestContext.impersonating( "john@company.com", "drive" ) );
+        awaitCalls( 1 );
+        CompletableFuture<String> second = get( adaptee, RequestContext.impersonating( "john@company.com", "drive" ) );
+        // the second caller has no observable state while waiting, give it a moment to join the flight
+        LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 50 ) );
+
+        release.countDown();
+        assertEquals( first.join(), "remote" );
+        assertEquals( second.join(), "remote" );
+        assertEquals( calls.get(), 1 );
+    }
+
+    @Test
+    public void differentContextNotCoalesced()
+    {
+        GetExecutorAdaptee<String> adaptee = new CoalescingGetExecutorAdaptee<>( String.class, remote );
+
+        CompletableFuture<String> first = get( adaptee, RequestContext.impersonating( "john@company.com", "drive" ) );
+        CompletableFuture<String> second = get( adaptee, RequestContext.impersonating( "jane@company.com", "drive" ) );
+        awaitCalls( 2 );
+
+        release.countDown();
+        assertEquals( first.join(), "remote" );
+        assertEquals( second.join(), "remote" );
+        assertEquals( calls.get(), 2 );
+    }
+
+    @Test
+    public void noContextCoalescedOnceEnabled()
+    {
+        CoalescingGetExecutorAdaptee<String> adaptee = new CoalescingGetExecutorAdaptee<>( String.class, remote );
+
+        CompletableFuture<String> first = get( adaptee, null );
+        CompletableFuture<String> second = get( adaptee, null );
+        awaitCalls( 2 );
+        release.countDown();
+        assertEquals( first.join(), "remote" );
+        assertEquals( second.join(), "remote" );
+
+        setUp();
+        adaptee.coalesceWithoutContext();
+        first = get( adaptee, null );
+        awaitCalls( 1 );
+        second = get( adaptee, null );
+        LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 50 ) );
+
+        release.countDown();
+        assertEquals( first.join(), "remote" );
+        assertEquals( second.join(), "remote" );
+        assertEquals( calls.get(), 1 );
+    }
+
+    private static CompletableFuture<String> get( GetExecutorAdaptee<String> adaptee, RequestContext context )
+    {
+        return CompletableFuture.supplyAsync( () -> {
+            try
+            {
+                Callable<String> call = () -> {
+                    Object request = adaptee.prepareGet( new Identifier( 1L ) );
+                    return adaptee.executeGet( request, null, null );
+                };
+                return context == null ? call.call() : context.call( call );
+            }
+            catch ( Exception e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }, runnable -> new Thread( runnable ).start() );
+    }
+
+    private void awaitCalls( int expected )
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 5 );
+        while ( calls.get() < expected && System.nanoTime() < deadline )
+        {
+            Thread.yield();
+        }
+        assertEquals( calls.get(), expected );
+    }
+}
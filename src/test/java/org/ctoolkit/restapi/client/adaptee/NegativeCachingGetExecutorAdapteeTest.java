@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.cache.NegativeCache;
+import org.testng.annotations.Test;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link NegativeCachingGetExecutorAdaptee} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class NegativeCachingGetExecutorAdapteeTest
+{
+    @Test
+    public void notFoundAnsweredLocally() throws Exception
+    {
+        AtomicInteger calls = new AtomicInteger();
+        GetExecutorAdaptee<String> remote = new GetExecutorAdaptee<String>()
+        {
+            @Override
+            public Object prepareGet( Identifier identifier )
+            {
+                return identifier;
+            }
+
+            @Override
+            public String executeGet( Object request, Map<String, Object> parameters, Locale locale )
+            {
+                calls.incrementAndGet();
+                throw new NotFoundException();
+            }
+        };
+
+        NegativeCache cache = new NegativeCache( 100, 0 ).ttl( String.class, 60_000L );
+        GetExecutorAdaptee<String> adaptee = new NegativeCachingGetExecutorAdaptee<>( String.class, remote, cache );
+
+        Identifier identifier = new Identifier( "missing" );
+        for ( int attempt = 0; attempt < 3; attempt++ )
+        {
+            try
+            {
+                adaptee.executeGet( adaptee.prepareGet( identifier ), null, null );
+                fail( "NotFoundException expected" );
+            }
+            catch ( NotFoundException e )
+            {
+                // expected
+            }
+        }
+        assertEquals( calls.get(), 1 );
+
+        cache.invalidate( String.class, identifier );
+        try
+        {
+            adaptee.executeGet( adaptee.prepareGet( identifier ), null, null );
+            fail( "NotFoundException expected" );
+        }
+        catch ( NotFoundException e )
+        {
+            // expected
+        }
+        assertEquals( calls.get(), 2 );
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link SingleFlight} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class SingleFlightTest
+{
+    @Test
+    public void concurrentLoadsCoalesced() throws Exception
+    {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        Object value = new Object();
+
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        try
+        {
+            Future<Object> first = executor.submit( () -> flight.execute( "key", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await( release );
+                return value;
+            } ) );
+
+            started.await( 5, TimeUnit.SECONDS );
+            Future<Object> second = executor.submit( () -> flight.execute( "key", () -> {
+                loads.incrementAndGet();
+                return new Object();
+            } ) );
+
+            // let the second caller join the in flight load
+            Thread.sleep( 100 );
+            release.countDown();
+
+            assertSame( first.get( 5, TimeUnit.SECONDS ), value );
+            assertSame( second.get( 5, TimeUnit.SECONDS ), value );
+            assertEquals( loads.get(), 1 );
+            assertFalse( flight.isInFlight( "key" ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failureNotRemembered() throws Exception
+    {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        try
+        {
+            flight.execute( "key", () -> {
+                throw new IOException( "failed" );
+            } );
+            fail( "IOException expected" );
+        }
+        catch ( IOException e )
+        {
+            assertEquals( e.getMessage(), "failed" );
+        }
+
+        assertEquals( flight.execute( "key", () -> "value" ), "value" );
+        assertEquals( flight.size(), 0 );
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
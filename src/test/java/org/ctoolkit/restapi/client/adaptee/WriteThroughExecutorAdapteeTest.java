@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.adaptee;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.cache.InMemoryResourceProvider;
+import org.ctoolkit.restapi.client.cache.NegativeCache;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link WriteThroughExecutorAdaptee} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class WriteThroughExecutorAdapteeTest
+{
+    @Test
+    public void mutationsKeepCacheConsistent() throws Exception
+    {
+        InMemoryResourceProvider<String> provider = new InMemoryResourceProvider<>( String.class, 100 );
+        NegativeCache negativeCache = new NegativeCache( 100, 60_000L );
+
+        Remote remote = new Remote();
+        WriteThroughExecutorAdaptee<String> adaptee = new WriteThroughExecutorAdaptee<>( String.class,
+                remote, remote, remote, Identifier::new )
+                .resources( provider )
+                .lists( provider )
+                .negativeCache( negativeCache );
+
+        Identifier identifier = new Identifier( "a" );
+        Map<String, Object> variant = Collections.singletonMap( "fields", "name" );
+        provider.persist( "stale", identifier, variant, null, null );
+        provider.persistList( Collections.singletonList( "stale" ), null, null, null );
+        negativeCache.notFound( String.class, identifier );
+
+        // insert written through, stale variants and lists evicted
+        adaptee.executeInsert( adaptee.prepareInsert( "a", null, null ), null, null );
+        assertEquals( provider.get( identifier, null, null ), "a" );
+        assertNull( provider.get( identifier, variant, null ) );
+        assertNull( provider.list( null, null, null ) );
+        assertFalse( negativeCache.isNotFound( String.class, identifier ) );
+
+        // delete evicted
+        provider.persistList( Collections.singletonList( "a" ), null, null, null );
+        adaptee.executeDelete( adaptee.prepareDelete( identifier ), null, null );
+        assertNull( provider.get( identifier, null, null ) );
+        assertNull( provider.list( null, null, null ) );
+        assertTrue( negativeCache.isNotFound( String.class, identifier ) );
+    }
+
+    private static class Remote
+            implements InsertExecutorAdaptee<String>, UpdateExecutorAdaptee<String>, DeleteExecutorAdaptee<String>
+    {
+        @Override
+        public Object prepareInsert( String resource, Identifier parentKey, MediaProvider provider )
+        {
+            return resource;
+        }
+
+        @Override
+        public Object executeInsert( Object request, Map<String, Object> parameters, Locale locale )
+        {
+            return request;
+        }
+
+        @Override
+        public Object prepareUpdate( String resource, Identifier identifier, MediaProvider provider )
+        {
+            return resource;
+        }
+
+        @Override
+        public Object executeUpdate( Object request, Map<String, Object> parameters, Locale locale )
+        {
+            return request;
+        }
+
+        @Override
+        public Object prepareDelete( Identifier identifier )
+        {
+            return identifier;
+        }
+
+        @Override
+        public Object executeDelete( Object request, Map<String, Object> parameters, Locale locale )
+        {
+            return null;
+        }
+    }
+}
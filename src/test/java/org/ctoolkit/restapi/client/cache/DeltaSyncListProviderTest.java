@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.adaptee.ListExecutorAdaptee;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * {@link DeltaSyncListProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class DeltaSyncListProviderTest
+{
+    @Test
+    public void mergesChangesSinceHighWaterMark() throws Exception
+    {
+        List<Item> remote = new ArrayList<>( Arrays.asList( new Item( "a", 10 ), new Item( "b", 20 ) ) );
+        List<Date> requested = new ArrayList<>();
+
+        ListExecutorAdaptee<Item> adaptee = new ListExecutorAdaptee<Item>()
+        {
+            @Override
+            public Object prepareList( Identifier parentKey )
+            {
+                return "list";
+            }
+
+            @Override
+            public List<Item> executeList( Object request,
+                                           Map<String, Object> parameters,
+                                           Locale locale,
+                                           Integer offset,
+                                           Integer limit,
+                                           String orderBy,
+                                           Boolean ascending )
+            {
+                Date since = parameters == null ? null : ( Date ) parameters.get( "modifiedSince" );
+                requested.add( since );
+
+                List<Item> result = new ArrayList<>();
+                for ( Item item : remote )
+                {
+                    if ( since == null || item.modified >= since.getTime() )
+                    {
+                        result.add( item );
+                    }
+                }
+                return result;
+            }
+        };
+
+        DeltaSyncListProvider<Item> provider = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) ).removedWhen( item -> item.deleted );
+
+        assertNull( provider.list( null, null, null ) );
+        assertEquals( provider.sync( null, null ).size(), 2 );
+        assertEquals( provider.highWaterMark( null, null ), new Date( 20 ) );
+
+        Item changed = new Item( "a", 30 );
+        Item deleted = new Item( "b", 40 );
+        deleted.deleted = true;
+        remote.clear();
+        remote.addAll( Arrays.asList( changed, deleted, new Item( "c", 50 ) ) );
+
+        List<Item> merged = provider.list( null, null, null );
+        assertEquals( merged.size(), 2 );
+        assertEquals( merged.get( 0 ), changed );
+        assertEquals( merged.get( 1 ).id, "c" );
+        assertEquals( requested.get( 1 ), new Date( 20 ) );
+        assertEquals( provider.highWaterMark( null, null ), new Date( 50 ) );
+
+        // remote not modified since the high-water mark, no remote call
+        provider.list( null, null, new Date( 50 ) );
+        assertEquals( requested.size(), 2 );
+        assertEquals( provider.deltaSyncCount(), 1 );
+        assertEquals( provider.fullSyncCount(), 1 );
+    }
+
+    @Test
+    public void deltaScopedByParentAndOrder() throws Exception
+    {
+        List<Object> requested = new ArrayList<>();
+
+        ListExecutorAdaptee<Item> adaptee = new ListExecutorAdaptee<Item>()
+        {
+            @Override
+            public Object prepareList( Identifier parentKey )
+            {
+                return parentKey;
+            }
+
+            @Override
+            public List<Item> executeList( Object request,
+                                           Map<String, Object> parameters,
+                                           Locale locale,
+                                           Integer offset,
+                                           Integer limit,
+                                           String orderBy,
+                                           Boolean ascending )
+            {
+                requested.add( Arrays.asList( request, orderBy, ascending ) );
+                return Arrays.asList( new Item( request + "-a", 10 ) );
+            }
+        };
+
+        DeltaSyncListProvider<Item> provider = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) )
+                .orderBy( "name", Comparator.comparing( item -> item.id ) );
+
+        Identifier parent = new Identifier( "p" );
+        provider.sync( parent, null, null, "name", true );
+        provider.sync( parent, null, null, "name", true );
+
+        assertEquals( requested.size(), 2 );
+        assertEquals( requested.get( 1 ), Arrays.asList( parent, "name", true ) );
+        assertEquals( provider.fullSyncCount(), 1 );
+        assertEquals( provider.deltaSyncCount(), 1 );
+
+        // scoped list is kept apart from the list with no parent
+        assertNull( provider.list( null, null, null ) );
+        assertEquals( provider.list( parent, null, null, "name", true, null ).size(), 1 );
+    }
+
+    @Test
+    public void sortedListKeptInOrder() throws Exception
+    {
+        List<Item> remote = new ArrayList<>( Arrays.asList( new Item( "a", 10 ), new Item( "c", 20 ) ) );
+        ListExecutorAdaptee<Item> adaptee = new ListExecutorAdaptee<Item>()
+        {
+            @Override
+            public Object prepareList( Identifier parentKey )
+            {
+                return "list";
+            }
+
+            @Override
+            public List<Item> executeList( Object request,
+                                           Map<String, Object> parameters,
+                                           Locale locale,
+                                           Integer offset,
+                                           Integer limit,
+                                           String orderBy,
+                                           Boolean ascending )
+            {
+                Date since = parameters == null ? null : ( Date ) parameters.get( "modifiedSince" );
+                List<Item> result = new ArrayList<>();
+                for ( Item item : remote )
+                {
+                    if ( since == null || item.modified >= since.getTime() )
+                    {
+                        result.add( item );
+                    }
+                }
+                result.sort( Boolean.FALSE.equals( ascending )
+                        ? Comparator.comparing( ( Item item ) -> item.id ).reversed()
+                        : Comparator.comparing( item -> item.id ) );
+                return result;
+            }
+        };
+
+        DeltaSyncListProvider<Item> sorted = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) )
+                .orderBy( "id", Comparator.comparing( item -> item.id ) );
+        DeltaSyncListProvider<Item> unknown = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) );
+
+        sorted.sync( null, null, null, "id", false );
+        unknown.sync( null, null, null, "id", false );
+        remote.add( new Item( "b", 30 ) );
+
+        // merged in the middle, not appended at the end
+        List<Item> merged = sorted.list( null, null, null, "id", false, null );
+        assertEquals( ids( merged ), Arrays.asList( "c", "b", "a" ) );
+        assertEquals( sorted.deltaSyncCount(), 1 );
+
+        // no comparator, thus the full retrieval instead of the merge
+        assertNull( unknown.list( null, null, null, "id", false, null ) );
+        assertEquals( ids( unknown.sync( null, null, null, "id", false ) ), Arrays.asList( "c", "b", "a" ) );
+        assertEquals( unknown.deltaSyncCount(), 0 );
+        assertEquals( unknown.fullSyncCount(), 2 );
+    }
+
+    @Test
+    public void deletedItemRemovedAtOnce() throws Exception
+    {
+        List<Object> requested = new ArrayList<>();
+        ListExecutorAdaptee<Item> adaptee = new ListExecutorAdaptee<Item>()
+        {
+            @Override
+            public Object prepareList( Identifier parentKey )
+            {
+                return "list";
+            }
+
+            @Override
+            public List<Item> executeList( Object request,
+                                           Map<String, Object> parameters,
+                                           Locale locale,
+                                           Integer offset,
+                                           Integer limit,
+                                           String orderBy,
+                                           Boolean ascending )
+            {
+                requested.add( parameters );
+                return new ArrayList<>();
+            }
+        };
+
+        DeltaSyncListProvider<Item> identified = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) ).identifiedBy( item -> new Identifier( item.id ) );
+        DeltaSyncListProvider<Item> unknown = new DeltaSyncListProvider<>( Item.class, adaptee,
+                item -> item.id, item -> new Date( item.modified ) );
+
+        List<Item> seed = Arrays.asList( new Item( "a", 10 ), new Item( "b", 20 ), new Item( "c", 30 ) );
+        identified.persistList( seed, null, null, 60_000L );
+        unknown.persistList( seed, null, null, 60_000L );
+
+        // the delta does not report the deleted item, thus removed with no remote call
+        identified.evictDeleted( new Identifier( "b" ) );
+        assertEquals( ids( identified.list( null, null, null ) ), Arrays.asList( "a", "c" ) );
+        assertEquals( requested.size(), 0 );
+
+        unknown.evictDeleted( new Identifier( "b" ) );
+        assertNull( unknown.list( null, null, null ) );
+    }
+
+    private static List<String> ids( List<Item> items )
+    {
+        List<String> ids = new ArrayList<>();
+        for ( Item item : items )
+        {
+            ids.add( item.id );
+        }
+        return ids;
+    }
+
+    private static class Item
+    {
+        private final String id;
+
+        private final long modified;
+
+        private boolean deleted;
+
+        Item( String id, long modified )
+        {
+            this.id = id;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link ExistenceIndex} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class ExistenceIndexTest
+{
+    @Test
+    public void definitelyAbsent()
+    {
+        ExistenceIndex index = new ExistenceIndex( 1000, 0.01 );
+        Identifier created = new Identifier( "created" );
+
+        assertFalse( index.isReady() );
+        assertTrue( index.mightExist( new Identifier( "any" ) ) );
+
+        List<Identifier> identifiers = new ArrayList<>();
+        for ( long id = 0; id < 1000; id++ )
+        {
+            identifiers.add( new Identifier( id ) );
+        }
+        index.rebuild( () -> identifiers );
+
+        assertTrue( index.isReady() );
+        for ( Identifier identifier : identifiers )
+        {
+            assertTrue( index.mightExist( identifier ) );
+        }
+        assertFalse( index.mightExist( created ) );
+
+        index.put( created );
+        assertTrue( index.mightExist( created ) );
+
+        int falsePositives = 0;
+        for ( long id = 1000; id < 11000; id++ )
+        {
+            if ( index.mightExist( new Identifier( id ) ) )
+            {
+                falsePositives++;
+            }
+        }
+        assertTrue( falsePositives < 300, "False positives: " + falsePositives );
+
+        index.rebuild( identifiers::stream, identifier -> identifier );
+        assertFalse( index.mightExist( created ) );
+    }
+
+    @Test
+    public void createdWhileRebuildingKept()
+    {
+        ExistenceIndex index = new ExistenceIndex( 1000, 0.01 );
+        Identifier fetching = new Identifier( "fetching" );
+        Identifier iterating = new Identifier( "iterating" );
+
+        index.rebuild( () -> {
+            // created after the rebuild has begun, but missing in the identifiers fetched
+            index.put( fetching );
+            return Stream.of( new Identifier( 1L ), new Identifier( 2L ) ).peek( identifier -> index.put( iterating ) );
+        }, identifier -> identifier );
+
+        assertTrue( index.isReady() );
+        assertTrue( index.mightExist( fetching ) );
+        assertTrue( index.mightExist( iterating ) );
+        assertFalse( index.mightExist( new Identifier( "absent" ) ) );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link IdentifierIndex} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class IdentifierIndexTest
+{
+    @Test
+    public void subtree()
+    {
+        IdentifierIndex<String> index = new IdentifierIndex<>();
+        index.add( new Identifier( "accounts", "42" ), "account" );
+        index.add( new Identifier( "accounts", "42", "orders", "1" ), "order-1" );
+        index.add( new Identifier( "accounts", "42", "orders", "2" ), "order-2" );
+        index.add( new Identifier( "accounts", "43" ), "other" );
+
+        assertEquals( new HashSet<>( index.subtree( new Identifier( "accounts", "42" ) ) ),
+                new HashSet<>( Arrays.asList( "account", "order-1", "order-2" ) ) );
+        assertEquals( index.get( new Identifier( "accounts", "42" ) ), Arrays.asList( "account" ) );
+
+        assertEquals( index.removeSubtree( new Identifier( "accounts", "42" ) ).size(), 3 );
+        assertEquals( index.size(), 1 );
+        assertTrue( index.subtree( new Identifier( "accounts", "42" ) ).isEmpty() );
+
+        index.remove( new Identifier( "accounts", "43" ), "other" );
+        assertEquals( index.size(), 0 );
+        assertTrue( index.subtree( new Identifier( "accounts" ) ).isEmpty() );
+    }
+
+    @Test
+    public void providerSubtreeInvalidation()
+    {
+        InMemoryResourceProvider<String> provider = new InMemoryResourceProvider<>( String.class, 100 );
+        Identifier account = new Identifier( "accounts", "42" );
+        Identifier order = new Identifier( "accounts", "42", "orders", "1" );
+        Identifier other = new Identifier( "accounts", "43" );
+
+        provider.persist( "account", account, null, null, null );
+        provider.persist( "order", order, null, null, null );
+        provider.persist( "other", other, null, null, null );
+        assertEquals( provider.subtree( account ).size(), 2 );
+
+        provider.invalidateSubtree( account );
+        assertNull( provider.get( account, null, null ) );
+        assertNull( provider.get( order, null, null ) );
+        assertEquals( provider.get( other, null, null ), "other" );
+
+        // removed entries are no longer indexed
+        provider.invalidate( other, null, null );
+        assertTrue( provider.subtree( new Identifier( "accounts" ) ).isEmpty() );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link InMemoryResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class InMemoryResourceProviderTest
+{
+    @Test
+    public void listCountsAsSingleEntry()
+    {
+        InMemoryResourceProvider<String> provider = new InMemoryResourceProvider<>( String.class, 10 );
+        List<String> list = new ArrayList<>();
+        for ( int index = 0; index < 1000; index++ )
+        {
+            list.add( "item" + index );
+        }
+
+        provider.persistList( list, null, null, null );
+        assertEquals( provider.list( null, null, null ), list );
+        assertEquals( provider.size(), 1 );
+    }
+
+    @Test
+    public void emptyListWeighsOne()
+    {
+        InMemoryResourceProvider<String> provider = new InMemoryResourceProvider<>( String.class,
+                10,
+                String::length );
+
+        for ( int index = 0; index < 100; index++ )
+        {
+            provider.persistList( Collections.emptyList(), Collections.singletonMap( "page", index ), null, null );
+        }
+        assertTrue( provider.size() <= 10 );
+    }
+}
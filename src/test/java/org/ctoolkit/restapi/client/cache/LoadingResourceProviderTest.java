@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * {@link LoadingResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class LoadingResourceProviderTest
+{
+    @Test
+    public void singleLoadPerKey() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        LoadingResourceProvider<String> provider = new LoadingResourceProvider<>( String.class, tier,
+                ( identifier, parameters, locale ) -> {
+                    loads.incrementAndGet();
+                    LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 200 ) );
+                    return "loaded";
+                },
+                60_000L ).jitter( 0.1 );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for ( int index = 0; index < 8; index++ )
+            {
+                results.add( executor.submit( () -> {
+                    start.await();
+                    return provider.get( new Identifier( "hot" ), null, null );
+                } ) );
+            }
+            start.countDown();
+
+            for ( Future<String> result : results )
+            {
+                assertEquals( result.get(), "loaded" );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals( loads.get(), 1 );
+        assertEquals( provider.loadCount(), 1 );
+    }
+
+    @Test
+    public void notFoundSharedByWaitingCallers() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        LoadingResourceProvider<String> provider = new LoadingResourceProvider<>( String.class, tier,
+                ( identifier, parameters, locale ) -> {
+                    loads.incrementAndGet();
+                    LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 200 ) );
+                    return null;
+                },
+                60_000L );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for ( int index = 0; index < 8; index++ )
+            {
+                results.add( executor.submit( () -> {
+                    start.await();
+                    return provider.get( new Identifier( "missing" ), null, null );
+                } ) );
+            }
+            start.countDown();
+
+            for ( Future<String> result : results )
+            {
+                try
+                {
+                    result.get();
+                    fail( "NotFoundException expected" );
+                }
+                catch ( ExecutionException e )
+                {
+                    assertTrue( e.getCause() instanceof NotFoundException, String.valueOf( e.getCause() ) );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertEquals( loads.get(), 1 );
+        assertEquals( provider.failureCount(), 8 );
+    }
+
+    @Test( expectedExceptions = UncheckedIOException.class )
+    public void loadFailurePropagated()
+    {
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        LoadingResourceProvider<String> provider = new LoadingResourceProvider<>( String.class, tier,
+                ( identifier, parameters, locale ) -> {
+                    throw new IOException( "Remote call has failed" );
+                },
+                60_000L );
+
+        provider.get( new Identifier( "a" ), null, null );
+    }
+
+    @Test
+    public void jitter()
+    {
+        for ( int attempt = 0; attempt < 100; attempt++ )
+        {
+            long lastFor = CacheEntry.jitter( 1000L, 0.2 );
+            assertTrue( lastFor >= 800 && lastFor <= 1000, "Jittered: " + lastFor );
+        }
+        assertEquals( CacheEntry.jitter( 1000L, 0 ), Long.valueOf( 1000L ) );
+
+        for ( int attempt = 0; attempt < 100; attempt++ )
+        {
+            assertTrue( CacheEntry.jitter( 1L, 0.99 ) >= 1 );
+            assertTrue( CacheEntry.jitter( Long.MAX_VALUE, Math.nextDown( 1.0 ) ) >= 1 );
+        }
+    }
+
+    @Test( expectedExceptions = IllegalArgumentException.class )
+    public void jitterOfWholeTimeToLiveRejected()
+    {
+        CacheEntry.jitter( 1000L, 1 );
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link MappedFileResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class MappedFileResourceProviderTest
+{
+    private Path directory;
+
+    @BeforeMethod
+    public void before() throws IOException
+    {
+        directory = Files.createTempDirectory( "ctoolkit-cache" );
+    }
+
+    @AfterMethod
+    public void after() throws IOException
+    {
+        try ( Stream<Path> files = Files.walk( directory ) )
+        {
+            files.sorted( Comparator.reverseOrder() ).forEach( path -> path.toFile().delete() );
+        }
+    }
+
+    private MappedFileResourceProvider<String> open() throws IOException
+    {
+        ResourceCodec<String> codec = ResourceCodec.serializable( String.class );
+        return new MappedFileResourceProvider<>( String.class, directory, codec, 1024 );
+    }
+
+    private long segmentFiles() throws IOException
+    {
+        try ( Stream<Path> files = Files.list( directory ) )
+        {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void survivesRestart() throws IOException
+    {
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            for ( long id = 0; id < 100; id++ )
+            {
+                provider.persist( "value-" + id, new Identifier( id ), null, null, null );
+            }
+            provider.persist( "expired", new Identifier( "expired" ), null, null, -1L );
+            provider.invalidate( new Identifier( 7L ), null, null );
+            provider.persistList( Arrays.asList( "a", "b" ), null, null, null );
+        }
+
+        assertTrue( segmentFiles() > 1 );
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            assertEquals( provider.size(), 100 );
+            assertEquals( provider.get( new Identifier( 42L ), null, null ), "value-42" );
+            assertNull( provider.get( new Identifier( 7L ), null, null ) );
+            assertNull( provider.get( new Identifier( "expired" ), null, null ) );
+            assertEquals( provider.list( null, null, null ), Arrays.asList( "a", "b" ) );
+        }
+    }
+
+    @Test
+    public void evictVariantsAndListsAfterRestart() throws IOException
+    {
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            provider.persist( "a", new Identifier( "a" ), null, null, null );
+            provider.persist( "a-en", new Identifier( "a" ), null, Locale.ENGLISH, null );
+            provider.persist( "ab", new Identifier( "ab" ), null, null, null );
+            provider.persistList( Arrays.asList( "a", "ab" ), null, null, null );
+        }
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            provider.evict( new Identifier( "a" ) );
+            assertNull( provider.get( new Identifier( "a" ), null, null ) );
+            assertNull( provider.get( new Identifier( "a" ), null, Locale.ENGLISH ) );
+            assertEquals( provider.get( new Identifier( "ab" ), null, null ), "ab" );
+            assertEquals( provider.list( null, null, null ), Arrays.asList( "a", "ab" ) );
+
+            provider.evictLists( null );
+            assertNull( provider.list( null, null, null ) );
+            assertEquals( provider.size(), 1 );
+        }
+    }
+
+    @Test
+    public void subtreeInvalidationAfterRestart() throws IOException
+    {
+        Identifier account = new Identifier( "accounts", "42" );
+        Identifier order = new Identifier( "accounts", "42", "orders", "1" );
+        Identifier other = new Identifier( "accounts", "420" );
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            provider.persist( "account", account, null, null, null );
+            provider.persist( "order", order, null, Locale.ENGLISH, null );
+            provider.persist( "other", other, null, null, null );
+        }
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            provider.invalidateSubtree( account );
+            assertNull( provider.get( account, null, null ) );
+            assertNull( provider.get( order, null, Locale.ENGLISH ) );
+            assertEquals( provider.get( other, null, null ), "other" );
+        }
+    }
+
+    @Test
+    public void subtreeInvalidationMatchesSegments() throws IOException
+    {
+        Identifier account = new Identifier( 42L ).controller( "accounts" );
+        Identifier order = new Identifier( 42L ).controller( "accounts" ).add( 1L ).controller( "orders" );
+        Identifier shorter = new Identifier( 4L ).controller( "accounts" );
+        Identifier shifted = new Identifier( 2L ).controller( "accounts4" );
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            provider.persist( "account", account, null, null, null );
+            provider.persist( "order", order, null, null, null );
+            provider.persist( "shorter", shorter, null, null, null );
+            provider.persist( "shifted", shifted, null, null, null );
+
+            provider.invalidateSubtree( account );
+            assertNull( provider.get( account, null, null ) );
+            assertNull( provider.get( order, null, null ) );
+            assertEquals( provider.get( shorter, null, null ), "shorter" );
+            assertEquals( provider.get( shifted, null, null ), "shifted" );
+
+            provider.invalidateSubtree( shorter );
+            assertNull( provider.get( shorter, null, null ) );
+            assertEquals( provider.get( shifted, null, null ), "shifted" );
+        }
+    }
+
+    @Test
+    public void compactionKeepsLiveRecords() throws IOException
+    {
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            for ( int round = 0; round < 10; round++ )
+            {
+                for ( long id = 0; id < 20; id++ )
+                {
+                    provider.persist( "value-" + id + "-" + round, new Identifier( id ), null, null, null );
+                }
+            }
+            provider.invalidate( new Identifier( 3L ), null, null );
+
+            long before = segmentFiles();
+            provider.compact();
+            assertTrue( segmentFiles() < before );
+
+            assertEquals( provider.get( new Identifier( 5L ), null, null ), "value-5-9" );
+            assertNull( provider.get( new Identifier( 3L ), null, null ) );
+        }
+
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            assertEquals( provider.size(), 19 );
+            assertEquals( provider.get( new Identifier( 19L ), null, null ), "value-19-9" );
+            assertNull( provider.get( new Identifier( 3L ), null, null ) );
+        }
+    }
+
+    @Test
+    public void compactionDropsExpiredRecords() throws IOException
+    {
+        try ( MappedFileResourceProvider<String> provider = open() )
+        {
+            for ( long id = 0; id < 100; id++ )
+            {
+                provider.persist( "short-lived-" + id, new Identifier( id ), null, null, 50L );
+            }
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 100 ) );
+
+            // seals the segments of the expired records
+            for ( long id = 100; id < 120; id++ )
+            {
+                provider.persist( "value-" + id, new Identifier( id ), null, null, null );
+            }
+
+            long before = segmentFiles();
+            provider.compact();
+            assertTrue( segmentFiles() < before, "Segment files before: " + before + ", after: " + segmentFiles() );
+
+            assertEquals( provider.size(), 20 );
+            assertNull( provider.get( new Identifier( 5L ), null, null ) );
+            assertEquals( provider.get( new Identifier( 110L ), null, null ), "value-110" );
+        }
+    }
+}
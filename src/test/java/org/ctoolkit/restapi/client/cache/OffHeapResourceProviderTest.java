@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link OffHeapResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class OffHeapResourceProviderTest
+{
+    private static char[] fill( int length )
+    {
+        char[] chars = new char[length];
+        Arrays.fill( chars, 'x' );
+        return chars;
+    }
+
+    @Test
+    public void boundedByMaximumMemory()
+    {
+        OffHeapResourceProvider<String> provider = new OffHeapResourceProvider<>( String.class,
+                64 * 1024,
+                ResourceCodec.serializable( String.class ),
+                4096 );
+
+        String value = new String( fill( 500 ) );
+        for ( long id = 0; id < 1000; id++ )
+        {
+            provider.persist( value + id, new Identifier( id ), null, null, null );
+            assertTrue( provider.allocatedMemory() <= 64 * 1024 );
+        }
+
+        assertTrue( provider.size() < 1000 );
+        assertEquals( provider.get( new Identifier( 999L ), null, null ), value + 999 );
+
+        provider.persist( new String( fill( 5000 ) ), new Identifier( "large" ), null, null, null );
+        assertNull( provider.get( new Identifier( "large" ), null, null ) );
+        assertEquals( provider.rejectedCount(), 1 );
+    }
+
+    @Test
+    public void resourceAndListRoundTrip()
+    {
+        OffHeapResourceProvider<String> provider = new OffHeapResourceProvider<>( String.class,
+                1024 * 1024,
+                ResourceCodec.serializable( String.class ) );
+
+        provider.persist( "a", new Identifier( "a" ), null, null, null );
+        provider.persistList( Arrays.asList( "a", "b" ), null, null, null );
+        assertEquals( provider.get( new Identifier( "a" ), null, null ), "a" );
+        assertEquals( provider.list( null, null, null ), Arrays.asList( "a", "b" ) );
+
+        provider.invalidate( new Identifier( "a" ), null, null );
+        assertNull( provider.get( new Identifier( "a" ), null, null ) );
+    }
+
+    @Test
+    public void evictVariantsAndLists()
+    {
+        OffHeapResourceProvider<String> provider = new OffHeapResourceProvider<>( String.class,
+                1024 * 1024,
+                ResourceCodec.serializable( String.class ) );
+
+        provider.persist( "a", new Identifier( "a" ), null, null, null );
+        provider.persist( "a-en", new Identifier( "a" ), null, Locale.ENGLISH, null );
+        provider.persist( "ab", new Identifier( "ab" ), null, null, null );
+        provider.persistList( Arrays.asList( "a", "ab" ), null, null, null );
+
+        provider.evict( new Identifier( "a" ) );
+        assertNull( provider.get( new Identifier( "a" ), null, null ) );
+        assertNull( provider.get( new Identifier( "a" ), null, Locale.ENGLISH ) );
+        assertEquals( provider.get( new Identifier( "ab" ), null, null ), "ab" );
+        assertEquals( provider.list( null, null, null ), Arrays.asList( "a", "ab" ) );
+
+        provider.evictLists( null );
+        assertNull( provider.list( null, null, null ) );
+        assertEquals( provider.size(), 1 );
+    }
+
+    @Test
+    public void releasedChunkNotReadable()
+    {
+        SlabAllocator allocator = new SlabAllocator( 4096, 1024 );
+        SlabAllocator.Chunk chunk = allocator.allocate( new byte[]{1, 2, 3} );
+        assertNotNull( chunk.read() );
+
+        allocator.release( chunk );
+        assertNull( chunk.read() );
+
+        SlabAllocator.Chunk other = allocator.allocate( new byte[]{4, 5} );
+        assertEquals( other.read(), new byte[]{4, 5} );
+        assertNull( chunk.read() );
+    }
+}
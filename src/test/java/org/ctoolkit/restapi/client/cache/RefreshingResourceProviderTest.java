@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.NotFoundException;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.ctoolkit.restapi.client.Validators;
+import org.ctoolkit.restapi.client.adaptee.ConditionalGetExecutorAdaptee;
+import org.ctoolkit.restapi.client.adaptee.ConditionalResult;
+import org.testng.annotations.Test;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * {@link RefreshingResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class RefreshingResourceProviderTest
+{
+    @Test
+    public void staleWhileRevalidate()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        RefreshingResourceProvider<String> provider = new RefreshingResourceProvider<>( String.class,
+                tier,
+                ( identifier, parameters, locale ) -> "v" + loads.incrementAndGet(),
+                60_000L ).executeOn( Runnable::run );
+
+        Identifier identifier = new Identifier( "a" );
+        provider.persist( "v0", identifier, null, null, 0L );
+
+        // stale value returned immediately, refreshed meanwhile
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertEquals( provider.get( identifier, null, null ), "v1" );
+        assertEquals( provider.staleHitCount(), 2 );
+        assertEquals( provider.refreshCount(), 2 );
+
+        // fresh value, no refresh
+        provider.persist( "fresh", identifier, null, null, 60_000L );
+        assertEquals( provider.get( identifier, null, null ), "fresh" );
+        assertEquals( loads.get(), 2 );
+    }
+
+    @Test
+    public void refreshAhead() throws InterruptedException
+    {
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        RefreshingResourceProvider<String> provider = new RefreshingResourceProvider<>( String.class,
+                tier,
+                ( identifier, parameters, locale ) -> "v" + loads.incrementAndGet(),
+                0L ).executeOn( Runnable::run ).refreshAhead( 0.001 );
+
+        Identifier identifier = new Identifier( "a" );
+        provider.persist( "v0", identifier, null, null, 60_000L );
+        Thread.sleep( 100 );
+
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertEquals( provider.get( identifier, null, null ), "v1" );
+        assertEquals( provider.staleHitCount(), 0 );
+    }
+
+    @Test
+    public void notFoundWhileRefreshingInvalidates()
+    {
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        RefreshingResourceProvider<String> provider = new RefreshingResourceProvider<>( String.class,
+                tier,
+                ( identifier, parameters, locale ) -> {
+                    throw new NotFoundException();
+                },
+                60_000L ).executeOn( Runnable::run );
+
+        Identifier identifier = new Identifier( "a" );
+        provider.persist( "v0", identifier, null, null, 0L );
+
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertNull( provider.get( identifier, null, null ) );
+    }
+
+    @Test
+    public void notModifiedKeepsValue()
+    {
+        AtomicInteger transfers = new AtomicInteger();
+        ConditionalGetExecutorAdaptee<String> adaptee = new ConditionalGetExecutorAdaptee<String>()
+        {
+            @Override
+            public Object prepareGet( Identifier identifier )
+            {
+                return identifier;
+            }
+
+            @Override
+            public String executeGet( Object request, Map<String, Object> parameters, Locale locale )
+            {
+                transfers.incrementAndGet();
+                return "v2";
+            }
+
+            @Override
+            public ConditionalResult<String> executeConditionalGet( Object request,
+                                                                    Validators validators,
+                                                                    Map<String, Object> parameters,
+                                                                    Locale locale )
+            {
+                if ( validators != null && "\"1\"".equals( validators.getETag() ) )
+                {
+                    return ConditionalResult.notModified( null );
+                }
+                return ConditionalResult.modified( executeGet( request, parameters, locale ),
+                        Validators.of( "\"2\"", null ) );
+            }
+        };
+
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        RefreshingResourceProvider<String> provider = new RefreshingResourceProvider<>( String.class,
+                tier,
+                ResourceLoader.conditional( adaptee ),
+                60_000L ).executeOn( Runnable::run );
+
+        Identifier identifier = new Identifier( "a" );
+        provider.persist( "v1", identifier, null, null, 0L, Validators.of( "\"1\"", null ) );
+
+        // revalidated as not modified, time to live renewed
+        assertEquals( provider.get( identifier, null, null ), "v1" );
+        assertEquals( provider.notModifiedCount(), 1 );
+        assertEquals( transfers.get(), 0 );
+
+        // no validators, full transfer
+        provider.persist( "v1", identifier, null, null, 0L );
+        assertEquals( provider.get( identifier, null, null ), "v1" );
+        assertEquals( provider.get( identifier, null, null ), "v2" );
+        assertEquals( transfers.get(), 2 );
+        CacheEntry<?> entry = tier.getEntry( ResourceKey.of( String.class, identifier, null, null ) );
+        assertEquals( entry.getValidators(), Validators.of( "\"2\"", null ) );
+    }
+
+    @Test
+    public void refreshResultDroppedOnceReplacedMeanwhile()
+    {
+        Identifier identifier = new Identifier( "a" );
+        AtomicReference<Runnable> meanwhile = new AtomicReference<>();
+        InMemoryResourceProvider<String> tier = new InMemoryResourceProvider<>( String.class, 100 );
+        RefreshingResourceProvider<String> provider = new RefreshingResourceProvider<>( String.class,
+                tier,
+                ( id, parameters, locale ) -> {
+                    meanwhile.get().run();
+                    return "refreshed";
+                },
+                60_000L ).executeOn( Runnable::run );
+
+        // invalidated while being refreshed
+        meanwhile.set( () -> provider.invalidate( identifier, null, null ) );
+        provider.persist( "v0", identifier, null, null, 0L );
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertNull( provider.get( identifier, null, null ) );
+
+        // persisted while being refreshed
+        meanwhile.set( () -> provider.persist( "newer", identifier, null, null, 60_000L ) );
+        provider.persist( "v0", identifier, null, null, 0L );
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertEquals( provider.get( identifier, null, null ), "newer" );
+
+        // persisted while being refreshed with the same time to live, likely within the same millisecond
+        meanwhile.set( () -> provider.persist( "same", identifier, null, null, 0L ) );
+        provider.persist( "v0", identifier, null, null, 0L );
+        assertEquals( provider.get( identifier, null, null ), "v0" );
+        assertEquals( provider.get( identifier, null, null ), "same" );
+    }
+}
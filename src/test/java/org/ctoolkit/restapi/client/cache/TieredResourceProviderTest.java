@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.ctoolkit.restapi.client.Identifier;
+import org.ctoolkit.restapi.client.ResourceKey;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link TieredResourceProvider} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class TieredResourceProviderTest
+{
+    @Test
+    public void promoteOnHitAndDemoteOnEviction()
+    {
+        InMemoryResourceProvider<String> first = new InMemoryResourceProvider<>( String.class, 10 );
+        OffHeapResourceProvider<String> second = new OffHeapResourceProvider<>( String.class,
+                1024 * 1024,
+                ResourceCodec.serializable( String.class ) );
+
+        TieredResourceProvider<String> provider = TieredResourceProvider.of( String.class, first, second );
+
+        // write through
+        provider.persist( "a", new Identifier( "a" ), null, null, 60_000L );
+        assertNotNull( first.get( new Identifier( "a" ), null, null ) );
+        assertNotNull( second.get( new Identifier( "a" ), null, null ) );
+
+        // promote on hit, keeping the expiration time
+        ResourceKey key = ResourceKey.of( String.class, new Identifier( "a" ), null, null );
+        long expiresAt = first.getEntry( key ).getExpiresAt();
+        first.invalidate( key );
+        assertEquals( provider.get( new Identifier( "a" ), null, null ), "a" );
+        assertEquals( first.getEntry( key ).getExpiresAt(), expiresAt );
+        assertEquals( provider.hitCount( 1 ), 1 );
+
+        // demote on eviction
+        second.invalidateAll();
+        for ( long id = 0; id < 100; id++ )
+        {
+            first.persist( "v" + id, new Identifier( id ), null, null, null );
+        }
+        assertTrue( second.size() > 0 );
+        assertTrue( first.size() <= 10 );
+
+        assertNull( provider.get( new Identifier( "missing" ), null, null ) );
+        assertEquals( provider.missCount(), 1 );
+        assertEquals( provider.hitRate( 0 ), 0.0 );
+        assertEquals( provider.hitRate(), 0.5 );
+    }
+
+    @Test
+    public void demotionSkippedIfNextTierCaches()
+    {
+        InMemoryResourceProvider<String> first = new InMemoryResourceProvider<>( String.class, 1 );
+        ForwardingTier second = new ForwardingTier( new InMemoryResourceProvider<>( String.class, 100 ) );
+
+        TieredResourceProvider<String> provider = TieredResourceProvider.of( String.class, first, second );
+        for ( long id = 0; id < 10; id++ )
+        {
+            provider.persist( "v" + id, new Identifier( id ), null, null, null );
+        }
+
+        assertTrue( first.size() <= 1 );
+        // write through only, no duplicate demoted
+        assertEquals( second.puts, 10 );
+    }
+
+    @Test
+    public void promotionNotUndoingConcurrentInvalidation()
+    {
+        InMemoryResourceProvider<String> first = new InMemoryResourceProvider<>( String.class, 10 );
+        ForwardingTier second = new ForwardingTier( new InMemoryResourceProvider<>( String.class, 10 ) );
+        TieredResourceProvider<String> provider = TieredResourceProvider.of( String.class, first, second );
+
+        ResourceKey key = ResourceKey.of( String.class, new Identifier( "a" ), null, null );
+        second.putEntry( key, CacheEntry.lastFor( "a", System.currentTimeMillis(), null ) );
+
+        // invalidated once the lower tier has been read, but before the promotion
+        second.onGet = () -> provider.invalidate( key );
+
+        assertEquals( provider.getEntry( key ).getValue(), "a" );
+        assertNull( first.getEntry( key ) );
+        assertNull( second.getEntry( key ) );
+    }
+
+    @Test
+    public void demotionNotUndoingInvalidation()
+    {
+        InMemoryResourceProvider<String> first = new InMemoryResourceProvider<>( String.class, 1 );
+        ForwardingTier second = new ForwardingTier( new InMemoryResourceProvider<>( String.class, 10 ) );
+        TieredResourceProvider<String> provider = TieredResourceProvider.of( String.class, first, second );
+
+        ResourceKey key = ResourceKey.of( String.class, new Identifier( "a" ), null, null );
+        first.putEntry( key, CacheEntry.lastFor( "a", System.currentTimeMillis(), null ) );
+        // the invalidation has reached the lower tiers, while the entry is being evicted from the first one
+        provider.invalidate( key );
+        first.putEntry( key, CacheEntry.lastFor( "a", 0, null ) );
+        first.persist( "b", new Identifier( "b" ), null, null, null );
+
+        assertNull( second.getEntry( key ) );
+    }
+
+    @Test
+    public void subtreeInvalidatedInAllTiers()
+    {
+        InMemoryResourceProvider<String> first = new InMemoryResourceProvider<>( String.class, 10 );
+        OffHeapResourceProvider<String> second = new OffHeapResourceProvider<>( String.class,
+                1024 * 1024,
+                ResourceCodec.serializable( String.class ) );
+        TieredResourceProvider<String> provider = TieredResourceProvider.of( String.class, first, second );
+
+        Identifier account = new Identifier( "accounts", "42" );
+        Identifier order = new Identifier( "accounts", "42", "orders", "1" );
+        Identifier other = new Identifier( "accounts", "43" );
+        provider.persist( "account", account, null, null, null );
+        provider.persist( "order", order, null, null, null );
+        provider.persist( "other", other, null, null, null );
+
+        provider.invalidateSubtree( account );
+        assertNull( provider.get( account, null, null ) );
+        assertNull( provider.get( order, null, null ) );
+        assertNull( second.get( order, null, null ) );
+        assertEquals( provider.get( other, null, null ), "other" );
+        assertEquals( second.get( other, null, null ), "other" );
+    }
+
+    /**
+     * The tier delegating to another one, counting the writes.
+     */
+    private static class ForwardingTier
+            implements CacheTier<String>
+    {
+        private final CacheTier<String> delegate;
+
+        private int puts;
+
+        private Runnable onGet;
+
+        ForwardingTier( CacheTier<String> delegate )
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CacheEntry<?> getEntry( @Nonnull ResourceKey key )
+        {
+            CacheEntry<?> entry = delegate.getEntry( key );
+            Runnable hook = onGet;
+            onGet = null;
+            if ( hook != null )
+            {
+                hook.run();
+            }
+            return entry;
+        }
+
+        @Override
+        public void putEntry( @Nonnull ResourceKey key, @Nonnull CacheEntry<?> entry )
+        {
+            puts++;
+            delegate.putEntry( key, entry );
+        }
+
+        @Override
+        public void invalidate( @Nonnull ResourceKey key )
+        {
+            delegate.invalidate( key );
+        }
+
+        @Override
+        public void invalidateSubtree( @Nonnull Identifier identifier )
+        {
+            delegate.invalidateSubtree( identifier );
+        }
+
+        @Override
+        public void invalidateAll()
+        {
+            delegate.invalidateAll();
+        }
+
+        @Override
+        public void setEvictionListener( @Nullable EvictionListener listener )
+        {
+            delegate.setEvictionListener( listener );
+        }
+    }
+}
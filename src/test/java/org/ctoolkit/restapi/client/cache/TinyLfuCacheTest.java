@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 Comvai, s.r.o. All Rights Reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+
+package org.ctoolkit.restapi.client.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * {@link TinyLfuCache} unit testing.
+ *
+ * @author <a href="mailto:aurel.medvegy@ctoolkit.org">Aurel Medvegy</a>
+ */
+public class TinyLfuCacheTest
+{
+    @Test
+    public void boundedByMaximumSize()
+    {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>( 100, null, () -> 0L );
+        for ( int index = 0; index < 1000; index++ )
+        {
+            cache.put( index, "v" + index, 1, TinyLfuCache.NEVER );
+        }
+
+        assertEquals( cache.estimatedSize(), 100 );
+        assertEquals( cache.evictionCount(), 900 );
+    }
+
+    @Test
+    public void boundedByMaximumWeight()
+    {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>( 1000, null, () -> 0L );
+        for ( int index = 0; index < 1000; index++ )
+        {
+            cache.put( index, "0123456789", 10, TinyLfuCache.NEVER );
+        }
+
+        assertTrue( cache.weightedSize() <= 1000 );
+        assertEquals( cache.estimatedSize(), 100 );
+    }
+
+    @Test
+    public void oversizedEntryNotAdmitted()
+    {
+        List<String> evicted = new ArrayList<>();
+        RemovalListener<Integer, String> listener = ( key, value, writtenAt, expiresAt, cause ) -> {
+            if ( cause == RemovalListener.Cause.SIZE )
+            {
+                evicted.add( value );
+            }
+        };
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>( 100, 100, listener, () -> 0L );
+
+        for ( int index = 0; index < 10; index++ )
+        {
+            cache.put( index, "v" + index, 10, TinyLfuCache.NEVER );
+        }
+        cache.put( 5, "huge", 101, TinyLfuCache.NEVER );
+
+        assertEquals( evicted, Collections.singletonList( "huge" ) );
+        assertNull( cache.get( 5 ) );
+        assertEquals( cache.estimatedSize(), 9 );
+        assertEquals( cache.weightedSize(), 90 );
+        assertEquals( cache.get( 0 ), "v0" );
+    }
+
+    @Test
+    public void entryHeavierThanSegmentAdmitted()
+    {
+        // four segments of 256
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>( 1024, 100, null, () -> 0L );
+        for ( int index = 0; index < 50; index++ )
+        {
+            cache.put( index, "v" + index, 10, TinyLfuCache.NEVER );
+        }
+
+        cache.put( 1000, "heavy", 500, TinyLfuCache.NEVER );
+        assertEquals( cache.get( 1000 ), "heavy" );
+        assertTrue( cache.weightedSize() <= 1024 );
+
+        cache.put( 1001, "heaviest", 1000, TinyLfuCache.NEVER );
+        assertEquals( cache.get( 1001 ), "heaviest" );
+        assertTrue( cache.weightedSize() <= 1024 );
+    }
+
+    @Test
+    public void frequentEntriesSurviveScan()
+    {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>( 100, null, () -> 0L );
+        for ( int index = 0; index < 50; index++ )
+        {
+            cache.put( index, "hot", 1, TinyLfuCache.NEVER );
+        }
+        for ( int round = 0; round < 5; round++ )
+        {
+            for ( int index = 0; index < 50; index++ )
+            {
+                assertNotNull( cache.get( index ) );
+            }
+        }
+
+        // one-hit-wonders
+        for ( int index = 1000; index < 11000; index++ )
+        {
+            cache.put( index, "cold", 1, TinyLfuCache.NEVER );
+        }
+
+        int survived = 0;
+        for ( int index = 0; index < 50; index++ )
+        {
+            survived += cache.get( index ) == null ? 0 : 1;
+        }
+        assertTrue( survived >= 45, "Hot entries survived: " + survived );
+    }
+
+    @Test
+    public void expiration()
+    {
+        AtomicLong now = new AtomicLong( 1000 );
+        AtomicLong expired = new AtomicLong();
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>( 10, ( key, value, writtenAt, expiresAt, cause ) -> {
+            if ( cause == RemovalListener.Cause.EXPIRED )
+            {
+                expired.incrementAndGet();
+            }
+        }, now::get );
+
+        cache.put( "a", "A", 1, 1500 );
+        cache.put( "b", "B", 1, 2500 );
+        cache.put( "c", "C", 1, TinyLfuCache.NEVER );
+        assertEquals( cache.get( "a" ), "A" );
+
+        now.set( 2000 );
+        assertNull( cache.get( "a" ) );
+        assertEquals( cache.get( "b" ), "B" );
+
+        now.set( 3000 );
+        cache.cleanUp();
+        assertEquals( cache.estimatedSize(), 1 );
+        assertEquals( cache.get( "c" ), "C" );
+        assertEquals( expired.get(), 2 );
+        assertEquals( cache.hitCount(), 3 );
+        assertEquals( cache.missCount(), 1 );
+    }
+}